@@ -32,6 +32,8 @@
 #include <stdlib.h>
 #include <unistd.h>
 #include <stdarg.h>
+#include <string.h>
+#include <sys/mman.h>
 #include <sys/shm.h>
 #include <sys/stat.h>
 #include <sys/types.h>
@@ -173,6 +175,24 @@ int main(int argc, char** argv) {
 
   /* perf map is right after coverage bit map (unused with stock AFL) */
   u32* perf_bits = (u32*) &trace_bits[MAP_SIZE];
+
+  /* optionally map the trace bits that Java writes in place, so that
+     they do not have to be sent through the pipe. Java creates this
+     file before opening the FIFOs, so it exists at this point. */
+  u8* java_trace_bits = NULL;
+  char * trace_bits_file = getenv(TRACE_BITS_ENV_VAR);
+  if (trace_bits_file != NULL) {
+    int trace_bits_fd = open(trace_bits_file, O_RDONLY);
+    if (trace_bits_fd < 0) {
+      log_to_file(1, log_file_name, "Error opening trace bits file %s\n", trace_bits_file);
+    }
+    java_trace_bits = mmap(NULL, MAP_SIZE, PROT_READ, MAP_SHARED, trace_bits_fd, 0);
+    if (java_trace_bits == MAP_FAILED) {
+      log_to_file(1, log_file_name, "Error mapping trace bits file %s\n", trace_bits_file);
+    }
+    close(trace_bits_fd);
+    log_to_file(0, log_file_name, "mapped trace bits file %s\n", trace_bits_file);
+  }
  
   /* say the first hello to AFL. use write() because we
      have an int file descriptor */
@@ -216,7 +236,9 @@ int main(int argc, char** argv) {
     log_to_file(0, log_file_name, "Got return status from Java.\n");
 
     /* Get trace bits from Java */
-    if ((comm_bytes = fread( trace_bits, 1, MAP_SIZE, from_java_fd)) < MAP_SIZE) {
+    if (java_trace_bits != NULL) {
+      memcpy(trace_bits, java_trace_bits, MAP_SIZE);
+    } else if ((comm_bytes = fread( trace_bits, 1, MAP_SIZE, from_java_fd)) < MAP_SIZE) {
       log_to_file(1, log_file_name, 
         "Something went wrong getting trace_bits from Java: read %d bytes.\n", comm_bytes);
     }
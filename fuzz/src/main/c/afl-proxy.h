@@ -21,6 +21,7 @@ typedef uint32_t u32;
 #define PERF_SIZE (1 << 14)
 
 #define SHM_ENV_VAR    "__AFL_SHM_ID"
+#define TRACE_BITS_ENV_VAR "JQF_TRACE_BITS_FILE"
 #define FORKSRV_FD      198
 
 #endif // PROXY_H
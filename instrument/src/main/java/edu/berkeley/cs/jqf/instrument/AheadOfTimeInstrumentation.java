@@ -0,0 +1,300 @@
+/*
+ * Copyright (c) 2026 Vladimir Sitnikov and JQF Contributors
+ *
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are
+ * met:
+ *
+ * 1. Redistributions of source code must retain the above copyright
+ * notice, this list of conditions and the following disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright
+ * notice, this list of conditions and the following disclaimer in the
+ * documentation and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+ * HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT
+ * LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ * THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package edu.berkeley.cs.jqf.instrument;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.lang.instrument.ClassFileTransformer;
+import java.lang.instrument.IllegalClassFormatException;
+import java.net.URLClassLoader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Enumeration;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.TreeMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.IntConsumer;
+import java.util.jar.JarEntry;
+import java.util.jar.JarFile;
+import java.util.jar.JarOutputStream;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import edu.berkeley.cs.jqf.instrument.tracing.FastCoverageSnoop;
+import janala.instrument.DerivedProbesAttribute;
+import janala.instrument.SnoopInstructionTransformer;
+
+/**
+ * Instruments a classpath once, ahead of time, so that fuzzing runs can
+ * load the instrumented classes with a plain class loader.
+ *
+ * <p>{@link #instrument} writes an instrumented copy of every directory
+ * and jar on the classpath into an output directory, using the
+ * instrumentation settings (<code>janala.*</code> properties) in effect,
+ * and records those settings next to it. {@link #load} restores the
+ * settings in the fuzzing JVM and returns the instrumented classpath.</p>
+ *
+ * <p>Classes that the parent class loader can load are copied unchanged,
+ * since {@link InstrumentingClassLoader} would never instrument them
+ * either.</p>
+ */
+public class AheadOfTimeInstrumentation {
+
+    private static final String SETTINGS_FILE = "jqf-instrumentation.properties";
+    private static final String DERIVED_PROBES_FILE = "derived-probes";
+    private static final String CLASSPATH_DIR = "classpath";
+    private static final String CLASSPATH = "jqf.instrumentedClasspath";
+    private static final String INLINE_COUNTERS_IN_USE = "jqf.inlineCountersInUse";
+
+    private final ClassLoader originalLoader;
+    private final ClassLoader parent;
+    private final ClassFileTransformer transformer = new SnoopInstructionTransformer();
+    private final List<Integer> derivedProbes = new ArrayList<>();
+    private final boolean pruneProbes;
+
+    private AheadOfTimeInstrumentation(String[] classpath, ClassLoader parent) throws IOException {
+        this.originalLoader = new URLClassLoader(InstrumentingClassLoader.stringsToUrls(classpath), parent);
+        this.parent = parent;
+        this.pruneProbes = Boolean.parseBoolean(SnoopInstructionTransformer.getSettings().getProperty("janala.pruneProbes"));
+    }
+
+    /**
+     * Writes an instrumented copy of a classpath to an output directory.
+     *
+     * @param classpath the directories and jars to instrument
+     * @param parent the class loader that fuzzing runs will delegate to
+     * @param outputDir the directory to write to; its previous
+     *                  instrumented classpath is replaced
+     * @return the instrumented classpath, in the same order
+     * @throws IOException if the classpath cannot be read or the output written
+     */
+    public static String[] instrument(String[] classpath, ClassLoader parent, File outputDir) throws IOException {
+        AheadOfTimeInstrumentation aot = new AheadOfTimeInstrumentation(classpath, parent);
+        File classpathDir = new File(outputDir, CLASSPATH_DIR);
+        deleteRecursively(classpathDir.toPath());
+        classpathDir.mkdirs();
+
+        String[] instrumented = new String[classpath.length];
+        for (int i = 0; i < classpath.length; i++) {
+            File element = new File(classpath[i]);
+            File copy = new File(classpathDir, i + "-" + element.getName());
+            if (element.isDirectory()) {
+                aot.instrumentDirectory(element.toPath(), copy.toPath());
+            } else if (element.isFile()) {
+                aot.instrumentJar(element, copy);
+            } else {
+                copy = element; // Nothing to instrument
+            }
+            instrumented[i] = copy.getAbsolutePath();
+        }
+
+        Properties settings = SnoopInstructionTransformer.getSettings();
+        settings.setProperty(CLASSPATH, String.join(File.pathSeparator, instrumented));
+        settings.setProperty(INLINE_COUNTERS_IN_USE, String.valueOf(FastCoverageSnoop.getInlineCountersInUse()));
+        try (OutputStream out = Files.newOutputStream(new File(outputDir, SETTINGS_FILE).toPath())) {
+            settings.store(out, "Generated by jqf:instrument");
+        }
+        try (DataOutputStream out = new DataOutputStream(
+                Files.newOutputStream(new File(outputDir, DERIVED_PROBES_FILE).toPath()))) {
+            out.writeInt(aot.derivedProbes.size());
+            for (int probe : aot.derivedProbes) {
+                out.writeInt(probe);
+            }
+        }
+        return instrumented;
+    }
+
+    /**
+     * Prepares this JVM to run classes instrumented by {@link #instrument},
+     * and returns their classpath.
+     *
+     * <p>This sets the system properties that select the coverage
+     * implementation, so it must be called before any guidance is
+     * created.</p>
+     *
+     * @param outputDir the output directory of {@link #instrument}
+     * @return the instrumented classpath
+     * @throws IOException if the instrumented classpath cannot be read
+     */
+    public static String[] load(File outputDir) throws IOException {
+        Properties settings = new Properties();
+        try (InputStream in = Files.newInputStream(new File(outputDir, SETTINGS_FILE).toPath())) {
+            settings.load(in);
+        }
+        for (String key : settings.stringPropertyNames()) {
+            if (!key.equals(CLASSPATH) && !key.equals(INLINE_COUNTERS_IN_USE)) {
+                System.setProperty(key, settings.getProperty(key));
+            }
+        }
+
+        if (Boolean.parseBoolean(settings.getProperty("janala.inlineCounters"))) {
+            int mapSize = Integer.parseInt(settings.getProperty("janala.inlineCounters.mapSize"));
+            if (FastCoverageSnoop.INLINE_COUNTERS.length != mapSize) {
+                throw new IllegalStateException("Classes were instrumented for " + mapSize +
+                        " inline counters, but this JVM already uses " + FastCoverageSnoop.INLINE_COUNTERS.length);
+            }
+            FastCoverageSnoop.enableInlineCounters();
+            FastCoverageSnoop.reserveInlineCounters(Integer.parseInt(settings.getProperty(INLINE_COUNTERS_IN_USE)));
+        }
+        try (DataInputStream in = new DataInputStream(
+                Files.newInputStream(new File(outputDir, DERIVED_PROBES_FILE).toPath()))) {
+            int[] pairs = new int[in.readInt()];
+            for (int i = 0; i < pairs.length; i++) {
+                pairs[i] = in.readInt();
+            }
+            if (pairs.length > 0) {
+                FastCoverageSnoop.registerDerivedProbes(pairs);
+            }
+        }
+
+        return settings.getProperty(CLASSPATH).split(File.pathSeparator);
+    }
+
+    private void instrumentDirectory(Path root, Path copyRoot) throws IOException {
+        List<Path> files;
+        try (Stream<Path> walk = Files.walk(root)) {
+            files = walk.filter(Files::isRegularFile).collect(Collectors.toList());
+        }
+        inParallel(files.size(), i -> {
+            Path file = files.get(i);
+            String path = root.relativize(file).toString().replace(File.separatorChar, '/');
+            Path copy = copyRoot.resolve(root.relativize(file));
+            try {
+                Files.createDirectories(copy.getParent());
+                Files.write(copy, transform(path, Files.readAllBytes(file)));
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+    }
+
+    private void instrumentJar(File jar, File copy) throws IOException {
+        // Read the whole jar first, so that classes can be instrumented in parallel
+        Map<String, byte[]> entries = new TreeMap<>(Comparator.comparing(AheadOfTimeInstrumentation::entryOrder));
+        try (JarFile in = new JarFile(jar)) {
+            Enumeration<JarEntry> jarEntries = in.entries();
+            while (jarEntries.hasMoreElements()) {
+                JarEntry entry = jarEntries.nextElement();
+                if (entry.isDirectory() || isSignature(entry.getName())) {
+                    continue; // Instrumented classes would no longer match the signature
+                }
+                try (InputStream entryIn = in.getInputStream(entry)) {
+                    entries.put(entry.getName(), entryIn.readAllBytes());
+                }
+            }
+        }
+        String[] paths = entries.keySet().toArray(new String[0]);
+        byte[][] contents = entries.values().toArray(new byte[0][]);
+        inParallel(paths.length, i -> contents[i] = transform(paths[i], contents[i]));
+        try (JarOutputStream out = new JarOutputStream(Files.newOutputStream(copy.toPath()))) {
+            for (int i = 0; i < paths.length; i++) {
+                out.putNextEntry(new JarEntry(paths[i]));
+                out.write(contents[i]);
+                out.closeEntry();
+            }
+        }
+    }
+
+    /** Keeps the manifest first, as {@link java.util.jar.JarInputStream} expects. */
+    private static String entryOrder(String path) {
+        return (path.equalsIgnoreCase(JarFile.MANIFEST_NAME) ? "0" : "1") + path;
+    }
+
+    private static boolean isSignature(String path) {
+        String upper = path.toUpperCase();
+        return upper.startsWith("META-INF/") && upper.indexOf('/', "META-INF/".length()) < 0 &&
+                (upper.endsWith(".SF") || upper.endsWith(".DSA") || upper.endsWith(".RSA") || upper.endsWith(".EC"));
+    }
+
+    /** Returns the bytes to write for a classpath entry, instrumenting it if it is a class. */
+    private byte[] transform(String path, byte[] bytes) {
+        if (!path.endsWith(".class") || path.startsWith("META-INF/") || path.endsWith("module-info.class")) {
+            return bytes;
+        }
+        if (parent.getResource(path) != null) {
+            return bytes; // Loaded by the parent, so never instrumented at run time either
+        }
+        String internalName = path.substring(0, path.length() - ".class".length());
+        try {
+            byte[] instrumented = transformer.transform(originalLoader, internalName, null, null, bytes);
+            if (instrumented == null) {
+                return bytes;
+            }
+            if (pruneProbes && instrumented != bytes) {
+                int[] pairs = DerivedProbesAttribute.readFrom(instrumented);
+                if (pairs != null) {
+                    synchronized (derivedProbes) {
+                        for (int probe : pairs) {
+                            derivedProbes.add(probe);
+                        }
+                    }
+                }
+            }
+            return instrumented;
+        } catch (IllegalClassFormatException e) {
+            return bytes;
+        }
+    }
+
+    private static void inParallel(int count, IntConsumer action) throws IOException {
+        ForkJoinPool pool = new ForkJoinPool();
+        try {
+            pool.submit(() -> IntStream.range(0, count).parallel().forEach(action)).join();
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    private static void deleteRecursively(Path path) throws IOException {
+        if (!Files.exists(path)) {
+            return;
+        }
+        try (Stream<Path> walk = Files.walk(path)) {
+            List<Path> paths = new ArrayList<>();
+            walk.forEach(paths::add);
+            Collections.reverse(paths);
+            for (Path p : paths) {
+                Files.delete(p);
+            }
+        }
+    }
+}
@@ -28,15 +28,28 @@
  */
 package edu.berkeley.cs.jqf.instrument;
 
-import java.io.BufferedInputStream;
 import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.UncheckedIOException;
 import java.lang.instrument.ClassFileTransformer;
 import java.lang.instrument.IllegalClassFormatException;
 import java.net.MalformedURLException;
+import java.net.URISyntaxException;
 import java.net.URL;
 import java.net.URLClassLoader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Enumeration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.jar.JarEntry;
+import java.util.jar.JarFile;
+import java.util.stream.Stream;
 
 import janala.instrument.SnoopInstructionTransformer;
 
@@ -45,10 +58,22 @@ import janala.instrument.SnoopInstructionTransformer;
  */
 public class InstrumentingClassLoader extends URLClassLoader {
 
+    static {
+        // Classes are instrumented without a global lock, so let
+        // different classes be loaded by different threads at once
+        ClassLoader.registerAsParallelCapable();
+    }
+
     private ClassFileTransformer transformer = new SnoopInstructionTransformer();
 
+    /** Bytecode instrumented ahead of time, keyed by internal class name. */
+    private final Map<String, byte[]> eagerlyInstrumented = new ConcurrentHashMap<>();
+
     public InstrumentingClassLoader(URL[] urls, ClassLoader parent) {
         super(urls, parent);
+        if (SnoopInstructionTransformer.isEagerInstrumentationEnabled()) {
+            instrumentEagerly();
+        }
     }
 
     public InstrumentingClassLoader(String[] paths, ClassLoader parent) throws MalformedURLException {
@@ -63,12 +88,82 @@ public class InstrumentingClassLoader extends URLClassLoader {
         return urls;
     }
 
+    /**
+     * Instruments every class on this loader's URLs that is named by
+     * {@code janala.includes}, in parallel, so that loading them later
+     * during fuzzing only needs to define the already-instrumented bytes.
+     */
+    public void instrumentEagerly() {
+        List<String> classNames = new ArrayList<>();
+        for (URL url : getURLs()) {
+            try {
+                collectClassNames(Paths.get(url.toURI()), classNames);
+            } catch (IOException | URISyntaxException | IllegalArgumentException e) {
+                // Not a local directory or jar; leave it to lazy instrumentation
+            }
+        }
+
+        ForkJoinPool pool = new ForkJoinPool();
+        try {
+            pool.submit(() -> classNames.parallelStream().forEach(this::instrumentAhead)).join();
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    private static void collectClassNames(Path root, List<String> classNames) throws IOException {
+        if (Files.isDirectory(root)) {
+            try (Stream<Path> files = Files.walk(root)) {
+                files.map(p -> root.relativize(p).toString().replace(File.separatorChar, '/'))
+                        .forEach(path -> addClassName(path, classNames));
+            }
+        } else if (Files.isRegularFile(root)) {
+            try (JarFile jar = new JarFile(root.toFile())) {
+                Enumeration<JarEntry> entries = jar.entries();
+                while (entries.hasMoreElements()) {
+                    addClassName(entries.nextElement().getName(), classNames);
+                }
+            }
+        }
+    }
+
+    private static void addClassName(String path, List<String> classNames) {
+        if (path.endsWith(".class")) {
+            String internalName = path.substring(0, path.length() - ".class".length());
+            if (SnoopInstructionTransformer.isExplicitlyIncluded(internalName)) {
+                classNames.add(internalName);
+            }
+        }
+    }
+
+    private void instrumentAhead(String internalName) {
+        try (InputStream in = super.getResourceAsStream(internalName.concat(".class"))) {
+            if (in == null) {
+                return;
+            }
+            byte[] instrumented = transformer.transform(this, internalName, null, null, in.readAllBytes());
+            if (instrumented != null) {
+                eagerlyInstrumented.put(internalName, instrumented);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } catch (IllegalClassFormatException e) {
+            // Fall back to loading the original bytecode
+        }
+    }
+
     @Override
     public Class<?> findClass(String name) throws ClassNotFoundException {
         byte[] originalBytecode;
 
-        // Try to read the class file in as a resource
+        // Use the result of eager instrumentation, if any
         String internalName = name.replace('.', '/');
+        byte[] preinstrumented = eagerlyInstrumented.remove(internalName);
+        if (preinstrumented != null) {
+            return defineClass(name, preinstrumented, 0, preinstrumented.length);
+        }
+
+        // Try to read the class file in as a resource
         String path = internalName.concat(".class");
         try (InputStream in = super.getResourceAsStream(path)) {
             if (in == null) {
@@ -1,10 +1,110 @@
 package edu.berkeley.cs.jqf.instrument.tracing;
 
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicInteger;
+
 import janala.instrument.FastCoverageListener;
 
 public class FastCoverageSnoop {
     static FastCoverageListener coverageListener = new FastCoverageListener.Default();
 
+    /**
+     * Hit counts written directly by code instrumented with
+     * {@code -Djanala.inlineCounters=true}, indexed by probe ID. The length
+     * of the array is set by {@code -Djanala.inlineCounters.mapSize}
+     * (default 65536); probes with larger IDs call the listener instead.
+     */
+    public static final int[] INLINE_COUNTERS =
+            new int[Integer.highestOneBit(Math.max(1, Integer.getInteger("janala.inlineCounters.mapSize", 1 << 16)))];
+
+    private static volatile boolean inlineCountersEnabled = Boolean.getBoolean("janala.inlineCounters");
+
+    /** One past the highest index of {@link #INLINE_COUNTERS} that instrumented code may write. */
+    private static final AtomicInteger inlineCountersInUse = new AtomicInteger();
+
+    /** Marks that instrumented code reports coverage via {@link #INLINE_COUNTERS}. */
+    public static void enableInlineCounters() {
+        inlineCountersEnabled = true;
+    }
+
+    /** Marks that instrumented code no longer reports coverage via {@link #INLINE_COUNTERS}. */
+    public static void disableInlineCounters() {
+        inlineCountersEnabled = false;
+    }
+
+    /**
+     * Records that instrumented code may write the first {@code count}
+     * inline counters, so that readers need not scan the rest.
+     */
+    public static void reserveInlineCounters(int count) {
+        int bounded = Math.min(count, INLINE_COUNTERS.length);
+        inlineCountersInUse.accumulateAndGet(bounded, Math::max);
+    }
+
+    /** Returns how many leading inline counters may have been written. */
+    public static int getInlineCountersInUse() {
+        return inlineCountersInUse.get();
+    }
+
+    /** Returns whether instrumented code reports coverage via {@link #INLINE_COUNTERS}. */
+    public static boolean isInlineCountersEnabled() {
+        return inlineCountersEnabled;
+    }
+
+    /** The coverage map that drains {@link #INLINE_COUNTERS}, or null if there is none. */
+    private static volatile Object inlineCounterOwner;
+
+    /**
+     * Sets the coverage map that drains {@link #INLINE_COUNTERS}. The
+     * owner is registered separately from the listener, because the
+     * listener may be a wrapper around the coverage map (e.g. one that also
+     * polls for timeouts).
+     */
+    public static void setInlineCounterOwner(Object owner) {
+        inlineCounterOwner = owner;
+    }
+
+    /** Returns the coverage map that drains {@link #INLINE_COUNTERS}, or null if there is none. */
+    public static Object getInlineCounterOwner() {
+        return inlineCounterOwner;
+    }
+
+    /** Probes whose counts are derived from another probe, indexed by that source probe. */
+    private static volatile int[][] derivedProbes = new int[0][];
+
+    /**
+     * Registers probes that were pruned by the instrumentation because their
+     * counts equal the sum of the counts of other probes. A derived probe
+     * appears in one pair for each of its sources.
+     *
+     * @param pairs flattened (derived, source) pairs of probe IDs
+     */
+    public static synchronized void registerDerivedProbes(int[] pairs) {
+        int[][] table = derivedProbes;
+        for (int i = 0; i < pairs.length; i += 2) {
+            int derived = pairs[i];
+            int source = pairs[i + 1];
+            if (source >= table.length) {
+                table = Arrays.copyOf(table, Math.max(source + 1, table.length * 2));
+            }
+            int[] row = table[source] == null ? new int[1] : Arrays.copyOf(table[source], table[source].length + 1);
+            row[row.length - 1] = derived;
+            table[source] = row;
+        }
+        derivedProbes = table;
+    }
+
+    /** Returns the probes whose counts include that of the given probe, or null if there are none. */
+    public static int[] getDerivedProbes(int source) {
+        int[][] table = derivedProbes;
+        return source < table.length ? table[source] : null;
+    }
+
+    /** Returns the listener that currently receives coverage events. */
+    public static FastCoverageListener getFastCoverageListener() {
+        return coverageListener;
+    }
+
     @SuppressWarnings("unused") //Invoked by instrumentation
     public static void LOGMETHODBEGIN(int iid) {
         coverageListener.logMethodBegin(iid);
@@ -73,6 +73,17 @@ public class ThreadTracer {
     // Also set this to TRUE when using execution indexes, to ensure that every call site has exactly one push/pop
     private final boolean MATCH_CALLEE_NAMES = Boolean.getBoolean("jqf.tracing.MATCH_CALLEE_NAMES");
 
+    // Whether to emit one reusable instance per event type instead of allocating an event each time,
+    // and to trace branches, switches and returns without allocating instructions (see TraceLogger).
+    // Method entries and invocations still allocate, since the handler stack keeps their instructions.
+    // Set this to TRUE only if the guidance's callback does not retain events, like Zest's coverage.
+    static final boolean REUSE_EVENTS = Boolean.getBoolean("jqf.tracing.REUSE_EVENTS");
+
+    // Events that are re-emitted when REUSE_EVENTS is set
+    private final ReusableBranchEvent reusableBranchEvent = new ReusableBranchEvent();
+    private final ReusableCallEvent reusableCallEvent = new ReusableCallEvent();
+    private final ReusableReturnEvent reusableReturnEvent = new ReusableReturnEvent();
+
 
     /**
      * Creates a new tracer that will process instructions executed by an application
@@ -136,6 +147,10 @@ public class ThreadTracer {
     protected final void consume(Instruction ins) {
         // Apply the visitor at the top of the stack
         ins.visit(handlers.peek());
+        rethrowCallbackException();
+    }
+
+    private void rethrowCallbackException() {
         if (callBackException != null) {
             RuntimeException e = callBackException;
             callBackException = null;
@@ -144,6 +159,135 @@ public class ThreadTracer {
     }
 
 
+    /**
+     * Handles tracing of a conditional branch instruction, without
+     * requiring an {@link Instruction} object.
+     *
+     * <p>This is equivalent to {@link #consume(Instruction)} with any of the
+     * conditional-jump instructions, which differ only in their label.</p>
+     *
+     * @param iid the instruction ID of the branch
+     * @param mid the line number of the branch
+     */
+    protected final void consumeConditionalBranch(int iid, int mid) {
+        IVisitor handler = handlers.peek();
+        if (handler instanceof TraceEventGeneratingHandler) {
+            ((TraceEventGeneratingHandler) handler).visitConditionalBranch(iid, mid);
+            rethrowCallbackException();
+        }
+    }
+
+    /**
+     * Handles tracing of a TABLESWITCH instruction, without requiring an
+     * {@link Instruction} object.
+     *
+     * @param iid the instruction ID of the switch
+     * @param mid the line number of the switch
+     * @param numCases the number of labels in the switch's table
+     */
+    protected final void consumeTableSwitch(int iid, int mid, int numCases) {
+        IVisitor handler = handlers.peek();
+        if (handler instanceof TraceEventGeneratingHandler) {
+            ((TraceEventGeneratingHandler) handler).visitTableSwitch(iid, mid, numCases);
+            rethrowCallbackException();
+        }
+    }
+
+    /**
+     * Handles tracing of a LOOKUPSWITCH instruction, without requiring an
+     * {@link Instruction} object.
+     *
+     * @param iid the instruction ID of the switch
+     * @param mid the line number of the switch
+     * @param keys the case keys of the switch
+     */
+    protected final void consumeLookupSwitch(int iid, int mid, int[] keys) {
+        IVisitor handler = handlers.peek();
+        if (handler instanceof TraceEventGeneratingHandler) {
+            ((TraceEventGeneratingHandler) handler).visitLookupSwitch(iid, mid, keys);
+            rethrowCallbackException();
+        }
+    }
+
+    /**
+     * Handles tracing of a return instruction, without requiring an
+     * {@link Instruction} object.
+     *
+     * <p>This is equivalent to {@link #consume(Instruction)} with any of the
+     * return instructions, which differ only in the type of the returned value.</p>
+     *
+     * @param iid the instruction ID of the return
+     * @param mid the line number of the return
+     */
+    protected final void consumeReturn(int iid, int mid) {
+        IVisitor handler = handlers.peek();
+        if (handler instanceof TraceEventGeneratingHandler) {
+            ((TraceEventGeneratingHandler) handler).visitReturn(iid, mid);
+            rethrowCallbackException();
+        } else if (handler instanceof MatchingNullHandler) {
+            handlers.pop();
+        }
+    }
+
+    /**
+     * Handles the normal end of a method invocation, without requiring an
+     * {@link Instruction} object.
+     */
+    protected final void consumeInvokeEnd() {
+        IVisitor handler = handlers.peek();
+        if (handler instanceof TraceEventGeneratingHandler) {
+            ((TraceEventGeneratingHandler) handler).visitInvokeEnd();
+        }
+    }
+
+    /**
+     * Handles a boolean value read by a GETVALUE instruction, without
+     * requiring an {@link Instruction} object.
+     *
+     * @param v the value that was read
+     */
+    protected final void consumeValue(boolean v) {
+        if (handlers.peek() instanceof TraceEventGeneratingHandler) {
+            values.booleanValue = v;
+        }
+    }
+
+    /**
+     * Handles an int value read by a GETVALUE instruction, without
+     * requiring an {@link Instruction} object.
+     *
+     * @param v the value that was read
+     */
+    protected final void consumeValue(int v) {
+        if (handlers.peek() instanceof TraceEventGeneratingHandler) {
+            values.intValue = v;
+        }
+    }
+
+    private BranchEvent branchEvent(int iid, MemberRef method, int lineNumber, int arm) {
+        if (REUSE_EVENTS) {
+            return reusableBranchEvent.set(iid, method, lineNumber, arm);
+        } else {
+            return new BranchEvent(iid, method, lineNumber, arm);
+        }
+    }
+
+    private CallEvent callEvent(int iid, MemberRef method, int lineNumber, MemberRef invokedMethod, Object obj) {
+        if (REUSE_EVENTS) {
+            return reusableCallEvent.set(iid, method, lineNumber, invokedMethod, obj);
+        } else {
+            return new CallEvent(iid, method, lineNumber, invokedMethod, obj);
+        }
+    }
+
+    private ReturnEvent returnEvent(int iid, MemberRef method, int lineNumber) {
+        if (REUSE_EVENTS) {
+            return reusableReturnEvent.set(iid, method, lineNumber);
+        } else {
+            return new ReturnEvent(iid, method, lineNumber);
+        }
+    }
+
     private static boolean isReturnOrMethodThrow(Instruction inst) {
         return  inst instanceof ARETURN ||
                 inst instanceof LRETURN ||
@@ -200,7 +344,7 @@ public class ThreadTracer {
             String method = begin.getName();
             if (MATCH_CALLEE_NAMES == false || (clazz.equals(entryPointClass) && method.equals(entryPointMethod)) ||
                     (traceGenerators && clazz.endsWith("Generator") && method.equals("generate")) ) {
-                emit(new CallEvent(0, null, 0, begin));
+                emit(callEvent(0, null, 0, begin, null));
                 handlers.push(new TraceEventGeneratingHandler(begin, 0));
             } else {
                 // Ignore all top-level calls that are not the entry point
@@ -236,7 +380,7 @@ public class ThreadTracer {
                 // Trace continues with callee
                 int invokerIid = invokeTarget != null ? ((Instruction) invokeTarget).iid : -1;
                 int invokerMid = invokeTarget != null ? ((Instruction) invokeTarget).mid : -1;
-                emit(new CallEvent(invokerIid, this.method, invokerMid, begin, begin.getObject()));
+                emit(callEvent(invokerIid, this.method, invokerMid, begin, begin.getObject()));
                 handlers.push(new TraceEventGeneratingHandler(begin, depth+1));
             } else {
                 // Class loading or static initializer
@@ -256,7 +400,7 @@ public class ThreadTracer {
                 // Handle end of super() or this() call
                 if (invokingSuperOrThis) {
                     while (true) { // will break when outer caller of <init> found
-                        emit(new ReturnEvent(-1, this.method, -1));
+                        emit(returnEvent(-1, this.method, -1));
                         handlers.pop();
                         IVisitor handler = handlers.peek();
                         // We should not reach the BaseHandler without finding
@@ -282,6 +426,12 @@ public class ThreadTracer {
 
         @Override
         public void visitINVOKEMETHOD_END(INVOKEMETHOD_END ins) {
+            visitInvokeEnd();
+
+            super.visitINVOKEMETHOD_END(ins);
+        }
+
+        void visitInvokeEnd() {
             if (this.invokeTarget == null) {
                 throw new InstrumentationException("Unexpected INVOKEMETHOD_END");
             } else {
@@ -293,8 +443,6 @@ public class ThreadTracer {
                     this.invokingSuperOrThis = false;
                 }
             }
-
-            super.visitINVOKEMETHOD_END(ins);
         }
 
         @Override
@@ -330,39 +478,45 @@ public class ThreadTracer {
 
         @Override
         public void visitConditionalBranch(Instruction ins) {
-            int iid = ins.iid;
-            int lineNum = ins.mid;
+            visitConditionalBranch(ins.iid, ins.mid);
+
+            super.visitConditionalBranch(ins);
+        }
+
+        void visitConditionalBranch(int iid, int lineNum) {
             // The branch taken-or-not would have been set by a previous
             // GETVALUE instruction
             boolean taken = values.booleanValue;
-            emit(new BranchEvent(iid, this.method, lineNum, taken ? 1 : 0));
-
-            super.visitConditionalBranch(ins);
+            emit(branchEvent(iid, this.method, lineNum, taken ? 1 : 0));
         }
 
         @Override
         public void visitTABLESWITCH(TABLESWITCH tableSwitch) {
-            int iid = tableSwitch.iid;
-            int lineNum = tableSwitch.mid;
+            visitTableSwitch(tableSwitch.iid, tableSwitch.mid, tableSwitch.labels.length);
+
+            super.visitTABLESWITCH(tableSwitch);
+        }
+
+        void visitTableSwitch(int iid, int lineNum, int numCases) {
             int value = values.intValue;
-            int numCases = tableSwitch.labels.length;
             // Compute arm index or else default
             int arm = -1;
             if (value >= 0 && value < numCases) {
                 arm = value;
             }
             // Emit a branch instruction corresponding to the arm
-            emit(new BranchEvent(iid, this.method, lineNum, arm));
-
-            super.visitTABLESWITCH(tableSwitch);
+            emit(branchEvent(iid, this.method, lineNum, arm));
         }
 
         @Override
         public void visitLOOKUPSWITCH(LOOKUPSWITCH lookupSwitch) {
-            int iid = lookupSwitch.iid;
-            int lineNum = lookupSwitch.mid;
+            visitLookupSwitch(lookupSwitch.iid, lookupSwitch.mid, lookupSwitch.keys);
+
+            super.visitLOOKUPSWITCH(lookupSwitch);
+        }
+
+        void visitLookupSwitch(int iid, int lineNum, int[] cases) {
             int value = values.intValue;
-            int[] cases = lookupSwitch.keys;
             // Compute arm index or else default
             int arm = -1;
             for (int i = 0; i < cases.length; i++) {
@@ -372,9 +526,7 @@ public class ThreadTracer {
                 }
             }
             // Emit a branch instruction corresponding to the arm
-            emit(new BranchEvent(iid, this.method, lineNum, arm));
-
-            super.visitLOOKUPSWITCH(lookupSwitch);
+            emit(branchEvent(iid, this.method, lineNum, arm));
         }
 
         @Override
@@ -412,12 +564,67 @@ public class ThreadTracer {
 
         @Override
         public void visitReturnOrMethodThrow(Instruction ins) {
-            emit(new ReturnEvent(ins.iid, this.method, ins.mid));
-            handlers.pop();
+            visitReturn(ins.iid, ins.mid);
 
             super.visitReturnOrMethodThrow(ins);
         }
 
+        void visitReturn(int iid, int lineNum) {
+            emit(returnEvent(iid, this.method, lineNum));
+            handlers.pop();
+        }
+
+    }
+
+    /** A branch event that is reset and re-emitted for each branch (see REUSE_EVENTS). */
+    private static class ReusableBranchEvent extends BranchEvent {
+        ReusableBranchEvent() {
+            super(0, null, 0, 0);
+        }
+
+        BranchEvent set(int iid, MemberRef containingMethod, int lineNumber, int arm) {
+            this.iid = iid;
+            this.containingMethod = containingMethod;
+            this.lineNumber = lineNumber;
+            this.arm = arm;
+            return this;
+        }
+    }
+
+    /** A call event that is reset and re-emitted for each call (see REUSE_EVENTS). */
+    private static class ReusableCallEvent extends CallEvent {
+        ReusableCallEvent() {
+            super(0, null, 0, null);
+        }
+
+        CallEvent set(int iid, MemberRef containingMethod, int lineNumber, MemberRef invokedMethod, Object obj) {
+            this.iid = iid;
+            this.containingMethod = containingMethod;
+            this.lineNumber = lineNumber;
+            this.invokedMethod = invokedMethod;
+            this.obj = obj;
+            return this;
+        }
+
+        @Override
+        public String getInvokedMethodName() {
+            // Not cached, since the invoked method changes on every reuse
+            return invokedMethod.getOwner() + "#" + invokedMethod.getName() + invokedMethod.getDesc();
+        }
+    }
+
+    /** A return event that is reset and re-emitted for each return (see REUSE_EVENTS). */
+    private static class ReusableReturnEvent extends ReturnEvent {
+        ReusableReturnEvent() {
+            super(0, null, 0);
+        }
+
+        ReturnEvent set(int iid, MemberRef containingMethod, int lineNumber) {
+            this.iid = iid;
+            this.containingMethod = containingMethod;
+            this.lineNumber = lineNumber;
+            return this;
+        }
     }
 
     class MatchingNullHandler extends ControlFlowInstructionVisitor {
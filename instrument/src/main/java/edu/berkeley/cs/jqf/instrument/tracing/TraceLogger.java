@@ -30,6 +30,8 @@
 
 package edu.berkeley.cs.jqf.instrument.tracing;
 
+import java.util.concurrent.atomic.AtomicReference;
+
 import edu.berkeley.cs.jqf.instrument.tracing.events.TraceEvent;
 import janala.logger.AbstractLogger;
 import janala.logger.inst.Instruction;
@@ -52,10 +54,21 @@ public class TraceLogger extends AbstractLogger {
             = ThreadLocal.withInitial(() -> ThreadTracer.spawn(Thread.currentThread()));
 
     // The first thread is often the main program or test thread
-    private Thread firstThread = null;
+    private static final class FirstThread {
+        final Thread thread;
+
+        // Only accessed by the thread itself
+        ThreadTracer tracer;
+
+        FirstThread(Thread thread) {
+            this.thread = thread;
+        }
+    }
 
-    // For performance reasons (e.g. to optimize single-threaded fuzzing), we remember the tracer for this thread
-    private ThreadTracer firstTracer;
+    // For performance reasons (e.g. to optimize single-threaded fuzzing), we remember the tracer for this thread.
+    // The first thread is claimed once and never changes, so that concurrent threads (e.g. parallel fuzzing
+    // workers) can never be handed each other's tracer.
+    private final AtomicReference<FirstThread> firstThread = new AtomicReference<>();
 
     private TraceLogger() {
         // Singleton: Prevent outside construction
@@ -64,14 +77,18 @@ public class TraceLogger extends AbstractLogger {
     private ThreadTracer getTracer() {
         // The vast majority of fuzzing sessions are single-threaded; so, return the tracer quickly instead of
         // looking up the thread-local map. This provides about a 10-20% speedup.
-        if (Thread.currentThread() == firstThread) {
-            return firstTracer;
-        } else if (firstThread == null) {
-            // The first time this method is called, remember the "first" thread and its associated treacer
-            assert firstTracer == null;
-            firstThread = Thread.currentThread();
-            firstTracer = ThreadTracer.spawn(firstThread);
-            return firstTracer;
+        Thread current = Thread.currentThread();
+        FirstThread first = firstThread.get();
+        if (first == null) {
+            // The first time this method is called, remember the "first" thread
+            firstThread.compareAndSet(null, new FirstThread(current));
+            first = firstThread.get();
+        }
+        if (first.thread == current) {
+            if (first.tracer == null) {
+                first.tracer = ThreadTracer.spawn(current);
+            }
+            return first.tracer;
         } else {
             // In multi-threaded fuzzing mode, we have to use thread-local variables
             return threadLocalTracer.get();
@@ -93,6 +110,254 @@ public class TraceLogger extends AbstractLogger {
         getTracer().consume(instruction);
     }
 
+    // With jqf.tracing.REUSE_EVENTS, the instructions consumed by coverage-collecting
+    // handlers are passed to the tracer as primitives, without allocating an Instruction.
+    // METHOD_BEGIN and the INVOKE* instructions are still logged as objects, because the
+    // tracer's handler stack keeps them for matching callers with callees.
+
+    @Override
+    public void GETVALUE_boolean(boolean v) {
+        if (ThreadTracer.REUSE_EVENTS) {
+            getTracer().consumeValue(v);
+        } else {
+            super.GETVALUE_boolean(v);
+        }
+    }
+
+    @Override
+    public void GETVALUE_int(int v) {
+        if (ThreadTracer.REUSE_EVENTS) {
+            getTracer().consumeValue(v);
+        } else {
+            super.GETVALUE_int(v);
+        }
+    }
+
+    @Override
+    public void IFEQ(int iid, int mid, int label) {
+        if (ThreadTracer.REUSE_EVENTS) {
+            getTracer().consumeConditionalBranch(iid, mid);
+        } else {
+            super.IFEQ(iid, mid, label);
+        }
+    }
+
+    @Override
+    public void IFNE(int iid, int mid, int label) {
+        if (ThreadTracer.REUSE_EVENTS) {
+            getTracer().consumeConditionalBranch(iid, mid);
+        } else {
+            super.IFNE(iid, mid, label);
+        }
+    }
+
+    @Override
+    public void IFLT(int iid, int mid, int label) {
+        if (ThreadTracer.REUSE_EVENTS) {
+            getTracer().consumeConditionalBranch(iid, mid);
+        } else {
+            super.IFLT(iid, mid, label);
+        }
+    }
+
+    @Override
+    public void IFGE(int iid, int mid, int label) {
+        if (ThreadTracer.REUSE_EVENTS) {
+            getTracer().consumeConditionalBranch(iid, mid);
+        } else {
+            super.IFGE(iid, mid, label);
+        }
+    }
+
+    @Override
+    public void IFGT(int iid, int mid, int label) {
+        if (ThreadTracer.REUSE_EVENTS) {
+            getTracer().consumeConditionalBranch(iid, mid);
+        } else {
+            super.IFGT(iid, mid, label);
+        }
+    }
+
+    @Override
+    public void IFLE(int iid, int mid, int label) {
+        if (ThreadTracer.REUSE_EVENTS) {
+            getTracer().consumeConditionalBranch(iid, mid);
+        } else {
+            super.IFLE(iid, mid, label);
+        }
+    }
+
+    @Override
+    public void IF_ICMPEQ(int iid, int mid, int label) {
+        if (ThreadTracer.REUSE_EVENTS) {
+            getTracer().consumeConditionalBranch(iid, mid);
+        } else {
+            super.IF_ICMPEQ(iid, mid, label);
+        }
+    }
+
+    @Override
+    public void IF_ICMPNE(int iid, int mid, int label) {
+        if (ThreadTracer.REUSE_EVENTS) {
+            getTracer().consumeConditionalBranch(iid, mid);
+        } else {
+            super.IF_ICMPNE(iid, mid, label);
+        }
+    }
+
+    @Override
+    public void IF_ICMPLT(int iid, int mid, int label) {
+        if (ThreadTracer.REUSE_EVENTS) {
+            getTracer().consumeConditionalBranch(iid, mid);
+        } else {
+            super.IF_ICMPLT(iid, mid, label);
+        }
+    }
+
+    @Override
+    public void IF_ICMPGE(int iid, int mid, int label) {
+        if (ThreadTracer.REUSE_EVENTS) {
+            getTracer().consumeConditionalBranch(iid, mid);
+        } else {
+            super.IF_ICMPGE(iid, mid, label);
+        }
+    }
+
+    @Override
+    public void IF_ICMPGT(int iid, int mid, int label) {
+        if (ThreadTracer.REUSE_EVENTS) {
+            getTracer().consumeConditionalBranch(iid, mid);
+        } else {
+            super.IF_ICMPGT(iid, mid, label);
+        }
+    }
+
+    @Override
+    public void IF_ICMPLE(int iid, int mid, int label) {
+        if (ThreadTracer.REUSE_EVENTS) {
+            getTracer().consumeConditionalBranch(iid, mid);
+        } else {
+            super.IF_ICMPLE(iid, mid, label);
+        }
+    }
+
+    @Override
+    public void IF_ACMPEQ(int iid, int mid, int label) {
+        if (ThreadTracer.REUSE_EVENTS) {
+            getTracer().consumeConditionalBranch(iid, mid);
+        } else {
+            super.IF_ACMPEQ(iid, mid, label);
+        }
+    }
+
+    @Override
+    public void IF_ACMPNE(int iid, int mid, int label) {
+        if (ThreadTracer.REUSE_EVENTS) {
+            getTracer().consumeConditionalBranch(iid, mid);
+        } else {
+            super.IF_ACMPNE(iid, mid, label);
+        }
+    }
+
+    @Override
+    public void IFNULL(int iid, int mid, int label) {
+        if (ThreadTracer.REUSE_EVENTS) {
+            getTracer().consumeConditionalBranch(iid, mid);
+        } else {
+            super.IFNULL(iid, mid, label);
+        }
+    }
+
+    @Override
+    public void IFNONNULL(int iid, int mid, int label) {
+        if (ThreadTracer.REUSE_EVENTS) {
+            getTracer().consumeConditionalBranch(iid, mid);
+        } else {
+            super.IFNONNULL(iid, mid, label);
+        }
+    }
+
+    @Override
+    public void TABLESWITCH(int iid, int mid, int min, int max, int dflt, int[] labels) {
+        if (ThreadTracer.REUSE_EVENTS) {
+            getTracer().consumeTableSwitch(iid, mid, labels.length);
+        } else {
+            super.TABLESWITCH(iid, mid, min, max, dflt, labels);
+        }
+    }
+
+    @Override
+    public void LOOKUPSWITCH(int iid, int mid, int dflt, int[] keys, int[] labels) {
+        if (ThreadTracer.REUSE_EVENTS) {
+            getTracer().consumeLookupSwitch(iid, mid, keys);
+        } else {
+            super.LOOKUPSWITCH(iid, mid, dflt, keys, labels);
+        }
+    }
+
+    @Override
+    public void IRETURN(int iid, int mid) {
+        if (ThreadTracer.REUSE_EVENTS) {
+            getTracer().consumeReturn(iid, mid);
+        } else {
+            super.IRETURN(iid, mid);
+        }
+    }
+
+    @Override
+    public void LRETURN(int iid, int mid) {
+        if (ThreadTracer.REUSE_EVENTS) {
+            getTracer().consumeReturn(iid, mid);
+        } else {
+            super.LRETURN(iid, mid);
+        }
+    }
+
+    @Override
+    public void FRETURN(int iid, int mid) {
+        if (ThreadTracer.REUSE_EVENTS) {
+            getTracer().consumeReturn(iid, mid);
+        } else {
+            super.FRETURN(iid, mid);
+        }
+    }
+
+    @Override
+    public void DRETURN(int iid, int mid) {
+        if (ThreadTracer.REUSE_EVENTS) {
+            getTracer().consumeReturn(iid, mid);
+        } else {
+            super.DRETURN(iid, mid);
+        }
+    }
+
+    @Override
+    public void ARETURN(int iid, int mid) {
+        if (ThreadTracer.REUSE_EVENTS) {
+            getTracer().consumeReturn(iid, mid);
+        } else {
+            super.ARETURN(iid, mid);
+        }
+    }
+
+    @Override
+    public void RETURN(int iid, int mid) {
+        if (ThreadTracer.REUSE_EVENTS) {
+            getTracer().consumeReturn(iid, mid);
+        } else {
+            super.RETURN(iid, mid);
+        }
+    }
+
+    @Override
+    public void INVOKEMETHOD_END() {
+        if (ThreadTracer.REUSE_EVENTS) {
+            getTracer().consumeInvokeEnd();
+        } else {
+            super.INVOKEMETHOD_END();
+        }
+    }
+
     /**
      * Emits a trace event for the current thread.
      *
@@ -106,10 +371,11 @@ public class TraceLogger extends AbstractLogger {
      * Removes the trace logger for the current thread
      */
     public void remove() {
-        // Make sure to remove the right tracer depending on whether its in the thread-local map or in the field
-        if (Thread.currentThread() == firstThread) {
-            firstTracer = null;
-            firstThread = null;
+        // Make sure to remove the right tracer depending on whether its in the thread-local map or in the field;
+        // the first thread keeps its fast path, and gets a fresh tracer the next time it logs
+        FirstThread first = firstThread.get();
+        if (first != null && first.thread == Thread.currentThread()) {
+            first.tracer = null;
         } else {
             threadLocalTracer.remove();
         }
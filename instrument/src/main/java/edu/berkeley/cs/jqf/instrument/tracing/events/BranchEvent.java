@@ -42,7 +42,7 @@ public class BranchEvent extends TraceEvent {
      * switch-cases, the arm is the index of the case
      * statement (default arm = -1)
      */
-    protected final int arm;
+    protected int arm;
 
     public BranchEvent(int iid, MemberRef containingMethod, int lineNumber, int arm) {
         super(iid, containingMethod, lineNumber);
@@ -34,9 +34,9 @@ import janala.logger.inst.MemberRef;
  * @author Rohan Padhye
  */
 public class CallEvent extends TraceEvent {
-    protected final MemberRef invokedMethod;
+    protected MemberRef invokedMethod;
     private String str;
-    private final Object obj;
+    protected Object obj;
 
     public CallEvent(int iid, MemberRef containingMethod, int lineNumber, MemberRef invokedMethod) {
         super(iid, containingMethod, lineNumber);
@@ -33,14 +33,19 @@ import janala.logger.inst.MemberRef;
 /**
  * An interface representing by a trace event such as CALL, RETURN or BRANCH.
  *
+ * <p>When the system property {@code jqf.tracing.REUSE_EVENTS} is set,
+ * the tracer emits the same instance for every branch and call event of
+ * a thread, so a callback must not retain an event (or rely on its
+ * contents) after it returns.</p>
  *
  * @author Rohan Padhye
  */
 public abstract class TraceEvent {
 
-    protected final int iid;
-    protected final MemberRef containingMethod;
-    protected final int lineNumber;
+    // Not final, so that tracers may reuse a single instance (see jqf.tracing.REUSE_EVENTS)
+    protected int iid;
+    protected MemberRef containingMethod;
+    protected int lineNumber;
 
     public TraceEvent(int iid, MemberRef method, int lineNumber) {
         this.iid = iid;
@@ -5,6 +5,8 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.util.Properties;
 
+import edu.berkeley.cs.jqf.instrument.tracing.FastCoverageSnoop;
+
 class Config {
   // System properties
   public static final String propFile = System.getProperty("janala.conf", "janala.conf");
@@ -19,6 +21,11 @@ class Config {
   public final boolean instrumentAlloc;
   public final String instrumentationCacheDir;
   public final boolean useFastCoverageInstrumentation;
+  public final boolean inlineCounters;
+  public final boolean pruneProbes;
+  public final boolean eagerInstrumentation;
+  public final TracingLevel tracingLevel;
+  public final String probeIdMap;
 
   private Config() {
       // Read properties from the conf file
@@ -52,6 +59,34 @@ class Config {
           throw new UnsupportedOperationException("It is currently not possible to use allocation or heap load tracking in conjunction with fast coverage");
       }
 
+      tracingLevel = TracingLevel.valueOf(properties.getProperty("janala.tracingLevel", "FULL").toUpperCase());
+      if ((instrumentAlloc || instrumentHeapLoad) && !tracingLevel.includes(TracingLevel.FULL)) {
+          throw new UnsupportedOperationException("Allocation or heap load tracking requires janala.tracingLevel=FULL");
+      }
+      if (Boolean.parseBoolean(properties.getProperty("jqf.tracing.MATCH_CALLEE_NAMES", "false"))
+              && !tracingLevel.includes(TracingLevel.CALLS)) {
+          throw new UnsupportedOperationException("jqf.tracing.MATCH_CALLEE_NAMES requires janala.tracingLevel=CALLS or FULL");
+      }
+
+      inlineCounters = Boolean.parseBoolean(properties.getProperty("janala.inlineCounters", "false"));
+      if (inlineCounters) {
+          if (!useFastCoverageInstrumentation) {
+              throw new UnsupportedOperationException("Inline counters require useFastNonCollidingCoverageInstrumentation");
+          }
+          FastCoverageSnoop.enableInlineCounters();
+      }
+
+      pruneProbes = Boolean.parseBoolean(properties.getProperty("janala.pruneProbes", "false"));
+      if (pruneProbes && !useFastCoverageInstrumentation) {
+          throw new UnsupportedOperationException("Probe pruning requires useFastNonCollidingCoverageInstrumentation");
+      }
+
+
+      probeIdMap = properties.getProperty("janala.probeIdMap");
+      if (probeIdMap != null && !useFastCoverageInstrumentation) {
+          throw new UnsupportedOperationException("A probe ID map requires useFastNonCollidingCoverageInstrumentation");
+      }
+
 
       String excludeInstStr = properties.getProperty("janala.excludes", null);
       if (excludeInstStr != null) {
@@ -69,5 +104,28 @@ class Config {
 
       instrumentationCacheDir = properties.getProperty("janala.instrumentationCacheDir");
 
+      eagerInstrumentation = Boolean.parseBoolean(properties.getProperty("janala.eagerInstrumentation", "false"));
+
+  }
+
+  /** Returns the settings that instrumented code depends on, as the properties that select them. */
+  Properties toProperties() {
+      Properties settings = new Properties();
+      settings.setProperty("useFastNonCollidingCoverageInstrumentation", String.valueOf(useFastCoverageInstrumentation));
+      if (!useFastCoverageInstrumentation) {
+          settings.setProperty("janala.snoopClass", analysisClass.replace('/', '.'));
+      }
+      settings.setProperty("janala.inlineCounters", String.valueOf(inlineCounters));
+      if (inlineCounters) {
+          settings.setProperty("janala.inlineCounters.mapSize", String.valueOf(FastCoverageSnoop.INLINE_COUNTERS.length));
+      }
+      settings.setProperty("janala.pruneProbes", String.valueOf(pruneProbes));
+      settings.setProperty("janala.tracingLevel", tracingLevel.name());
+      settings.setProperty("janala.instrumentHeapLoad", String.valueOf(instrumentHeapLoad));
+      settings.setProperty("janala.instrumentAlloc", String.valueOf(instrumentAlloc));
+      if (probeIdMap != null) {
+          settings.setProperty("janala.probeIdMap", probeIdMap);
+      }
+      return settings;
   }
 }
@@ -0,0 +1,65 @@
+package janala.instrument;
+
+import org.objectweb.asm.Attribute;
+import org.objectweb.asm.ByteVector;
+import org.objectweb.asm.ClassReader;
+import org.objectweb.asm.ClassVisitor;
+import org.objectweb.asm.ClassWriter;
+import org.objectweb.asm.Label;
+import org.objectweb.asm.Opcodes;
+
+/** A class attribute listing the pruned probes of an instrumented class.
+
+ The JVM ignores it; it lets a class loaded from the instrumentation cache
+ re-register the (derived, source) probe pairs that its instrumentation
+ produced. */
+public class DerivedProbesAttribute extends Attribute {
+  public static final String NAME = "JQFDerivedProbes";
+
+  /** Flattened (derived, source) pairs of probe IDs. */
+  private final int[] pairs;
+
+  public DerivedProbesAttribute(int[] pairs) {
+    super(NAME);
+    this.pairs = pairs;
+  }
+
+  public int[] getPairs() {
+    return pairs;
+  }
+
+  @Override
+  protected Attribute read(ClassReader cr, int offset, int length, char[] charBuffer,
+                           int codeAttributeOffset, Label[] labels) {
+    int[] pairs = new int[cr.readInt(offset)];
+    for (int i = 0; i < pairs.length; i++) {
+      pairs[i] = cr.readInt(offset + 4 + 4 * i);
+    }
+    return new DerivedProbesAttribute(pairs);
+  }
+
+  @Override
+  protected ByteVector write(ClassWriter cw, byte[] code, int codeLength, int maxStack, int maxLocals) {
+    ByteVector bytes = new ByteVector(4 + 4 * pairs.length);
+    bytes.putInt(pairs.length);
+    for (int value : pairs) {
+      bytes.putInt(value);
+    }
+    return bytes;
+  }
+
+  /** Returns the probe pairs recorded in an instrumented class file, or null if there are none. */
+  public static int[] readFrom(byte[] classBytes) {
+    int[][] found = new int[1][];
+    new ClassReader(classBytes).accept(new ClassVisitor(Opcodes.ASM8) {
+      @Override
+      public void visitAttribute(Attribute attribute) {
+        if (attribute instanceof DerivedProbesAttribute) {
+          found[0] = ((DerivedProbesAttribute) attribute).pairs;
+        }
+      }
+    }, new Attribute[] { new DerivedProbesAttribute(null) },
+        ClassReader.SKIP_CODE | ClassReader.SKIP_DEBUG | ClassReader.SKIP_FRAMES);
+    return found[0];
+  }
+}
@@ -1,5 +1,10 @@
 package janala.instrument;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import edu.berkeley.cs.jqf.instrument.tracing.FastCoverageSnoop;
 import org.objectweb.asm.Label;
 import org.objectweb.asm.MethodVisitor;
 import org.objectweb.asm.Opcodes;
@@ -15,16 +20,54 @@ public class FastCoverageMethodAdapter extends MethodVisitor implements Opcodes
   private final GlobalStateForInstrumentation instrumentationState;
 
   private final int methodIID;
+
+  /** Where each branch arm's count comes from (see {@link ProbePruner}), or null if none are pruned. */
+  private final int[] armSources;
+  /** Receives the (derived, source) probe pairs of pruned branch arms. */
+  private final List<Integer> derivedProbes;
+  private final List<Integer> callIIDs = new ArrayList<>();
+  private final List<Integer> branchIIDs = new ArrayList<>();
+  /** The first probe ID and the number of arms of each switch. */
+  private final List<int[]> switchIIDs = new ArrayList<>();
+
+  /**
+   * Whether probes increment {@link FastCoverageSnoop#INLINE_COUNTERS} instead of calling the snoop.
+   * Probes whose IDs do not fit in the counters call the snoop anyway.
+   */
+  private final boolean inlineCounters;
+  private static final String INLINE_COUNTERS_OWNER = "edu/berkeley/cs/jqf/instrument/tracing/FastCoverageSnoop";
+  private static final int INLINE_COUNTERS_SIZE = FastCoverageSnoop.INLINE_COUNTERS.length;
+  private static final AtomicBoolean warnedInlineCountersFull = new AtomicBoolean();
+
   public FastCoverageMethodAdapter(MethodVisitor mv, String className,
                                    String methodName, String descriptor, String superName,
                                    GlobalStateForInstrumentation instrumentationState) {
+    this(mv, className, methodName, descriptor, superName, instrumentationState, null, null);
+  }
+
+  public FastCoverageMethodAdapter(MethodVisitor mv, String className,
+                                   String methodName, String descriptor, String superName,
+                                   GlobalStateForInstrumentation instrumentationState,
+                                   int[] armSources, List<Integer> derivedProbes) {
+    this(mv, className, methodName, descriptor, superName, instrumentationState, armSources, derivedProbes,
+        Config.instance.inlineCounters);
+  }
+
+  FastCoverageMethodAdapter(MethodVisitor mv, String className,
+                            String methodName, String descriptor, String superName,
+                            GlobalStateForInstrumentation instrumentationState,
+                            int[] armSources, List<Integer> derivedProbes, boolean inlineCounters) {
     super(ASM8, mv);
+    this.inlineCounters = inlineCounters;
+    this.armSources = armSources;
+    this.derivedProbes = derivedProbes;
     this.isInit = methodName.equals("<init>");
     this.isSuperInitCalled = false;
     this.className = className;
     this.superName = superName;
 
     this.instrumentationState = instrumentationState;
+    instrumentationState.beginMethod(methodName + descriptor);
     this.methodIID = instrumentationState.incAndGetFastCoverageId();
   }
 
@@ -33,12 +76,64 @@ public class FastCoverageMethodAdapter extends MethodVisitor implements Opcodes
     Utils.addBipushInsn(mv, val);
   }
 
+  /** Whether probes with IDs up to `lastIID` increment inline counters, reserving them if so. */
+  private boolean isInline(int lastIID) {
+    if (!inlineCounters) {
+      return false;
+    }
+    if (lastIID < INLINE_COUNTERS_SIZE) {
+      instrumentationState.reserveInlineCounters(lastIID + 1);
+      return true;
+    }
+    if (warnedInlineCountersFull.compareAndSet(false, true)) {
+      System.err.println("[WARNING] Fast-coverage probe IDs exceed janala.inlineCounters.mapSize (" +
+          INLINE_COUNTERS_SIZE + "); probes past it call the coverage listener instead.");
+    }
+    return false;
+  }
+
+  /** Record a hit of probe `iid + arm`, where both are known statically. */
+  private void addProbe(int iid, int arm) {
+    if (isInline(iid + arm)) {
+      mv.visitFieldInsn(GETSTATIC, INLINE_COUNTERS_OWNER, "INLINE_COUNTERS", "[I");
+      addBipushInsn(mv, iid + arm);
+      addInlineIncrement();
+    } else {
+      addBipushInsn(mv, iid);
+      addBipushInsn(mv, arm);
+      mv.visitMethodInsn(INVOKESTATIC, Config.instance.analysisClass, "LOGJUMP", "(II)V", false);
+    }
+  }
+
+  /** Record a hit of probe `iid + arm`, where the arm (at most `lastArm`) is on top of the stack. */
+  private void addArmProbe(int iid, int lastArm) {
+    if (isInline(iid + lastArm)) {
+      addBipushInsn(mv, iid);
+      mv.visitInsn(IADD);
+      mv.visitFieldInsn(GETSTATIC, INLINE_COUNTERS_OWNER, "INLINE_COUNTERS", "[I");
+      mv.visitInsn(SWAP);
+      addInlineIncrement();
+    } else {
+      addBipushInsn(mv, iid);
+      mv.visitInsn(SWAP);
+      mv.visitMethodInsn(INVOKESTATIC, Config.instance.analysisClass, "LOGJUMP", "(II)V", false);
+    }
+  }
+
+  /** Increment the array element whose array and index are on top of the stack. */
+  private void addInlineIncrement() {
+    mv.visitInsn(DUP2);
+    mv.visitInsn(IALOAD);
+    mv.visitInsn(ICONST_1);
+    mv.visitInsn(IADD);
+    mv.visitInsn(IASTORE);
+  }
+
   @Override
   public void visitMethodInsn(int opcode, String owner, String name, String desc, boolean itf) {
     int iid = instrumentationState.incAndGetFastCoverageId();
-    addBipushInsn(mv, iid);
-    mv.visitInsn(ICONST_0);
-    mv.visitMethodInsn(INVOKESTATIC, Config.instance.analysisClass, "LOGJUMP", "(II)V", false);
+    addProbe(iid, 0);
+    callIIDs.add(iid);
 
     if (opcode == INVOKESPECIAL && name.equals("<init>")) {
 
@@ -76,14 +171,28 @@ public class FastCoverageMethodAdapter extends MethodVisitor implements Opcodes
   @Override
   public void visitCode() {
     super.visitCode();
-    addBipushInsn(mv, methodIID);
-    mv.visitMethodInsn(INVOKESTATIC, Config.instance.analysisClass, "LOGMETHODBEGIN", "(I)V", false);
+    if (inlineCounters) {
+      addProbe(methodIID, 0);
+    } else {
+      addBipushInsn(mv, methodIID);
+      mv.visitMethodInsn(INVOKESTATIC, Config.instance.analysisClass, "LOGMETHODBEGIN", "(I)V", false);
+    }
   }
 
-  private void addConditionalJumpInstrumentation(int opcode, Label finalBranchTarget,
-                                                 String instMethodName, String instMethodDesc) {
-    int iid = instrumentationState.incAndGetFastCoverageId();
-    instrumentationState.incAndGetFastCoverageId(); //reserve another counter for the other side of this branch
+  private void addConditionalJumpInstrumentation(int opcode, Label finalBranchTarget) {
+    int iid = instrumentationState.allocateFastCoverageIds(2); // One counter for each side of this branch
+    int branch = branchIIDs.size();
+    branchIIDs.add(iid);
+    // Pruned arms are counted by the probes that follow them; recorded in visitEnd() once their IDs are known
+    boolean fallthroughPruned = armSources != null && armSources[2 * branch] != ProbePruner.OWN_PROBE;
+    boolean takenPruned = armSources != null && armSources[2 * branch + 1] != ProbePruner.OWN_PROBE;
+    if (takenPruned) {
+      mv.visitJumpInsn(opcode, finalBranchTarget);
+      if (!fallthroughPruned) {
+        addProbe(iid, 0);
+      }
+      return;
+    }
 
     Label intermediateBranchTarget = new Label();
     Label fallthrough = new Label();
@@ -95,16 +204,14 @@ public class FastCoverageMethodAdapter extends MethodVisitor implements Opcodes
 
     // Now instrument the branch target
     mv.visitLabel(intermediateBranchTarget);
-    addBipushInsn(mv, iid);
-    addBipushInsn(mv, 1); // Mark branch as taken
-    mv.visitMethodInsn(INVOKESTATIC, Config.instance.analysisClass, instMethodName, instMethodDesc, false);
+    addProbe(iid, 1); // Mark branch as taken
     mv.visitJumpInsn(GOTO, finalBranchTarget); // Go to actual branch target
 
     // Now instrument the fall through
     mv.visitLabel(fallthrough);
-    addBipushInsn(mv, iid);
-    addBipushInsn(mv, 0); // Mark branch as not taken
-    mv.visitMethodInsn(INVOKESTATIC, Config.instance.analysisClass, instMethodName, instMethodDesc, false);
+    if (!fallthroughPruned) {
+      addProbe(iid, 0); // Mark branch as not taken
+    }
 
     // continue with fall-through code visiting
   }
@@ -133,7 +240,7 @@ public class FastCoverageMethodAdapter extends MethodVisitor implements Opcodes
       case IF_ACMPNE:
       case IFNULL:
       case IFNONNULL:
-        addConditionalJumpInstrumentation(opcode, label,  "LOGJUMP", "(II)V");
+        addConditionalJumpInstrumentation(opcode, label);
         break;
       case GOTO:
       case JSR:
@@ -153,6 +260,9 @@ public class FastCoverageMethodAdapter extends MethodVisitor implements Opcodes
       case DRETURN:
       case ARETURN:
       case RETURN:
+        if (inlineCounters) {
+          break; // Method exits are not counted as coverage
+        }
         addBipushInsn(mv, methodIID);
         mv.visitMethodInsn(INVOKESTATIC, Config.instance.analysisClass, "LOGMETHODEND", "(I)V", false);
     }
@@ -181,52 +291,112 @@ public class FastCoverageMethodAdapter extends MethodVisitor implements Opcodes
     // Save operand value
     //addValueReadInsn(mv, "I", "GETVALUE_");
     mv.visitInsn(Opcodes.DUP);
+    // One probe for the switch, one for each of the arms (referred to by offset) and one for the default case
+    int iid = instrumentationState.allocateFastCoverageIds(labels.length + 2);
+    switchIIDs.add(new int[] { iid, labels.length + 1 });
+    if (inlineCounters) {
+      // Resolve the arm in place, as for lookupswitch below
+      Label[] armLabels = new Label[labels.length];
+      for (int i = 0; i < labels.length; i++) {
+        armLabels[i] = new Label();
+      }
+      Label defaultArm = new Label();
+      mv.visitTableSwitchInsn(min, max, defaultArm, armLabels);
+      addArmProbes(iid, armLabels, defaultArm);
+      mv.visitTableSwitchInsn(min, max, dflt, labels);
+      return;
+    }
+
     // Log switch instruction
-    addBipushInsn(mv, instrumentationState.incAndGetFastCoverageId());
+    addBipushInsn(mv, iid);
     addBipushInsn(mv, min);
     addBipushInsn(mv, max);
     addBipushInsn(mv, getLabelNum(dflt));
-
-    for (int i = 0; i < labels.length; i++) {
-      //create a coverage probe for each of the arms, we'll refer to it by offset
-      instrumentationState.incAndGetFastCoverageId();
-    }
-
-
-    //create a coverage probe for the default case
-    instrumentationState.incAndGetFastCoverageId();
     mv.visitMethodInsn(INVOKESTATIC, Config.instance.analysisClass, "LOGTABLESWITCH", "(IIIII)V", false);
     mv.visitTableSwitchInsn(min, max, dflt, labels);
   }
 
+  /**
+   * Emit the targets of a switch that duplicates an instrumented one: each
+   * arm pushes its offset and all of them join to record the probe.
+   */
+  private void addArmProbes(int iid, Label[] armLabels, Label defaultArm) {
+    Label logArm = new Label();
+    for (int i = 0; i < armLabels.length; i++) {
+      mv.visitLabel(armLabels[i]);
+      addBipushInsn(mv, i + 1);
+      mv.visitJumpInsn(GOTO, logArm);
+    }
+    mv.visitLabel(defaultArm);
+    addBipushInsn(mv, armLabels.length + 1);
+    mv.visitLabel(logArm);
+    addArmProbe(iid, armLabels.length + 1);
+  }
+
 
   @Override
   public void visitLookupSwitchInsn(Label dflt, int[] keys, Label[] labels) {
     // Save operand value
     mv.visitInsn(Opcodes.DUP);
 
-    // Log switch instruction
-    addBipushInsn(mv, instrumentationState.incAndGetFastCoverageId());
-    addBipushInsn(mv, getLabelNum(dflt));
-
-    addBipushInsn(mv, keys.length);
-    mv.visitIntInsn(NEWARRAY, T_INT);
+    // Resolve the arm with a copy of the switch itself, so that the probe
+    // neither allocates a table of keys nor scans it at run time
+    // One probe for the switch, one for each of the arms (referred to by offset) and one for the default case
+    int iid = instrumentationState.allocateFastCoverageIds(keys.length + 2);
+    switchIIDs.add(new int[] { iid, keys.length + 1 });
+    Label[] armLabels = new Label[keys.length];
     for (int i = 0; i < keys.length; i++) {
-      mv.visitInsn(DUP);
-      addBipushInsn(mv, i);
-      addBipushInsn(mv, keys[i]);
-      mv.visitInsn(IASTORE);
-      //create a coverage probe for each of the arms, we'll refer to it by offset
-      instrumentationState.incAndGetFastCoverageId();
+      armLabels[i] = new Label();
     }
+    Label defaultArm = new Label();
+    mv.visitLookupSwitchInsn(defaultArm, keys, armLabels);
 
-
-    //create a coverage probe for the default case
-    instrumentationState.incAndGetFastCoverageId();
-    mv.visitMethodInsn(INVOKESTATIC, Config.instance.analysisClass, "LOGLOOKUPSWITCH", "(III[I)V", false);
+    // Log the arm as a jump, which is what LOGLOOKUPSWITCH used to compute
+    addArmProbes(iid, armLabels, defaultArm);
     mv.visitLookupSwitchInsn(dflt, keys, labels);
   }
 
+  @Override
+  public void visitEnd() {
+    if (armSources != null) {
+      if (armSources.length != 2 * branchIIDs.size()) {
+        throw new IllegalStateException("Branches do not match probe pruning analysis");
+      }
+      for (int i = 0; i < armSources.length; i++) {
+        int source = armSources[i];
+        if (source == ProbePruner.OWN_PROBE) {
+          continue;
+        }
+        // The arm's count is the sum of the counts of its sources
+        int derived = branchIIDs.get(i / 2) + i % 2;
+        int index = ProbePruner.sourceIndex(source);
+        switch (ProbePruner.sourceKind(source)) {
+          case ProbePruner.SOURCE_CALL:
+            addDerivedProbe(derived, callIIDs.get(index));
+            break;
+          case ProbePruner.SOURCE_BRANCH:
+            addDerivedProbe(derived, branchIIDs.get(index));
+            addDerivedProbe(derived, branchIIDs.get(index) + 1);
+            break;
+          case ProbePruner.SOURCE_SWITCH:
+            int[] arms = switchIIDs.get(index);
+            for (int arm = 1; arm <= arms[1]; arm++) {
+              addDerivedProbe(derived, arms[0] + arm);
+            }
+            break;
+          default:
+            throw new IllegalStateException("Unknown probe source " + source);
+        }
+      }
+    }
+    super.visitEnd();
+  }
+
+  private void addDerivedProbe(int derivedKey, int sourceIID) {
+    derivedProbes.add(derivedKey);
+    derivedProbes.add(sourceIID);
+  }
+
   @Override
   public void visitMaxs(int maxStack, int maxLocals) {
     //Allow ASM to calculate the correct maxStack by passing '0' as the maximum stack value.
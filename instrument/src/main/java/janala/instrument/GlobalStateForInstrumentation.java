@@ -1,18 +1,75 @@
 package janala.instrument;
 
+import java.util.concurrent.atomic.AtomicInteger;
+
 /** An object to keep track of (classId, methodId, instructionId) tuples during
- instrumentation. */
+ instrumentation.
+
+ A fresh instance is created for every class being instrumented, so that
+ classes can be instrumented concurrently; only the fast-coverage IDs,
+ which must be unique across classes, are shared. Each probe allocates its
+ IDs in a single call, so that the IDs of a branch or switch are consecutive
+ even while other classes are being instrumented. */
 public class GlobalStateForInstrumentation {
+  /** @deprecated instrumentation state is now per-class; see {@link #forClass(String)} */
+  @Deprecated
   public static GlobalStateForInstrumentation instance = new GlobalStateForInstrumentation();
   private int iid = 0;
   private int mid = 0;
   private int cid = 0;
 
   // JQF's Fast Coverage implementation uses a plain int, no bit packing, no truncation errors
-  private int fastCoverageIID = 0;
+  private static final AtomicInteger fastCoverageIID = new AtomicInteger();
+
+  // If set, fast-coverage IDs are stable across JVMs instead of following class-loading order
+  private static final ProbeIdMap probeIds =
+      Config.instance.probeIdMap != null ? ProbeIdMap.open(Config.instance.probeIdMap) : null;
+
+  private String className;
+  private String method;
+  private int probe;
+  private int inlineCountersInUse;
+
   public int incAndGetFastCoverageId(){
-    fastCoverageIID++;
-    return fastCoverageIID;
+    return allocateFastCoverageIds(1);
+  }
+
+  /** Allocates `count` consecutive fast-coverage IDs for the next probe of
+   the current method (see {@link #beginMethod(String)}), returning the first. */
+  public int allocateFastCoverageIds(int count) {
+    if (probeIds != null) {
+      return probeIds.idsOf(className + "#" + method + "@" + probe++, count);
+    }
+    return fastCoverageIID.getAndAdd(count) + 1;
+  }
+
+  /** Records that this class's probes write the first `count` inline counters. */
+  public void reserveInlineCounters(int count) {
+    inlineCountersInUse = Math.max(inlineCountersInUse, count);
+  }
+
+  /** Returns how many leading inline counters this class's probes write. */
+  public int getInlineCountersInUse() {
+    return inlineCountersInUse;
+  }
+
+  /** Starts numbering the probes of a method (given as name and descriptor) from zero. */
+  public void beginMethod(String method) {
+    this.method = method;
+    this.probe = 0;
+  }
+
+  /** Returns the persistent probe ID map in use, or null if IDs follow class-loading order. */
+  public static ProbeIdMap getProbeIdMap() {
+    return probeIds;
+  }
+
+  /** Creates the instrumentation state for a single class. */
+  public static GlobalStateForInstrumentation forClass(String cname) {
+    GlobalStateForInstrumentation state = new GlobalStateForInstrumentation();
+    state.setCid(cname.hashCode());
+    state.className = cname;
+    return state;
   }
 
 
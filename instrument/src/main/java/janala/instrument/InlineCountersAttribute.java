@@ -0,0 +1,56 @@
+package janala.instrument;
+
+import org.objectweb.asm.Attribute;
+import org.objectweb.asm.ByteVector;
+import org.objectweb.asm.ClassReader;
+import org.objectweb.asm.ClassVisitor;
+import org.objectweb.asm.ClassWriter;
+import org.objectweb.asm.Label;
+import org.objectweb.asm.Opcodes;
+
+/** A class attribute recording how many inline counters an instrumented class uses.
+
+ The JVM ignores it; it lets a class loaded from the instrumentation cache
+ reserve the inline counters that its probes write, as its instrumentation
+ did. */
+public class InlineCountersAttribute extends Attribute {
+  public static final String NAME = "JQFInlineCounters";
+
+  /** One past the highest inline counter that the class's probes write. */
+  private final int inUse;
+
+  public InlineCountersAttribute(int inUse) {
+    super(NAME);
+    this.inUse = inUse;
+  }
+
+  public int getInUse() {
+    return inUse;
+  }
+
+  @Override
+  protected Attribute read(ClassReader cr, int offset, int length, char[] charBuffer,
+                           int codeAttributeOffset, Label[] labels) {
+    return new InlineCountersAttribute(cr.readInt(offset));
+  }
+
+  @Override
+  protected ByteVector write(ClassWriter cw, byte[] code, int codeLength, int maxStack, int maxLocals) {
+    return new ByteVector(4).putInt(inUse);
+  }
+
+  /** Returns the inline counters used by an instrumented class file, or 0 if it records none. */
+  public static int readFrom(byte[] classBytes) {
+    int[] found = new int[1];
+    new ClassReader(classBytes).accept(new ClassVisitor(Opcodes.ASM8) {
+      @Override
+      public void visitAttribute(Attribute attribute) {
+        if (attribute instanceof InlineCountersAttribute) {
+          found[0] = ((InlineCountersAttribute) attribute).inUse;
+        }
+      }
+    }, new Attribute[] { new InlineCountersAttribute(0) },
+        ClassReader.SKIP_CODE | ClassReader.SKIP_DEBUG | ClassReader.SKIP_FRAMES);
+    return found[0];
+  }
+}
@@ -0,0 +1,181 @@
+package janala.instrument;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import edu.berkeley.cs.jqf.instrument.tracing.FastCoverageSnoop;
+
+/** A persistent cache of instrumented bytecode, stored as a single pack file.
+
+ Entries are keyed by a SHA-256 digest of the original bytecode together with
+ the instrumentation settings, so a stale entry can never be returned when
+ either changes. The pack is append-only; each record is the key, the
+ length of the instrumented class, and its bytes. Existing records are
+ memory-mapped and indexed once when the cache is opened, so a hit costs one
+ digest and one copy out of the mapping. */
+public class InstrumentationCache {
+  private static final String PACK_FILE = "instrumentation.cache";
+  private static final int MAGIC = 0x4a514643; // "JQFC"
+  private static final int VERSION = 1;
+  private static final int HEADER_SIZE = 8;
+  private static final int KEY_SIZE = 32;
+
+  /** Bump whenever the instrumentation emitted for the same settings changes. */
+  private static final int INSTRUMENTATION_REVISION = 4;
+
+  private final FileChannel channel;
+  private final Map<ByteBuffer, ByteBuffer> index = new ConcurrentHashMap<>();
+  private final byte[] configDigest;
+
+  private InstrumentationCache(FileChannel channel, byte[] configDigest) {
+    this.channel = channel;
+    this.configDigest = configDigest;
+  }
+
+  /** Opens (or creates) the cache in the given directory, or returns null
+   if it cannot be used.
+
+   Fast-coverage classes embed probe IDs that are only stable across JVMs
+   with a probe ID map (see {@link Config#probeIdMap}). Without one, a class
+   loaded from the cache would reuse IDs that this JVM also hands out to
+   freshly instrumented classes, so the cache is not used at all. */
+  public static InstrumentationCache open(String dir) {
+    Config config = Config.instance;
+    if (config.useFastCoverageInstrumentation && config.probeIdMap == null) {
+      System.err.println("[WARNING] Not using the instrumentation cache in " + dir +
+          ": fast coverage needs janala.probeIdMap to keep probe IDs stable across runs");
+      return null;
+    }
+    try {
+      File parent = new File(dir);
+      parent.mkdirs();
+      FileChannel channel = FileChannel.open(new File(parent, PACK_FILE).toPath(),
+          StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+      InstrumentationCache cache = new InstrumentationCache(channel, digestConfig());
+      cache.load();
+      return cache;
+    } catch (IOException e) {
+      System.err.println("[WARNING] Could not open instrumentation cache in " + dir + ": " + e);
+      return null;
+    }
+  }
+
+  /** Computes the cache key of a class's original bytecode. */
+  public ByteBuffer keyOf(byte[] originalBytes) {
+    MessageDigest digest = sha256();
+    digest.update(configDigest);
+    digest.update(originalBytes);
+    return ByteBuffer.wrap(digest.digest());
+  }
+
+  /** Returns the cached instrumented bytecode for a key, or null. */
+  public byte[] get(ByteBuffer key) {
+    ByteBuffer entry = index.get(key);
+    if (entry == null) {
+      return null;
+    }
+    byte[] bytes = new byte[entry.remaining()];
+    entry.duplicate().get(bytes);
+    return bytes;
+  }
+
+  /** Records the instrumented bytecode for a key, appending it to the pack. */
+  public void put(ByteBuffer key, byte[] instrumentedBytes) throws IOException {
+    if (index.putIfAbsent(key, ByteBuffer.wrap(instrumentedBytes)) != null) {
+      return;
+    }
+    ByteBuffer record = ByteBuffer.allocate(KEY_SIZE + 4 + instrumentedBytes.length);
+    record.put(key.duplicate()).putInt(instrumentedBytes.length).put(instrumentedBytes).flip();
+    synchronized (channel) {
+      // Other JVMs may share the same cache directory
+      try (FileLock ignored = channel.lock()) {
+        long position = channel.size();
+        while (record.hasRemaining()) {
+          position += channel.write(record, position);
+        }
+      }
+    }
+  }
+
+  private void load() throws IOException {
+    synchronized (channel) {
+      try (FileLock ignored = channel.lock()) {
+        long size = channel.size();
+        if (size < HEADER_SIZE) {
+          ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE).putInt(MAGIC).putInt(VERSION);
+          header.flip();
+          channel.truncate(0);
+          channel.write(header, 0);
+          return;
+        }
+        MappedByteBuffer pack = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+        if (pack.getInt() != MAGIC || pack.getInt() != VERSION) {
+          throw new IOException("Unrecognized instrumentation cache format");
+        }
+        int end = pack.position();
+        while (pack.remaining() >= KEY_SIZE + 4) {
+          ByteBuffer key = slice(pack, KEY_SIZE);
+          int length = pack.getInt();
+          if (length < 0 || length > pack.remaining()) {
+            break; // A record that was only partially written
+          }
+          index.putIfAbsent(key, slice(pack, length));
+          end = pack.position();
+        }
+        if (end < size) {
+          // Drop the partial record, so that records appended later can be read back
+          try {
+            channel.truncate(end);
+          } catch (IOException e) {
+            // Some platforms cannot truncate a mapped file; the cache still works without the later records
+          }
+        }
+      }
+    }
+  }
+
+  /** Returns the next `length` bytes of a buffer as a separate buffer, and skips past them. */
+  private static ByteBuffer slice(ByteBuffer buffer, int length) {
+    ByteBuffer slice = buffer.slice();
+    slice.limit(length);
+    buffer.position(buffer.position() + length);
+    return slice;
+  }
+
+  private static byte[] digestConfig() {
+    Config config = Config.instance;
+    // Cached classes embed the IDs of the map they were instrumented with
+    ProbeIdMap probeIds = GlobalStateForInstrumentation.getProbeIdMap();
+    StringBuilder settings = new StringBuilder()
+        .append("revision=").append(INSTRUMENTATION_REVISION)
+        .append(";includes=").append(String.join(",", config.includeInst))
+        .append(";excludes=").append(String.join(",", config.excludeInst))
+        .append(";fast=").append(config.useFastCoverageInstrumentation)
+        .append(";inline=").append(config.inlineCounters ? FastCoverageSnoop.INLINE_COUNTERS.length : 0)
+        .append(";prune=").append(config.pruneProbes)
+        .append(";alloc=").append(config.instrumentAlloc)
+        .append(";heapLoad=").append(config.instrumentHeapLoad)
+        .append(";level=").append(config.tracingLevel)
+        .append(";probeIds=").append(probeIds != null ? probeIds.getMapId() : "")
+        .append(";snoop=").append(config.analysisClass);
+    return sha256().digest(settings.toString().getBytes(StandardCharsets.UTF_8));
+  }
+
+  private static MessageDigest sha256() {
+    try {
+      return MessageDigest.getInstance("SHA-256");
+    } catch (NoSuchAlgorithmException e) {
+      throw new AssertionError("SHA-256 is required on every Java platform", e);
+    }
+  }
+}
@@ -0,0 +1,159 @@
+package janala.instrument;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.security.SecureRandom;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/** A persistent assignment of fast-coverage probe IDs.
+
+ Without it, probe IDs are handed out in class-loading order and differ
+ between JVMs. With it, each probe is identified by its class, its method
+ (name and descriptor) and its position among the method's probes, and the
+ ID first assigned to it is recorded in a mapping file. Every process that
+ shares the file gives the same probe the same ID, so coverage collected by
+ different processes can be merged by ID alone.
+
+ The file is a text file with one line per probe: its first ID, the number
+ of consecutive IDs it uses (e.g. one per switch arm), and its location.
+ It is only appended to, under a file lock, and a process reads the lines
+ that others appended before it assigns a new ID. IDs stay dense, so inline
+ counters remain compact. */
+public class ProbeIdMap {
+  private static final String HEADER_PREFIX = "# JQF probe IDs v1 ";
+
+  private static final class Entry {
+    final int first;
+    final int count;
+
+    Entry(int first, int count) {
+      this.first = first;
+      this.count = count;
+    }
+  }
+
+  private final FileChannel channel;
+  private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+  private String mapId;
+  private int nextId = 1; // Fast-coverage IDs start at 1
+  private long readUpTo = 0;
+
+  private ProbeIdMap(FileChannel channel) {
+    this.channel = channel;
+  }
+
+  /** Opens (or creates) the mapping file at the given path. */
+  public static ProbeIdMap open(String path) {
+    try {
+      File file = new File(path).getAbsoluteFile();
+      file.getParentFile().mkdirs();
+      FileChannel channel = FileChannel.open(file.toPath(),
+          StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+      ProbeIdMap map = new ProbeIdMap(channel);
+      synchronized (map) {
+        try (FileLock ignored = channel.lock()) {
+          if (channel.size() == 0) {
+            byte[] id = new byte[8];
+            new SecureRandom().nextBytes(id);
+            StringBuilder header = new StringBuilder(HEADER_PREFIX);
+            for (byte b : id) {
+              header.append(String.format("%02x", b));
+            }
+            map.append(header.append('\n').toString());
+          }
+          map.readNewLines();
+        }
+      }
+      if (map.mapId == null) {
+        throw new IOException("Unrecognized probe ID map " + path);
+      }
+      return map;
+    } catch (IOException e) {
+      throw new RuntimeException("Could not open probe ID map: " + e.getMessage(), e);
+    }
+  }
+
+  /** Identifies this mapping file; changes whenever the file is re-created. */
+  public String getMapId() {
+    return mapId;
+  }
+
+  /**
+   * Returns the first of `count` consecutive IDs for the probe at the given
+   * location, assigning and recording them if the probe has not been seen.
+   */
+  public int idsOf(String location, int count) {
+    Entry entry = entries.get(location);
+    if (entry != null && entry.count == count) {
+      return entry.first;
+    }
+    synchronized (this) {
+      try (FileLock ignored = channel.lock()) {
+        // Another process may have assigned this probe in the meantime
+        readNewLines();
+        entry = entries.get(location);
+        if (entry != null && entry.count == count) {
+          return entry.first;
+        }
+        // New probe, or the probe changed shape (e.g. a switch gained arms)
+        entry = new Entry(nextId, count);
+        append(entry.first + " " + entry.count + " " + location + "\n");
+        readUpTo = channel.size();
+        entries.put(location, entry);
+        nextId += count;
+        return entry.first;
+      } catch (IOException e) {
+        throw new RuntimeException("Could not update probe ID map: " + e.getMessage(), e);
+      }
+    }
+  }
+
+  private void append(String line) throws IOException {
+    ByteBuffer bytes = ByteBuffer.wrap(line.getBytes(StandardCharsets.UTF_8));
+    long position = channel.size();
+    while (bytes.hasRemaining()) {
+      position += channel.write(bytes, position);
+    }
+  }
+
+  /** Reads the lines appended since the last call; must hold the file lock. */
+  private void readNewLines() throws IOException {
+    long size = channel.size();
+    if (size <= readUpTo) {
+      return;
+    }
+    ByteBuffer bytes = ByteBuffer.allocate((int) (size - readUpTo));
+    while (bytes.hasRemaining() && channel.read(bytes, readUpTo + bytes.position()) >= 0) {
+      // Keep reading
+    }
+    byte[] array = bytes.array();
+    int start = 0;
+    for (int i = 0; i < bytes.position(); i++) {
+      if (array[i] == '\n') {
+        parseLine(new String(array, start, i - start, StandardCharsets.UTF_8));
+        start = i + 1;
+      }
+    }
+    readUpTo += start;
+  }
+
+  private void parseLine(String line) throws IOException {
+    if (line.startsWith(HEADER_PREFIX)) {
+      mapId = line.substring(HEADER_PREFIX.length());
+      return;
+    }
+    String[] fields = line.split(" ", 3);
+    if (fields.length != 3) {
+      throw new IOException("Malformed probe ID map line: " + line);
+    }
+    Entry entry = new Entry(Integer.parseInt(fields[0]), Integer.parseInt(fields[1]));
+    entries.put(fields[2], entry); // Later lines supersede earlier ones
+    nextId = Math.max(nextId, entry.first + entry.count);
+  }
+}
@@ -0,0 +1,333 @@
+package janala.instrument;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.objectweb.asm.ClassReader;
+import org.objectweb.asm.ClassVisitor;
+import org.objectweb.asm.Handle;
+import org.objectweb.asm.Label;
+import org.objectweb.asm.MethodVisitor;
+import org.objectweb.asm.Opcodes;
+
+/** Finds fast-coverage branch probes whose counts can be derived from other probes.
+
+ A conditional jump has one probe for each of its two arms. An arm can be
+ left without a probe when the code it leads to has no other way in and
+ cannot throw before the next probe: then the arm runs exactly as often as
+ that next probe, which is one of
+
+ <ul>
+   <li>the probe of a call site, which is placed before the call;</li>
+   <li>both arms of another conditional jump; or</li>
+   <li>all arms of a switch,</li>
+ </ul>
+
+ and its count is the sum of the counts of those probes. An arm has no other
+ way in if no label between it and the next probe is the target of a jump,
+ a switch or an exception handler, and, for the taken arm, its target is
+ referenced by this jump only and is not reachable by falling through from
+ the preceding instruction. Every instruction in between must be one that
+ cannot throw, e.g. arithmetic other than integer division, loads and stores
+ of local variables, constants and stack manipulation.
+
+ Because the derived counts are exact, pruning does not change the coverage
+ that is reported for a run, including runs that end with an exception or a
+ timeout. Call sites, switches and method entries always keep their probes,
+ and an arm is never derived from a pruned arm. */
+public class ProbePruner extends ClassVisitor implements Opcodes {
+
+  /** The branch arm keeps its own probe. */
+  public static final int OWN_PROBE = -1;
+
+  /** Kinds of probes that a pruned arm's count is derived from. */
+  public static final int SOURCE_CALL = 0, SOURCE_BRANCH = 1, SOURCE_SWITCH = 2;
+
+  private final Map<String, int[]> sources = new HashMap<>();
+
+  private ProbePruner() {
+    super(ASM8);
+  }
+
+  /**
+   * Analyzes a class and returns, for each method (keyed by name and
+   * descriptor), an array with two entries per conditional jump in order of
+   * appearance, for its fall-through (arm 0) and taken (arm 1) arms. Each
+   * entry is either {@link #OWN_PROBE}, or a source as encoded by
+   * {@link #source(int, int)}: the call site, conditional jump or switch,
+   * numbered in order of appearance among its kind, whose probes also count
+   * the arm.
+   */
+  public static Map<String, int[]> analyze(ClassReader cr) {
+    ProbePruner pruner = new ProbePruner();
+    cr.accept(pruner, 0);
+    return pruner.sources;
+  }
+
+  /** Encodes the source of a pruned arm. */
+  public static int source(int kind, int index) {
+    return (index << 2) | kind;
+  }
+
+  /** Returns the kind of an encoded source, e.g. {@link #SOURCE_CALL}. */
+  public static int sourceKind(int source) {
+    return source & 3;
+  }
+
+  /** Returns the index of an encoded source among the instructions of its kind. */
+  public static int sourceIndex(int source) {
+    return source >>> 2;
+  }
+
+  @Override
+  public MethodVisitor visitMethod(int access, String name, String desc,
+                                   String signature, String[] exceptions) {
+    return new MethodAnalyzer(name + desc);
+  }
+
+  /** Records the instructions of a method and resolves the arms at the end. */
+  private class MethodAnalyzer extends MethodVisitor {
+    private static final int LABEL = 0, PLAIN = 1, THROWING = 2, CALL = 3, BRANCH = 4,
+        GOTO_ = 5, SWITCH = 6, EXIT = 7;
+    private static final int NONE = -2;
+
+    private final String key;
+    private final List<Integer> kinds = new ArrayList<>();
+    private final List<Object> operands = new ArrayList<>();
+    /** How many jumps and switch arms refer to each label. */
+    private final Map<Label, Integer> references = new IdentityHashMap<>();
+    private final Map<Label, Boolean> handlers = new IdentityHashMap<>();
+    private boolean unsupported = false;
+
+    MethodAnalyzer(String key) {
+      super(ASM8);
+      this.key = key;
+    }
+
+    private void add(int kind, Object operand) {
+      kinds.add(kind);
+      operands.add(operand);
+    }
+
+    private void reference(Label label) {
+      references.merge(label, 1, Integer::sum);
+    }
+
+    @Override
+    public void visitLabel(Label label) {
+      add(LABEL, label);
+    }
+
+    @Override
+    public void visitInsn(int opcode) {
+      if ((opcode >= IRETURN && opcode <= RETURN) || opcode == ATHROW) {
+        add(EXIT, null);
+      } else if ((opcode >= IALOAD && opcode <= SALOAD) || (opcode >= IASTORE && opcode <= SASTORE)
+          || opcode == IDIV || opcode == LDIV || opcode == IREM || opcode == LREM
+          || opcode == ARRAYLENGTH || opcode == MONITORENTER || opcode == MONITOREXIT) {
+        add(THROWING, null);
+      } else {
+        add(PLAIN, null);
+      }
+    }
+
+    @Override
+    public void visitIntInsn(int opcode, int operand) {
+      add(opcode == NEWARRAY ? THROWING : PLAIN, null);
+    }
+
+    @Override
+    public void visitVarInsn(int opcode, int var) {
+      if (opcode == RET) {
+        unsupported = true;
+      }
+      add(PLAIN, null);
+    }
+
+    @Override
+    public void visitIincInsn(int var, int increment) {
+      add(PLAIN, null);
+    }
+
+    @Override
+    public void visitLdcInsn(Object value) {
+      // Loading a class, method type, handle or dynamic constant may fail to resolve it
+      boolean plain = value instanceof Number || value instanceof String;
+      add(plain ? PLAIN : THROWING, null);
+    }
+
+    @Override
+    public void visitTypeInsn(int opcode, String type) {
+      add(THROWING, null);
+    }
+
+    @Override
+    public void visitFieldInsn(int opcode, String owner, String name, String desc) {
+      add(THROWING, null);
+    }
+
+    @Override
+    public void visitMultiANewArrayInsn(String desc, int dims) {
+      add(THROWING, null);
+    }
+
+    @Override
+    public void visitInvokeDynamicInsn(String name, String desc, Handle bsm, Object... bsmArgs) {
+      add(THROWING, null); // Not a probed call site
+    }
+
+    @Override
+    public void visitMethodInsn(int opcode, String owner, String name, String desc, boolean itf) {
+      add(CALL, null);
+    }
+
+    @Override
+    public void visitJumpInsn(int opcode, Label label) {
+      reference(label);
+      if (opcode == GOTO) {
+        add(GOTO_, label);
+      } else if (opcode == JSR) {
+        unsupported = true;
+        add(THROWING, null);
+      } else {
+        add(BRANCH, label);
+      }
+    }
+
+    @Override
+    public void visitTableSwitchInsn(int min, int max, Label dflt, Label... labels) {
+      visitSwitch(dflt, labels);
+    }
+
+    @Override
+    public void visitLookupSwitchInsn(Label dflt, int[] keys, Label[] labels) {
+      visitSwitch(dflt, labels);
+    }
+
+    private void visitSwitch(Label dflt, Label[] labels) {
+      reference(dflt);
+      for (Label l : labels) {
+        reference(l);
+      }
+      add(SWITCH, null);
+    }
+
+    @Override
+    public void visitTryCatchBlock(Label start, Label end, Label handler, String type) {
+      handlers.put(handler, true);
+    }
+
+    @Override
+    public void visitEnd() {
+      int n = kinds.size();
+      int[] index = new int[n];
+      int[] counts = new int[EXIT + 1];
+      for (int i = 0; i < n; i++) {
+        index[i] = counts[kinds.get(i)]++;
+      }
+      int branches = counts[BRANCH];
+      int[] result = new int[2 * branches];
+      Arrays.fill(result, OWN_PROBE);
+      sources.put(key, result);
+      if (unsupported || branches == 0) {
+        return;
+      }
+
+      Map<Label, Integer> position = new IdentityHashMap<>();
+      for (int i = 0; i < n; i++) {
+        if (kinds.get(i) == LABEL) {
+          position.put((Label) operands.get(i), i);
+        }
+      }
+
+      // Visit the last branches first, as they are the likely sources of earlier ones
+      boolean[] pinned = new boolean[branches];
+      boolean[] pruned = new boolean[branches];
+      for (int i = n - 1; i >= 0; i--) {
+        if (kinds.get(i) != BRANCH || pinned[index[i]]) {
+          continue;
+        }
+        int branch = index[i];
+        int[] arms = { fallThroughSource(i, index), takenSource(position.get((Label) operands.get(i)), index) };
+        for (int arm = 0; arm < 2; arm++) {
+          int source = arms[arm];
+          if (source == NONE) {
+            continue;
+          }
+          if (sourceKind(source) == SOURCE_BRANCH) {
+            int other = sourceIndex(source);
+            if (other == branch || pruned[other]) {
+              continue;
+            }
+            pinned[other] = true;
+          }
+          result[2 * branch + arm] = source;
+          pruned[branch] = true;
+        }
+      }
+    }
+
+    /** Returns the source of the arm that falls through the branch at position i. */
+    private int fallThroughSource(int i, int[] index) {
+      return nextProbe(i + 1, index);
+    }
+
+    /** Returns the source of the arm that jumps to the label at position p. */
+    private int takenSource(int p, int[] index) {
+      int first = p;
+      while (first > 0 && kinds.get(first - 1) == LABEL) {
+        first--;
+      }
+      // Reachable by falling through, or by entering the method
+      if (first == 0) {
+        return NONE;
+      }
+      int previous = kinds.get(first - 1);
+      if (previous != GOTO_ && previous != SWITCH && previous != EXIT) {
+        return NONE;
+      }
+      int refs = 0;
+      int last = first;
+      for (; last < kinds.size() && kinds.get(last) == LABEL; last++) {
+        Label label = (Label) operands.get(last);
+        if (handlers.containsKey(label)) {
+          return NONE;
+        }
+        refs += references.getOrDefault(label, 0);
+      }
+      return refs == 1 ? nextProbe(last, index) : NONE;
+    }
+
+    /**
+     * Returns the first probe reached from position i, provided that the
+     * code before it has no other way in and cannot throw.
+     */
+    private int nextProbe(int i, int[] index) {
+      for (; i < kinds.size(); i++) {
+        switch (kinds.get(i)) {
+          case LABEL:
+            Label label = (Label) operands.get(i);
+            if (references.containsKey(label) || handlers.containsKey(label)) {
+              return NONE;
+            }
+            break;
+          case PLAIN:
+            break;
+          case CALL:
+            return source(SOURCE_CALL, index[i]);
+          case BRANCH:
+            return source(SOURCE_BRANCH, index[i]);
+          case SWITCH:
+            return source(SOURCE_SWITCH, index[i]);
+          default:
+            return NONE;
+        }
+      }
+      return NONE;
+    }
+  }
+}
@@ -31,6 +31,10 @@ package janala.instrument;
 
 import java.io.IOException;
 import java.io.InputStream;
+import java.util.Collections;
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.concurrent.ConcurrentHashMap;
 
 import org.objectweb.asm.ClassReader;
 import org.objectweb.asm.ClassWriter;
@@ -46,27 +50,38 @@ import org.objectweb.asm.Opcodes;
  */
 public class SafeClassWriter extends ClassWriter {
 
+    /**
+     * Hierarchy information already parsed, per class loader. Entries live as
+     * long as the loader, so that every class instrumented by the same loader
+     * shares the lookups made for the others.
+     */
+    private static final Map<ClassLoader, Map<String, TypeInfo>> hierarchies =
+            Collections.synchronizedMap(new WeakHashMap<>());
+
     private final ClassLoader loader;
 
+    private final Map<String, TypeInfo> hierarchy;
+
     
     public SafeClassWriter(ClassReader cr, ClassLoader loader, final int flags) {
         super(cr, flags);
         this.loader = loader != null ? loader : ClassLoader.getSystemClassLoader();
+        this.hierarchy = hierarchies.computeIfAbsent(this.loader, l -> new ConcurrentHashMap<>());
     }
 
     @Override
     protected String getCommonSuperClass(final String type1, final String type2) {
         try {
-            ClassReader info1 = typeInfo(type1);
-            ClassReader info2 = typeInfo(type2);
-            if ((info1.getAccess() & Opcodes.ACC_INTERFACE) != 0) {
+            TypeInfo info1 = typeInfo(type1);
+            TypeInfo info2 = typeInfo(type2);
+            if ((info1.access & Opcodes.ACC_INTERFACE) != 0) {
                 if (typeImplements(type2, info2, type1)) {
                     return type1;
                 } else {
                     return "java/lang/Object";
                 }
             }
-            if ((info2.getAccess() & Opcodes.ACC_INTERFACE) != 0) {
+            if ((info2.access & Opcodes.ACC_INTERFACE) != 0) {
                 if (typeImplements(type1, info1, type2)) {
                     return type2;
                 } else {
@@ -107,7 +122,7 @@ public class SafeClassWriter extends ClassWriter {
      * @param type
      *            the internal name of a class or interface.
      * @param info
-     *            the ClassReader corresponding to 'type'.
+     *            the TypeInfo corresponding to 'type'.
      * @return a StringBuilder containing the ancestor classes of 'type',
      *         separated by ';'. The returned string has the following format:
      *         ";type1;type2 ... ;typeN", where type1 is 'type', and typeN is a
@@ -117,12 +132,12 @@ public class SafeClassWriter extends ClassWriter {
      *             if the bytecode of 'type' or of some of its ancestor class
      *             cannot be loaded.
      */
-    private StringBuilder typeAncestors(String type, ClassReader info)
+    private StringBuilder typeAncestors(String type, TypeInfo info)
             throws IOException {
         StringBuilder b = new StringBuilder();
         while (!"java/lang/Object".equals(type)) {
             b.append(';').append(type);
-            type = info.getSuperName();
+            type = info.superName;
             info = typeInfo(type);
         }
         return b;
@@ -134,7 +149,7 @@ public class SafeClassWriter extends ClassWriter {
      * @param type
      *            the internal name of a class or interface.
      * @param info
-     *            the ClassReader corresponding to 'type'.
+     *            the TypeInfo corresponding to 'type'.
      * @param itf
      *            the internal name of a interface.
      * @return true if 'type' implements directly or indirectly 'itf'
@@ -142,10 +157,10 @@ public class SafeClassWriter extends ClassWriter {
      *             if the bytecode of 'type' or of some of its ancestor class
      *             cannot be loaded.
      */
-    private boolean typeImplements(String type, ClassReader info, String itf)
+    private boolean typeImplements(String type, TypeInfo info, String itf)
             throws IOException {
         while (!"java/lang/Object".equals(type)) {
-            String[] itfs = info.getInterfaces();
+            String[] itfs = info.interfaces;
             for (int i = 0; i < itfs.length; ++i) {
                 if (itfs[i].equals(itf)) {
                     return true;
@@ -156,32 +171,56 @@ public class SafeClassWriter extends ClassWriter {
                     return true;
                 }
             }
-            type = info.getSuperName();
+            type = info.superName;
             info = typeInfo(type);
         }
         return false;
     }
 
     /**
-     * Returns a ClassReader corresponding to the given class or interface.
+     * Returns the hierarchy information of the given class or interface,
+     * reading its class file only the first time it is requested.
      * 
      * @param type
      *            the internal name of a class or interface.
-     * @return the ClassReader corresponding to 'type'.
+     * @return the TypeInfo corresponding to 'type'.
      * @throws IOException
      *             if the bytecode of 'type' cannot be loaded.
      */
-    private ClassReader typeInfo(final String type) throws IOException {
+    private TypeInfo typeInfo(final String type) throws IOException {
+        TypeInfo info = hierarchy.get(type);
+        if (info == null) {
+            info = readTypeInfo(type);
+            hierarchy.putIfAbsent(type, info);
+        }
+        return info;
+    }
+
+    private TypeInfo readTypeInfo(final String type) throws IOException {
         String resource = type + ".class";
         InputStream is = loader.getResourceAsStream(resource);
         if (is == null) {
             throw new IOException("Cannot create ClassReader for type " + type);
         }
         try {
-            return new ClassReader(is);
+            ClassReader cr = new ClassReader(is);
+            return new TypeInfo(cr.getAccess(), cr.getSuperName(), cr.getInterfaces());
         } finally {
             is.close();
         }
     }
+
+    /** The parts of a class file needed to compute common super classes. */
+    private static final class TypeInfo {
+        final int access;
+        final String superName;
+        final String[] interfaces;
+
+        TypeInfo(int access, String superName, String[] interfaces) {
+            this.access = access;
+            this.superName = superName;
+            this.interfaces = interfaces;
+        }
+    }
 }
 
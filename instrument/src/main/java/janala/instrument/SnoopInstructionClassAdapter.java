@@ -1,6 +1,11 @@
 
 package janala.instrument;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import edu.berkeley.cs.jqf.instrument.tracing.FastCoverageSnoop;
 import org.objectweb.asm.ClassVisitor;
 import org.objectweb.asm.MethodVisitor;
 import org.objectweb.asm.Opcodes;
@@ -8,11 +13,31 @@ import org.objectweb.asm.Opcodes;
 
 public class SnoopInstructionClassAdapter extends ClassVisitor {
   private final String className;
+  private final GlobalStateForInstrumentation instrumentationState;
+  private final Map<String, int[]> probeSources;
+  private final List<Integer> derivedProbes = new ArrayList<>();
   private String superName;
 
   public SnoopInstructionClassAdapter(ClassVisitor cv, String className) {
+    this(cv, className, GlobalStateForInstrumentation.forClass(className));
+  }
+
+  public SnoopInstructionClassAdapter(ClassVisitor cv, String className,
+                                      GlobalStateForInstrumentation instrumentationState) {
+    this(cv, className, instrumentationState, null);
+  }
+
+  /**
+   * @param probeSources the result of {@link ProbePruner#analyze}, or null
+   *                     to place a probe on every branch arm
+   */
+  public SnoopInstructionClassAdapter(ClassVisitor cv, String className,
+                                      GlobalStateForInstrumentation instrumentationState,
+                                      Map<String, int[]> probeSources) {
     super(Opcodes.ASM8, cv);
     this.className = className;
+    this.instrumentationState = instrumentationState;
+    this.probeSources = probeSources;
   }
 
   @Override
@@ -33,12 +58,31 @@ public class SnoopInstructionClassAdapter extends ClassVisitor {
     MethodVisitor mv = cv.visitMethod(access, name, desc, signature, exceptions);
     if (mv != null) {
       if(Config.instance.useFastCoverageInstrumentation){
-        return new FastCoverageMethodAdapter(mv, className, name, desc, superName, GlobalStateForInstrumentation.instance);
+        return new FastCoverageMethodAdapter(mv, className, name, desc, superName, instrumentationState,
+                probeSources == null ? null : probeSources.get(name + desc), derivedProbes);
       }else {
         return new SnoopInstructionMethodAdapter(mv, className, name, desc, superName,
-                GlobalStateForInstrumentation.instance, (access & Opcodes.ACC_STATIC) != 0);
+                instrumentationState, (access & Opcodes.ACC_STATIC) != 0);
       }
     }
     return null;
   }
+
+  @Override
+  public void visitEnd() {
+    int inlineCountersInUse = instrumentationState.getInlineCountersInUse();
+    if (inlineCountersInUse > 0) {
+      FastCoverageSnoop.reserveInlineCounters(inlineCountersInUse);
+      cv.visitAttribute(new InlineCountersAttribute(inlineCountersInUse));
+    }
+    if (!derivedProbes.isEmpty()) {
+      int[] pairs = new int[derivedProbes.size()];
+      for (int i = 0; i < pairs.length; i++) {
+        pairs[i] = derivedProbes.get(i);
+      }
+      FastCoverageSnoop.registerDerivedProbes(pairs);
+      cv.visitAttribute(new DerivedProbesAttribute(pairs));
+    }
+    cv.visitEnd();
+  }
 }
@@ -821,7 +821,13 @@ public class SnoopInstructionMethodAdapter extends MethodVisitor implements Opco
         addBipushInsn(mv, lastLineNumber);
         mv.visitMethodInsn(INVOKESTATIC, Config.instance.analysisClass, "HEAPLOAD2", "(Ljava/lang/Object;III)V", false);
       }
-      addMethodWithTryCatch(opcode, owner, name, desc, itf);
+      if (Config.instance.tracingLevel.includes(TracingLevel.CALLS) || (isInit && !isSuperInitCalled)) {
+        addMethodWithTryCatch(opcode, owner, name, desc, itf);
+      } else {
+        // The callee's own METHOD_BEGIN and METHOD_THROW keep the tracer's stack in sync; only
+        // calls before super()/this() need a handler, since the outer try-catch does not cover them
+        mv.visitMethodInsn(opcode, owner, name, desc, itf);
+      }
     }
   }
 
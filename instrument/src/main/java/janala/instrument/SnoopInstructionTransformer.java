@@ -1,17 +1,15 @@
 package janala.instrument;
 
-import java.io.File;
-import java.io.FileOutputStream;
-import java.io.IOException;
 import java.lang.instrument.ClassFileTransformer;
 import java.lang.instrument.IllegalClassFormatException;
 import java.lang.instrument.Instrumentation;
-import java.nio.file.Files;
+import java.nio.ByteBuffer;
 import java.security.ProtectionDomain;
-import java.util.Arrays;
 import java.util.Map;
+import java.util.Properties;
 import java.util.TreeMap;
 
+import edu.berkeley.cs.jqf.instrument.tracing.FastCoverageSnoop;
 import org.objectweb.asm.ClassReader;
 import org.objectweb.asm.ClassVisitor;
 import org.objectweb.asm.ClassWriter;
@@ -19,6 +17,7 @@ import org.objectweb.asm.ClassWriter;
 @SuppressWarnings("unused") // Registered via -javaagent
 public class SnoopInstructionTransformer implements ClassFileTransformer {
   private static final String instDir = Config.instance.instrumentationCacheDir;
+  private static final InstrumentationCache cache = instDir != null ? InstrumentationCache.open(instDir) : null;
   private static final boolean verbose = Config.instance.verbose;
   private static String[] banned = {"[", "java/lang", "org/eclipse/collections", "edu/berkeley/cs/jqf/fuzz/util", "janala", "org/objectweb/asm", "sun", "jdk", "java/util/function"};
   private static String[] excludes = Config.instance.excludeInst;
@@ -60,6 +59,29 @@ public class SnoopInstructionTransformer implements ClassFileTransformer {
     Class.forName("java.util.jar.JarFile");
   }
 
+  /** Whether classes named by janala.includes should be instrumented before they are first loaded. */
+  public static boolean isEagerInstrumentationEnabled() {
+    return Config.instance.eagerInstrumentation;
+  }
+
+  /** Returns the instrumentation settings in effect, as the properties that select them. */
+  public static Properties getSettings() {
+    return Config.instance.toProperties();
+  }
+
+  /** Whether a class is explicitly selected for instrumentation by janala.includes. */
+  public static boolean isExplicitlyIncluded(String cname) {
+    if (shouldExclude(cname)) {
+      return false;
+    }
+    for (String e : includes) {
+      if (cname.startsWith(e)) {
+        return true;
+      }
+    }
+    return false;
+  }
+
   /** packages that should be excluded from the instrumentation */
   private static boolean shouldExclude(String cname) {
     for (String e : banned) {
@@ -81,9 +103,15 @@ public class SnoopInstructionTransformer implements ClassFileTransformer {
   }
 
   @Override
-  synchronized public byte[] transform(ClassLoader loader, String cname, Class<?> classBeingRedefined,
+  public byte[] transform(ClassLoader loader, String cname, Class<?> classBeingRedefined,
       ProtectionDomain d, byte[] cbuf)
     throws IllegalClassFormatException {
+    // All instrumentation state is local to the class being transformed,
+    // so classes may be instrumented concurrently by different threads
+    return instrument(loader, cname, classBeingRedefined, cbuf);
+  }
+
+  private byte[] instrument(ClassLoader loader, String cname, Class<?> classBeingRedefined, byte[] cbuf) {
 
     if(cname == null) {
       // Do not instrument lambdas
@@ -92,63 +120,64 @@ public class SnoopInstructionTransformer implements ClassFileTransformer {
     boolean toInstrument = !shouldExclude(cname);
 
     if (toInstrument) {
-      print("[INFO] ");
-      if (classBeingRedefined != null) {
-        print("* ");
+      // Build each log line locally so that concurrent transforms do not interleave
+      StringBuilder log = verbose ? new StringBuilder("[INFO] ") : null;
+      if (log != null) {
+        if (classBeingRedefined != null) {
+          log.append("* ");
+        }
+        log.append("Instrumenting: ").append(cname).append("... ");
       }
-      print("Instrumenting: " + cname + "... ");
-      GlobalStateForInstrumentation.instance.setCid(cname.hashCode());
-
-      if (instDir != null) {
-        File cachedFile = new File(instDir + "/" + cname + ".instrumented.class");
-        File referenceFile = new File(instDir + "/" + cname + ".original.class");
-        if (cachedFile.exists() && referenceFile.exists()) {
-          try {
-            byte[] origBytes = Files.readAllBytes(referenceFile.toPath());
-            if (Arrays.equals(cbuf, origBytes)) {
-              byte[] instBytes = Files.readAllBytes(cachedFile.toPath());
-              println(" Found in disk-cache!");
-              return instBytes;
+
+      ByteBuffer cacheKey = null;
+      if (cache != null) {
+        cacheKey = cache.keyOf(cbuf);
+        byte[] instBytes = cache.get(cacheKey);
+        if (instBytes != null) {
+          if (Config.instance.inlineCounters) {
+            FastCoverageSnoop.reserveInlineCounters(InlineCountersAttribute.readFrom(instBytes));
+          }
+          if (Config.instance.pruneProbes) {
+            int[] derivedProbes = DerivedProbesAttribute.readFrom(instBytes);
+            if (derivedProbes != null) {
+              FastCoverageSnoop.registerDerivedProbes(derivedProbes);
             }
-          } catch (IOException e) {
-            print(" <cache error> ");
           }
+          println(log, " Found in disk-cache!");
+          return instBytes;
         }
       }
 
+      long startTime = verbose ? System.nanoTime() : 0;
       byte[] ret = cbuf;
       try {
 
         ClassReader cr = new ClassReader(cbuf);
         ClassWriter cw = new SafeClassWriter(cr,  loader,
                 ClassWriter.COMPUTE_FRAMES | ClassWriter.COMPUTE_MAXS);
-        ClassVisitor cv = new SnoopInstructionClassAdapter(cw, cname);
+        Map<String, int[]> probeSources = Config.instance.pruneProbes ? ProbePruner.analyze(cr) : null;
+        ClassVisitor cv = new SnoopInstructionClassAdapter(cw, cname,
+                GlobalStateForInstrumentation.forClass(cname), probeSources);
 
         cr.accept(cv, 0);
 
         ret = cw.toByteArray();
       } catch (Throwable e) {
-        println("\n[WARNING] Could not instrument " + cname);
+        println(log, "\n[WARNING] Could not instrument " + cname);
         if (verbose) {
           e.printStackTrace();
         }
         return null;
       }
 
-      println("Done!");
+      if (log != null) {
+        long elapsedMicros = (System.nanoTime() - startTime) / 1000;
+        println(log, String.format("Done! (%d.%03d ms)", elapsedMicros / 1000, elapsedMicros % 1000));
+      }
 
-      if (instDir != null) {
+      if (cache != null) {
         try {
-          File cachedFile = new File(instDir + "/" + cname + ".instrumented.class");
-          File referenceFile = new File(instDir + "/" + cname + ".original.class");
-          File parent = new File(cachedFile.getParent());
-          parent.mkdirs();
-          try(FileOutputStream out = new FileOutputStream(cachedFile)) {
-            out.write(ret);
-          }
-          try(FileOutputStream out = new FileOutputStream(referenceFile)) {
-            out.write(cbuf);
-          }
+          cache.put(cacheKey, ret);
         } catch(Exception e) {
           e.printStackTrace();
         }
@@ -159,9 +188,9 @@ public class SnoopInstructionTransformer implements ClassFileTransformer {
     }
   }
 
-  private static void print(String str) {
-    if (verbose) {
-      System.out.print(str);
+  private static void println(StringBuilder log, String line) {
+    if (log != null) {
+      System.out.println(log.append(line));
     }
   }
 
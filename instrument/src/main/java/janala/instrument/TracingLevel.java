@@ -0,0 +1,28 @@
+package janala.instrument;
+
+/** How much of a method's execution the Janala instrumentation reports to the snoop class.
+
+ Each level adds hooks to the previous one. A guidance that only consumes
+ branch and call events (such as Zest) does not need the {@link #FULL} level,
+ and a coverage-only campaign that ignores call sites can use {@link #BRANCHES}.
+ Set with the <code>janala.tracingLevel</code> property. */
+public enum TracingLevel {
+  /** Method entry and exit, conditional jumps and switches. Call sites are only
+   instrumented where the tracer needs them to keep its call stack consistent,
+   i.e. constructor calls and calls made before <code>super()</code> or
+   <code>this()</code>; other call events do not identify their call site. */
+  BRANCHES,
+
+  /** Everything in {@link #BRANCHES}, plus every call site. */
+  CALLS,
+
+  /** Everything in {@link #CALLS}, plus the optional heap-load and
+   allocation hooks (see <code>janala.instrumentHeapLoad</code> and
+   <code>janala.instrumentAlloc</code>). */
+  FULL;
+
+  /** Whether this level includes all the hooks of another. */
+  public boolean includes(TracingLevel other) {
+    return compareTo(other) >= 0;
+  }
+}
@@ -0,0 +1,78 @@
+/*
+ * Copyright (c) 2026 Vladimir Sitnikov and JQF Contributors
+ *
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are
+ * met:
+ *
+ * 1. Redistributions of source code must retain the above copyright
+ * notice, this list of conditions and the following disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright
+ * notice, this list of conditions and the following disclaimer in the
+ * documentation and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+ * HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT
+ * LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ * THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package edu.berkeley.cs.jqf.instrument.tracing;
+
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class SingleSnoopTest {
+
+    /** Threads that start snooping at the same time must each keep their own guard. */
+    @Test(timeout = 10_000)
+    public void threadsUnblockedTogetherKeepTheirOwnGuards() throws Throwable {
+        for (int round = 0; round < 100; round++) {
+            CyclicBarrier barrier = new CyclicBarrier(2);
+            AtomicReference<Throwable> error = new AtomicReference<>();
+            Thread[] threads = new Thread[2];
+            for (int t = 0; t < threads.length; t++) {
+                boolean blocker = t == 0;
+                threads[t] = new Thread(() -> {
+                    try {
+                        barrier.await();
+                        SingleSnoop.unblock();
+                        Assert.assertSame(SingleSnoop.guards.get(), SingleSnoop.guard());
+                        Assert.assertFalse(SingleSnoop.guard().blocked);
+                        barrier.await();
+                        // One thread enters a hook while the other one checks its own guard
+                        if (blocker) {
+                            SingleSnoop.guard().blocked = true;
+                        }
+                        barrier.await();
+                        Assert.assertEquals(blocker, SingleSnoop.guard().blocked);
+                    } catch (Throwable e) {
+                        error.compareAndSet(null, e);
+                        barrier.reset();
+                    }
+                });
+            }
+            for (Thread thread : threads) {
+                thread.start();
+            }
+            for (Thread thread : threads) {
+                thread.join();
+            }
+            if (error.get() != null) {
+                throw error.get();
+            }
+        }
+    }
+}
@@ -0,0 +1,116 @@
+/*
+ * Copyright (c) 2026 Vladimir Sitnikov and JQF Contributors
+ *
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are
+ * met:
+ *
+ * 1. Redistributions of source code must retain the above copyright
+ * notice, this list of conditions and the following disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright
+ * notice, this list of conditions and the following disclaimer in the
+ * documentation and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+ * HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT
+ * LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ * THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package edu.berkeley.cs.jqf.instrument.tracing;
+
+import java.util.concurrent.TimeUnit;
+
+import edu.berkeley.cs.jqf.instrument.tracing.events.TraceEvent;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures how many trace events per second {@link TraceLogger} delivers to
+ * a guidance's callback, with and without {@code jqf.tracing.REUSE_EVENTS}.
+ *
+ * <p>The instruction stream is what an instrumented method with a branch, two
+ * switches and a call in a loop logs. Instrumented methods are usually too
+ * large for the JIT to inline the logger and eliminate its allocations, which
+ * it would do for this small loop, so both forks run without escape analysis.
+ * Run it with, e.g.,
+ * {@code java -cp <test classpath> org.openjdk.jmh.Main TraceLoggerBenchmark -prof gc}
+ * to also report the bytes allocated per event.</p>
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class TraceLoggerBenchmark {
+
+    private static final String OWNER = "edu/berkeley/cs/jqf/instrument/tracing/Target";
+    private static final int[] LABELS = { 1, 2, 3 };
+    private static final int[] KEYS = { 10, 100, 1000 };
+
+    // A branch, two switches, and a call and its return per iteration
+    private static final int ITERATIONS = 16;
+    private static final int EVENTS = ITERATIONS * 5;
+
+    private final TraceLogger logger = TraceLogger.get();
+    private long sink;
+
+    @Setup
+    public void enterTarget() {
+        SingleSnoop.setCallbackGenerator(thread -> this::accept);
+        logger.METHOD_BEGIN(OWNER, "run", "()V");
+    }
+
+    private void accept(TraceEvent e) {
+        // Read the event like a coverage map does, without retaining it
+        sink += e.getIid();
+    }
+
+    private long run() {
+        for (int i = 0; i < ITERATIONS; i++) {
+            logger.GETVALUE_boolean((i & 1) == 0);
+            logger.IFEQ(1, 10, 0);
+            logger.GETVALUE_int(i & 3);
+            logger.TABLESWITCH(2, 11, 0, 2, 0, LABELS);
+            logger.GETVALUE_int(KEYS[i % KEYS.length]);
+            logger.LOOKUPSWITCH(3, 12, 0, KEYS, LABELS);
+            logger.INVOKESTATIC(4, 13, OWNER, "callee", "()V");
+            logger.METHOD_BEGIN(OWNER, "callee", "()V");
+            logger.RETURN(5, 20);
+            logger.INVOKEMETHOD_END();
+        }
+        return sink;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(EVENTS)
+    @Fork(value = 1, jvmArgsAppend = { "-XX:-DoEscapeAnalysis", "-Djqf.tracing.REUSE_EVENTS=false" })
+    public long allocatingEvents() {
+        return run();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(EVENTS)
+    @Fork(value = 1, jvmArgsAppend = { "-XX:-DoEscapeAnalysis", "-Djqf.tracing.REUSE_EVENTS=true" })
+    public long reusingEvents() {
+        return run();
+    }
+}
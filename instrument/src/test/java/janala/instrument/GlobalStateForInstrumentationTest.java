@@ -0,0 +1,67 @@
+package janala.instrument;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class GlobalStateForInstrumentationTest {
+
+  /** Classes instrumented concurrently must never share a fast-coverage ID. */
+  @Test
+  public void concurrentProbesGetDisjointIdRanges() throws InterruptedException {
+    int numThreads = 8;
+    int probesPerThread = 10_000;
+    int[][] firsts = new int[numThreads][probesPerThread];
+    int[][] counts = new int[numThreads][probesPerThread];
+    CountDownLatch start = new CountDownLatch(1);
+    List<Thread> threads = new ArrayList<>();
+    for (int t = 0; t < numThreads; t++) {
+      int thread = t;
+      threads.add(new Thread(() -> {
+        GlobalStateForInstrumentation state = GlobalStateForInstrumentation.forClass("C" + thread);
+        state.beginMethod("m()V");
+        try {
+          start.await();
+        } catch (InterruptedException e) {
+          throw new AssertionError(e);
+        }
+        for (int i = 0; i < probesPerThread; i++) {
+          // Mix single IDs (calls), branch pairs and switches of various sizes
+          int count = i % 3 == 0 ? 1 : i % 3 == 1 ? 2 : 2 + i % 7;
+          firsts[thread][i] = state.allocateFastCoverageIds(count);
+          counts[thread][i] = count;
+        }
+      }));
+    }
+    threads.forEach(Thread::start);
+    start.countDown();
+    for (Thread thread : threads) {
+      thread.join();
+    }
+
+    int min = Integer.MAX_VALUE;
+    int max = Integer.MIN_VALUE;
+    int total = 0;
+    for (int t = 0; t < numThreads; t++) {
+      for (int i = 0; i < probesPerThread; i++) {
+        min = Math.min(min, firsts[t][i]);
+        max = Math.max(max, firsts[t][i] + counts[t][i] - 1);
+        total += counts[t][i];
+      }
+    }
+    boolean[] used = new boolean[max - min + 1];
+    for (int t = 0; t < numThreads; t++) {
+      for (int i = 0; i < probesPerThread; i++) {
+        for (int id = firsts[t][i]; id < firsts[t][i] + counts[t][i]; id++) {
+          Assert.assertFalse("ID " + id + " was allocated twice", used[id - min]);
+          used[id - min] = true;
+        }
+      }
+    }
+    // IDs are dense, so inline counters stay compact
+    Assert.assertEquals(total, used.length);
+  }
+}
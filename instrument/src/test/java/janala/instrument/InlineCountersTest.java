@@ -0,0 +1,151 @@
+package janala.instrument;
+
+import java.util.TreeMap;
+
+import edu.berkeley.cs.jqf.instrument.tracing.FastCoverageSnoop;
+import org.junit.Assert;
+import org.junit.Test;
+import org.objectweb.asm.ClassReader;
+import org.objectweb.asm.ClassVisitor;
+import org.objectweb.asm.ClassWriter;
+import org.objectweb.asm.MethodVisitor;
+import org.objectweb.asm.Opcodes;
+
+public class InlineCountersTest {
+
+  @SuppressWarnings("unused")
+  public static class Sample {
+    public static int run(int x) {
+      int r = 0;
+      if (x > 0) {
+        r = 1;
+      }
+      switch (x) {
+        case 1: r += 2; break;
+        case 2: r += 3; break;
+        default:
+      }
+      switch (x) {
+        case 10: r += 4; break;
+        case 1000: r += 5; break;
+        default:
+      }
+      helper();
+      return r;
+    }
+
+    static void helper() {}
+  }
+
+  private static final int[] INPUTS = { -1, 0, 1, 2, 2, 10, 1000 };
+  private static final String SNOOP = "edu/berkeley/cs/jqf/instrument/tracing/FastCoverageSnoop";
+
+  /** Counts probe hits by key, as the fuzzing guidance's coverage map does. */
+  private static class Hits extends FastCoverageListener.Default {
+    final TreeMap<Integer, Integer> counts = new TreeMap<>();
+    int listenerCalls = 0;
+
+    void add(int key, int count) {
+      counts.merge(key, count, Integer::sum);
+    }
+
+    @Override
+    public void logMethodBegin(int iid) {
+      listenerCalls++;
+      add(iid, 1);
+    }
+
+    @Override
+    public void logJump(int iid, int branch) {
+      listenerCalls++;
+      add(iid + branch, 1);
+    }
+
+    @Override
+    public void logTableSwitch(int value, int iid, int min, int max, int dflt) {
+      listenerCalls++;
+      add(iid + 1 + (value >= min && value <= max ? value - min : 1 + max - min), 1);
+    }
+  }
+
+  /** Instruments {@link Sample} with IDs starting at `firstId` and runs it on every input. */
+  private static Hits run(boolean inline, int firstId, GlobalStateForInstrumentation state) throws Exception {
+    ClassReader cr = new ClassReader(Sample.class.getName());
+    ClassWriter cw = new SafeClassWriter(cr, Sample.class.getClassLoader(),
+        ClassWriter.COMPUTE_FRAMES | ClassWriter.COMPUTE_MAXS);
+    cr.accept(new ClassVisitor(Opcodes.ASM8, cw) {
+      @Override
+      public MethodVisitor visitMethod(int access, String name, String desc, String signature, String[] exceptions) {
+        MethodVisitor mv = new MethodVisitor(Opcodes.ASM8, super.visitMethod(access, name, desc, signature, exceptions)) {
+          @Override
+          public void visitMethodInsn(int opcode, String owner, String name, String desc, boolean itf) {
+            // Probes call the configured snoop, which is not the fast-coverage one in this JVM
+            super.visitMethodInsn(opcode, owner.equals(Config.instance.analysisClass) ? SNOOP : owner, name, desc, itf);
+          }
+        };
+        return new FastCoverageMethodAdapter(mv, cr.getClassName(), name, desc, cr.getSuperName(),
+            state, null, null, inline);
+      }
+    }, 0);
+    byte[] bytes = cw.toByteArray();
+    Class<?> instrumented = new ClassLoader(Sample.class.getClassLoader()) {
+      Class<?> define() {
+        return defineClass(Sample.class.getName(), bytes, 0, bytes.length);
+      }
+    }.define();
+
+    int[] inlineCounters = FastCoverageSnoop.INLINE_COUNTERS;
+    Hits hits = new Hits();
+    FastCoverageListener previous = FastCoverageSnoop.getFastCoverageListener();
+    FastCoverageSnoop.setFastCoverageListener(hits);
+    try {
+      for (int x : INPUTS) {
+        instrumented.getMethod("run", int.class).invoke(null, x);
+      }
+    } finally {
+      FastCoverageSnoop.setFastCoverageListener(previous);
+    }
+    for (int key = firstId; key < inlineCounters.length; key++) {
+      if (inlineCounters[key] != 0) {
+        hits.add(key, inlineCounters[key]);
+        inlineCounters[key] = 0;
+      }
+    }
+    return hits;
+  }
+
+  private static GlobalStateForInstrumentation idsFrom(int firstId) {
+    return new GlobalStateForInstrumentation() {
+      private int next = firstId;
+
+      @Override
+      public int allocateFastCoverageIds(int count) {
+        int first = next;
+        next += count;
+        return first;
+      }
+    };
+  }
+
+  @Test
+  public void inlineProbesCountLikeListenerProbes() throws Exception {
+    Hits expected = run(false, 100, idsFrom(100));
+    GlobalStateForInstrumentation state = idsFrom(100);
+    Hits actual = run(true, 100, state);
+    Assert.assertFalse(expected.counts.isEmpty());
+    Assert.assertEquals(expected.counts, actual.counts);
+    Assert.assertEquals(0, actual.listenerCalls);
+    Assert.assertTrue(state.getInlineCountersInUse() > actual.counts.lastKey());
+  }
+
+  @Test
+  public void probesPastTheInlineCountersCallTheListener() throws Exception {
+    int firstId = FastCoverageSnoop.INLINE_COUNTERS.length - 3;
+    Hits expected = run(false, firstId, idsFrom(firstId));
+    GlobalStateForInstrumentation state = idsFrom(firstId);
+    Hits actual = run(true, firstId, state);
+    Assert.assertEquals(expected.counts, actual.counts);
+    Assert.assertTrue(actual.listenerCalls > 0);
+    Assert.assertEquals(FastCoverageSnoop.INLINE_COUNTERS.length, state.getInlineCountersInUse());
+  }
+}
@@ -0,0 +1,97 @@
+package janala.instrument;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class InstrumentationCacheTest {
+
+  @Rule
+  public TemporaryFolder folder = new TemporaryFolder();
+
+  private String dir() {
+    return folder.getRoot().getPath();
+  }
+
+  private File pack() {
+    return new File(folder.getRoot(), "instrumentation.cache");
+  }
+
+  private static byte[] bytes(String s) {
+    return s.getBytes(StandardCharsets.UTF_8);
+  }
+
+  private static void assertCached(InstrumentationCache cache, String original, String instrumented) {
+    Assert.assertArrayEquals(original, bytes(instrumented), cache.get(cache.keyOf(bytes(original))));
+  }
+
+  private static void put(InstrumentationCache cache, String original, String instrumented) throws IOException {
+    cache.put(cache.keyOf(bytes(original)), bytes(instrumented));
+  }
+
+  @Test
+  public void reopenedCacheKeepsItsRecords() throws IOException {
+    InstrumentationCache cache = InstrumentationCache.open(dir());
+    put(cache, "A", "instrumented A");
+    put(cache, "B", "instrumented B");
+    assertCached(cache, "A", "instrumented A");
+    Assert.assertNull(cache.get(cache.keyOf(bytes("C"))));
+
+    InstrumentationCache reopened = InstrumentationCache.open(dir());
+    assertCached(reopened, "A", "instrumented A");
+    assertCached(reopened, "B", "instrumented B");
+    Assert.assertNull(reopened.get(reopened.keyOf(bytes("C"))));
+  }
+
+  @Test
+  public void packFileHoldsAHeaderAndOneRecordPerClass() throws IOException {
+    InstrumentationCache cache = InstrumentationCache.open(dir());
+    put(cache, "A", "instrumented A");
+    put(cache, "A", "instrumented A");  // Already cached, so not appended again
+
+    ByteBuffer pack = ByteBuffer.wrap(Files.readAllBytes(pack().toPath()));
+    Assert.assertEquals(0x4a514643, pack.getInt());
+    Assert.assertEquals(1, pack.getInt());
+    byte[] key = new byte[32];
+    pack.get(key);
+    Assert.assertEquals(cache.keyOf(bytes("A")), ByteBuffer.wrap(key));
+    byte[] value = new byte[pack.getInt()];
+    pack.get(value);
+    Assert.assertArrayEquals(bytes("instrumented A"), value);
+    Assert.assertFalse(pack.hasRemaining());
+  }
+
+  @Test
+  public void truncatedRecordIsDroppedAndLaterRecordsAreReadBack() throws IOException {
+    InstrumentationCache cache = InstrumentationCache.open(dir());
+    put(cache, "A", "instrumented A");
+    put(cache, "B", "instrumented B");
+    // Simulate a JVM that died while appending B
+    try (RandomAccessFile file = new RandomAccessFile(pack(), "rw")) {
+      file.setLength(file.length() - 3);
+    }
+
+    InstrumentationCache reopened = InstrumentationCache.open(dir());
+    assertCached(reopened, "A", "instrumented A");
+    Assert.assertNull(reopened.get(reopened.keyOf(bytes("B"))));
+    put(reopened, "C", "instrumented C");
+
+    InstrumentationCache again = InstrumentationCache.open(dir());
+    assertCached(again, "A", "instrumented A");
+    assertCached(again, "C", "instrumented C");
+  }
+
+  @Test
+  public void unrecognizedPackIsNotUsed() throws IOException {
+    Files.write(pack().toPath(), bytes("not a cache"));
+    Assert.assertNull(InstrumentationCache.open(dir()));
+  }
+}
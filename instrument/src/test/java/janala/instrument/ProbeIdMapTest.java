@@ -0,0 +1,90 @@
+package janala.instrument;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class ProbeIdMapTest {
+
+  @Rule
+  public TemporaryFolder folder = new TemporaryFolder();
+
+  private String path() {
+    return new File(folder.getRoot(), "probes.ids").getPath();
+  }
+
+  @Test
+  public void reopenedMapKeepsItsIds() {
+    ProbeIdMap map = ProbeIdMap.open(path());
+    Assert.assertEquals(1, map.idsOf("Foo#bar(I)V#0", 1));
+    Assert.assertEquals(2, map.idsOf("Foo#bar(I)V#1", 2));
+    Assert.assertEquals(4, map.idsOf("Baz#<init>()V#0", 3));
+
+    ProbeIdMap reopened = ProbeIdMap.open(path());
+    Assert.assertEquals(map.getMapId(), reopened.getMapId());
+    Assert.assertEquals(4, reopened.idsOf("Baz#<init>()V#0", 3));
+    Assert.assertEquals(1, reopened.idsOf("Foo#bar(I)V#0", 1));
+    Assert.assertEquals(2, reopened.idsOf("Foo#bar(I)V#1", 2));
+    // New probes continue after the recorded ones
+    Assert.assertEquals(7, reopened.idsOf("Foo#qux()V#0", 1));
+  }
+
+  @Test
+  public void recreatedMapGetsANewId() throws IOException {
+    String mapId = ProbeIdMap.open(path()).getMapId();
+    Files.delete(new File(path()).toPath());
+    Assert.assertNotEquals(mapId, ProbeIdMap.open(path()).getMapId());
+  }
+
+  @Test
+  public void changedProbeGetsNewIds() {
+    ProbeIdMap map = ProbeIdMap.open(path());
+    Assert.assertEquals(1, map.idsOf("Foo#sw(I)V#0", 2));
+    Assert.assertEquals(3, map.idsOf("Foo#sw(I)V#1", 1));
+
+    // The switch gained an arm, so its old IDs cannot be reused
+    Assert.assertEquals(4, map.idsOf("Foo#sw(I)V#0", 3));
+    Assert.assertEquals(4, map.idsOf("Foo#sw(I)V#0", 3));
+
+    // The later line supersedes the earlier one
+    ProbeIdMap reopened = ProbeIdMap.open(path());
+    Assert.assertEquals(4, reopened.idsOf("Foo#sw(I)V#0", 3));
+    Assert.assertEquals(3, reopened.idsOf("Foo#sw(I)V#1", 1));
+    Assert.assertEquals(7, reopened.idsOf("Foo#sw(I)V#2", 1));
+  }
+
+  @Test
+  public void instancesSharingAFileAgree() {
+    // As if opened by two processes
+    ProbeIdMap first = ProbeIdMap.open(path());
+    ProbeIdMap second = ProbeIdMap.open(path());
+    Assert.assertEquals(first.getMapId(), second.getMapId());
+
+    Assert.assertEquals(1, first.idsOf("A#m()V#0", 1));
+    // Each reads what the other appended before assigning an ID
+    Assert.assertEquals(1, second.idsOf("A#m()V#0", 1));
+    Assert.assertEquals(2, second.idsOf("B#m()V#0", 2));
+    Assert.assertEquals(4, first.idsOf("C#m()V#0", 4));
+    Assert.assertEquals(2, first.idsOf("B#m()V#0", 2));
+    Assert.assertEquals(8, second.idsOf("D#m()V#0", 1));
+    Assert.assertEquals(4, second.idsOf("C#m()V#0", 4));
+
+    ProbeIdMap third = ProbeIdMap.open(path());
+    Assert.assertEquals(1, third.idsOf("A#m()V#0", 1));
+    Assert.assertEquals(2, third.idsOf("B#m()V#0", 2));
+    Assert.assertEquals(4, third.idsOf("C#m()V#0", 4));
+    Assert.assertEquals(8, third.idsOf("D#m()V#0", 1));
+  }
+
+  @Test(expected = RuntimeException.class)
+  public void rejectsFilesWithoutAHeader() throws IOException {
+    Files.write(new File(path()).toPath(), "1 1 Foo#bar()V#0\n".getBytes(StandardCharsets.UTF_8));
+    ProbeIdMap.open(path());
+  }
+}
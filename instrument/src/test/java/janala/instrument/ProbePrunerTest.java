@@ -0,0 +1,190 @@
+package janala.instrument;
+
+import java.io.IOException;
+import java.util.Map;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.objectweb.asm.ClassReader;
+
+import static janala.instrument.ProbePruner.OWN_PROBE;
+import static janala.instrument.ProbePruner.SOURCE_BRANCH;
+import static janala.instrument.ProbePruner.SOURCE_CALL;
+import static janala.instrument.ProbePruner.SOURCE_SWITCH;
+import static janala.instrument.ProbePruner.source;
+
+public class ProbePrunerTest {
+
+  /**
+   * Methods whose expected arrays list the fall-through and taken arm of
+   * each conditional jump, in order of appearance.
+   */
+  @SuppressWarnings("unused")
+  static class Sample {
+    int field;
+
+    void ifElse(boolean x) {
+      if (x) {      // branch 0: IFEQ to the else part
+        a();        // call 0
+      } else {
+        b();        // call 1
+      }
+      c();
+    }
+
+    void ifOnly(boolean x) {
+      a();          // call 0
+      if (x) {      // branch 0
+        b();        // call 1
+      }
+      c();          // call 2, also reached by falling through b()
+    }
+
+    void nested(int x, int y) {
+      if (x > 0) {    // branch 0
+        if (y > 0) {  // branch 1
+          a();        // call 0
+        }
+      }
+    }
+
+    void loop(int n) {
+      for (int i = 0; i < n; i++) {  // branch 0 at the top, jumping out of the loop
+        a();                         // call 0
+      }
+      b();                           // call 1
+    }
+
+    void throwsBeforeCall(int[] array, int x) {
+      if (x > 0) {           // branch 0
+        array[0] = x / 2;    // array stores may throw
+        a();
+      }
+      if (x > 1) {           // branch 1
+        field = x;           // field accesses may throw
+        a();
+      }
+      if (x > 2) {           // branch 2
+        x = x * 2 + 1;       // arithmetic other than integer division does not
+        a();                 // call 2
+      }
+      if (x > 3) {           // branch 3
+        x = x / 0;           // integer division may throw
+        a();
+      }
+    }
+
+    void tryCatch(boolean x) {
+      try {
+        if (x) {     // branch 0
+          a();       // call 0
+        }
+      } catch (RuntimeException e) {
+        b();
+      }
+    }
+
+    void switchAfterBranch(boolean x, int y) {
+      if (x) {               // branch 0
+        switch (y) {         // switch 0
+          case 1:
+            a();
+            break;
+          default:
+            b();
+        }
+      }
+    }
+
+    void chainedBranches(int x, int y) {
+      if (x > 0) {         // branch 0, falls through to branch 1
+        if (y > 0) {       // branch 1
+          a();             // call 0
+        } else {
+          b();             // call 1
+        }
+      }
+    }
+
+    void branchBeforeBranch(int x, int y) {
+      if (x > 0) {         // branch 0, falls through to branch 1
+        if (y > 0) {       // branch 1
+          field = y;
+        }
+      }
+    }
+
+    Sample() {
+      super();
+      a();
+    }
+
+    void a() {}
+    void b() {}
+    void c() {}
+  }
+
+  private static Map<String, int[]> analyze() throws IOException {
+    return ProbePruner.analyze(new ClassReader(Sample.class.getName()));
+  }
+
+  private static void assertSources(String method, int... expected) throws IOException {
+    Assert.assertArrayEquals(method, expected, analyze().get(method));
+  }
+
+  @Test
+  public void armsLeadingToCallsAreCountedByTheirProbes() throws IOException {
+    assertSources("ifElse(Z)V", source(SOURCE_CALL, 0), source(SOURCE_CALL, 1));
+  }
+
+  @Test
+  public void armsWithOtherWaysInKeepTheirProbes() throws IOException {
+    // The taken arm jumps to c(), which b() also falls through to
+    assertSources("ifOnly(Z)V", source(SOURCE_CALL, 1), OWN_PROBE);
+    // Both taken arms jump to the method's end
+    assertSources("nested(II)V", OWN_PROBE, OWN_PROBE, source(SOURCE_CALL, 0), OWN_PROBE);
+  }
+
+  @Test
+  public void loopConditionsAreCountedByTheBodyAndTheExit() throws IOException {
+    // The back edge jumps to the condition, not to either arm
+    assertSources("loop(I)V", source(SOURCE_CALL, 0), source(SOURCE_CALL, 1));
+  }
+
+  @Test
+  public void instructionsThatMayThrowKeepTheirArmsProbes() throws IOException {
+    assertSources("throwsBeforeCall([II)V",
+        OWN_PROBE, OWN_PROBE,
+        OWN_PROBE, OWN_PROBE,
+        source(SOURCE_CALL, 2), OWN_PROBE,
+        OWN_PROBE, OWN_PROBE);
+  }
+
+  @Test
+  public void callsInTryBlocksStillCountTheirArms() throws IOException {
+    // The call's probe runs before the call, so a caught exception does not matter
+    assertSources("tryCatch(Z)V", source(SOURCE_CALL, 0), OWN_PROBE);
+  }
+
+  @Test
+  public void armsLeadingToSwitchesAreCountedByTheirArms() throws IOException {
+    assertSources("switchAfterBranch(ZI)V", source(SOURCE_SWITCH, 0), OWN_PROBE);
+  }
+
+  @Test
+  public void armsLeadingToBranchesAreCountedByBothOfTheirArms() throws IOException {
+    assertSources("branchBeforeBranch(II)V", source(SOURCE_BRANCH, 1), OWN_PROBE, OWN_PROBE, OWN_PROBE);
+  }
+
+  @Test
+  public void armsAreNotDerivedFromPrunedArms() throws IOException {
+    // Branch 0 falls through to branch 1, whose arms are both pruned
+    assertSources("chainedBranches(II)V", OWN_PROBE, OWN_PROBE, source(SOURCE_CALL, 0), source(SOURCE_CALL, 1));
+  }
+
+  @Test
+  public void methodsWithoutBranchesHaveNothingToPrune() throws IOException {
+    assertSources("<init>()V");
+    assertSources("a()V");
+  }
+}
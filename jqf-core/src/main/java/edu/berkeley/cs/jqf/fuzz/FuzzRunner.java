@@ -34,15 +34,18 @@ import java.io.EOFException;
 import java.lang.reflect.Method;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.Iterator;
 import java.util.List;
 import java.util.ServiceLoader;
+import java.util.function.Supplier;
 
 import edu.berkeley.cs.jqf.fuzz.difffuzz.DiffFuzz;
 import edu.berkeley.cs.jqf.fuzz.difffuzz.DiffFuzzGuidance;
 import edu.berkeley.cs.jqf.fuzz.difffuzz.DiffTrialExecutor;
 import edu.berkeley.cs.jqf.fuzz.guidance.Guidance;
 import edu.berkeley.cs.jqf.fuzz.guidance.GuidanceException;
+import edu.berkeley.cs.jqf.fuzz.guidance.ParallelGuidance;
 import edu.berkeley.cs.jqf.fuzz.guidance.Result;
 import edu.berkeley.cs.jqf.fuzz.spi.ArgumentsGenerator;
 import edu.berkeley.cs.jqf.fuzz.spi.ArgumentsGeneratorFactory;
@@ -123,6 +126,7 @@ public final class FuzzRunner {
         List<Throwable> failures = new ArrayList<>();
         boolean observe = System.getProperty("jqfObservability") != null;
 
+        Throwable stopped = null;
         try {
             while (guidance.hasInput()) {
                 Result result = INVALID;
@@ -186,7 +190,7 @@ public final class FuzzRunner {
                 }
                 long endTrialTime = System.currentTimeMillis();
 
-                if (observe) {
+                if (observe && observability.shouldRecord()) {
                     observability.addStatus(result);
                     if (result == SUCCESS) {
                         observability.addTiming(startTrialTime, endGenerationTime, endTrialTime);
@@ -207,7 +211,23 @@ public final class FuzzRunner {
             }
         } catch (GuidanceException e) {
             System.err.println("Fuzzing stopped due to guidance exception: " + e.getMessage());
+            stopped = e;
             throw e;
+        } catch (Throwable e) {
+            stopped = e;
+            throw e;
+        } finally {
+            if (observe) {
+                try {
+                    observability.close();
+                } catch (RuntimeException e) {
+                    // Do not hide the reason that fuzzing stopped
+                    if (stopped == null) {
+                        throw e;
+                    }
+                    stopped.addSuppressed(e);
+                }
+            }
         }
 
         if (!failures.isEmpty()) {
@@ -271,6 +291,84 @@ public final class FuzzRunner {
         SingleSnoop.setCallbackGenerator(guidance::generateCallBack);
         TraceLogger.get().remove();
 
+        Observability observability =
+                new Observability(testClass.getName(), testMethod, System.currentTimeMillis());
+        FuzzRunner runner = create(testClass, testMethod, guidance, observability);
+
+        List<Throwable> failures = new ArrayList<>();
+        try {
+            SingleSnoop.startSnooping(testClass.getName() + "#" + testMethod);
+            runner.run();
+        } catch (MultipleFailuresError e) {
+            failures.addAll(e.getFailures());
+        } catch (Throwable e) {
+            failures.add(e);
+        } finally {
+            TraceLogger.get().remove();
+        }
+        return new FuzzResult(failures);
+    }
+
+    /**
+     * Runs a fuzzing campaign for a test method on several worker threads.
+     *
+     * <p>Each worker loads the test class through the class loader returned by
+     * {@code loaders}, so a supplier that creates a fresh instrumenting loader per
+     * call isolates the static state of the target between workers. The workers run
+     * the usual fuzzing loop against their own view of the shared guidance, until
+     * the guidance stops offering input to all of them.
+     *
+     * @param testClassName the fully qualified test class name
+     * @param testMethod    the {@code @Fuzz} method to run
+     * @param loaders       supplies the class loader for each worker
+     * @param guidance      the guidance shared by all workers
+     * @param numWorkers    the number of worker threads
+     * @return the campaign result, with the failures of all workers
+     * @throws InterruptedException if interrupted while waiting for the workers
+     */
+    public static FuzzResult runParallel(String testClassName, String testMethod, Supplier<ClassLoader> loaders,
+                                         ParallelGuidance guidance, int numWorkers) throws InterruptedException {
+        if (numWorkers < 1) {
+            throw new IllegalArgumentException("Number of workers must be positive: " + numWorkers);
+        }
+        SingleSnoop.setCallbackGenerator(guidance::generateCallBack);
+        // All workers write to the same observations file, so they share one collector
+        Observability observability =
+                new Observability(testClassName, testMethod, System.currentTimeMillis());
+
+        List<Throwable> failures = Collections.synchronizedList(new ArrayList<>());
+        Thread[] workers = new Thread[numWorkers];
+        for (int i = 0; i < numWorkers; i++) {
+            int workerId = i;
+            ClassLoader loader = loaders.get();
+            workers[i] = new Thread(() -> {
+                TraceLogger.get().remove();
+                try {
+                    Guidance worker = guidance.newWorker(workerId);
+                    Thread.currentThread().setContextClassLoader(loader);
+                    Class<?> testClass = Class.forName(testClassName, true, loader);
+                    FuzzRunner runner = create(testClass, testMethod, worker, observability);
+                    observability.initializeTestCase();
+                    SingleSnoop.startSnooping(testClass.getName() + "#" + testMethod);
+                    runner.run();
+                } catch (MultipleFailuresError e) {
+                    failures.addAll(e.getFailures());
+                } catch (Throwable e) {
+                    failures.add(e);
+                } finally {
+                    TraceLogger.get().remove();
+                }
+            }, "jqf-worker-" + i);
+            workers[i].start();
+        }
+        for (Thread worker : workers) {
+            worker.join();
+        }
+        return new FuzzResult(failures);
+    }
+
+    private static FuzzRunner create(Class<?> testClass, String testMethod, Guidance guidance,
+                                     Observability observability) {
         Method method = findFuzzMethod(testClass, testMethod);
 
         ArgumentsGenerator argumentsGenerator =
@@ -284,22 +382,9 @@ public final class FuzzRunner {
 
         List<Class<?>> expectedExceptions = Arrays.asList(method.getExceptionTypes());
         boolean skipExceptionSwallow = Boolean.getBoolean("jqf.failOnDeclaredExceptions");
-        Observability observability =
-                new Observability(testClass.getName(), method.getName(), System.currentTimeMillis());
 
-        List<Throwable> failures = new ArrayList<>();
-        try {
-            SingleSnoop.startSnooping(testClass.getName() + "#" + testMethod);
-            new FuzzRunner(argumentsGenerator, trialExecutor, guidance,
-                    framework.classifier(), expectedExceptions, observability, skipExceptionSwallow).run();
-        } catch (MultipleFailuresError e) {
-            failures.addAll(e.getFailures());
-        } catch (Throwable e) {
-            failures.add(e);
-        } finally {
-            TraceLogger.get().remove();
-        }
-        return new FuzzResult(failures);
+        return new FuzzRunner(argumentsGenerator, trialExecutor, guidance,
+                framework.classifier(), expectedExceptions, observability, skipExceptionSwallow);
     }
 
     private static Method findFuzzMethod(Class<?> testClass, String testMethod) {
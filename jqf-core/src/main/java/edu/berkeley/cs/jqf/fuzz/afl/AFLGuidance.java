@@ -31,6 +31,7 @@ package edu.berkeley.cs.jqf.fuzz.afl;
 
 import java.io.BufferedInputStream;
 import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileOutputStream;
@@ -40,14 +41,17 @@ import java.io.OutputStream;
 import java.nio.Buffer;
 import java.nio.ByteBuffer;
 import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
 import java.util.Arrays;
-import java.util.Date;
 import java.util.function.Consumer;
 
 import edu.berkeley.cs.jqf.fuzz.guidance.Guidance;
 import edu.berkeley.cs.jqf.fuzz.guidance.GuidanceException;
 import edu.berkeley.cs.jqf.fuzz.guidance.Result;
 import edu.berkeley.cs.jqf.fuzz.guidance.TimeoutException;
+import edu.berkeley.cs.jqf.fuzz.guidance.TimeoutWatchdog;
 import edu.berkeley.cs.jqf.fuzz.util.Hashing;
 import edu.berkeley.cs.jqf.instrument.tracing.events.BranchEvent;
 import edu.berkeley.cs.jqf.instrument.tracing.events.CallEvent;
@@ -63,6 +67,14 @@ import edu.berkeley.cs.jqf.instrument.tracing.events.TraceEvent;
  * helps populate the shared memory coverage buffer that the JVM cannot
  * access.
  *
+ * <p>If the system property <code>jqf.afl.TRACE_BITS_FILE</code> is set,
+ * the trace bits are instead kept in a file that is memory-mapped by
+ * both this guidance and the proxy (which finds it through the
+ * environment variable <code>JQF_TRACE_BITS_FILE</code>). Coverage is then
+ * written in place and only the 4-byte status crosses the pipe; the proxy
+ * copies the mapped bits straight into AFL's shared memory. In this
+ * mode, each input file is also read in one go into a reused buffer.
+ *
  * @author Rohan Padhye and Caroline Lemieux
  */
 public class AFLGuidance implements Guidance {
@@ -82,6 +94,15 @@ public class AFLGuidance implements Guidance {
     /** The "coverage" map that will be sent to AFL. */
     protected byte[] traceBits = new byte[COVERAGE_MAP_SIZE];
 
+    /**
+     * The "coverage" map shared with the AFL proxy, or null if sent through
+     * the pipe. When set, {@link #traceBits} is unused and stays zero.
+     */
+    protected MappedByteBuffer mappedTraceBits;
+
+    /** A buffer reused across runs for input file contents (shared-memory mode only). */
+    private byte[] inputBytes = new byte[0];
+
     /** Whether to keep executing more inputs. */
     protected boolean everything_ok = true;
 
@@ -94,11 +115,8 @@ public class AFLGuidance implements Guidance {
     /** Timeout for an individual run. */
     private long singleRunTimeoutMillis;
 
-    /** Date when last run was started. */
-    private Date runStart;
-
-    /** Number of conditional jumps since last run was started. */
-    private long branchCount;
+    /** Flags runs that exceed the timeout, or {@code null} if there is no timeout. */
+    private TimeoutWatchdog timeoutWatchdog;
 
     /** Flag that is set if the current run exceeds time limit. */
     private volatile boolean timeoutHasOccurred;
@@ -116,6 +134,17 @@ public class AFLGuidance implements Guidance {
      */
     public AFLGuidance(File inputFile, File inPipe, File outPipe) throws IOException {
         this.inputFile = inputFile;
+
+        // Map the shared trace bits before opening the pipes, so that
+        // the file exists by the time the proxy is connected
+        String traceBitsFile = System.getProperty("jqf.afl.TRACE_BITS_FILE");
+        if (traceBitsFile != null && !traceBitsFile.isEmpty()) {
+            try (FileChannel channel = FileChannel.open(new File(traceBitsFile).toPath(),
+                    StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+                this.mappedTraceBits = channel.map(FileChannel.MapMode.READ_WRITE, 0, COVERAGE_MAP_SIZE);
+            }
+        }
+
         this.proxyInput = new BufferedInputStream(new FileInputStream(inPipe));
         this.proxyOutput = new BufferedOutputStream(new FileOutputStream(outPipe));
         this.feedback = ByteBuffer.allocate(FEEDBACK_BUFFER_SIZE);
@@ -131,6 +160,9 @@ public class AFLGuidance implements Guidance {
                 throw new IllegalArgumentException("Invalid timeout duration: " + timeout);
             }
         }
+        if (this.singleRunTimeoutMillis > 0) {
+            this.timeoutWatchdog = new TimeoutWatchdog(this.singleRunTimeoutMillis);
+        }
     }
 
     /**
@@ -190,9 +222,14 @@ public class AFLGuidance implements Guidance {
         }
 
         try {
-            this.inputFileStream = new BufferedInputStream(new FileInputStream(this.inputFile));
-            this.runStart = new Date();
-            this.branchCount = 0;
+            if (mappedTraceBits != null) {
+                this.inputFileStream = readInputFile();
+            } else {
+                this.inputFileStream = new BufferedInputStream(new FileInputStream(this.inputFile));
+            }
+            if (timeoutWatchdog != null) {
+                timeoutWatchdog.arm();
+            }
             this.timeoutHasOccurred = false;
             return this.inputFileStream;
         } catch (IOException e) {
@@ -200,6 +237,24 @@ public class AFLGuidance implements Guidance {
         }
     }
 
+    /**
+     * Reads the whole input file into a reused buffer.
+     *
+     * <p>AFL re-creates the input file for every run, so it cannot be
+     * mapped once and for all.</p>
+     */
+    private InputStream readInputFile() throws IOException {
+        try (FileChannel channel = FileChannel.open(this.inputFile.toPath(), StandardOpenOption.READ)) {
+            int size = (int) channel.size();
+            if (inputBytes.length < size) {
+                inputBytes = new byte[Math.max(size, inputBytes.length * 2)];
+            }
+            ByteBuffer buffer = ByteBuffer.wrap(inputBytes, 0, size);
+            while (buffer.hasRemaining() && channel.read(buffer) >= 0);
+            return new ByteArrayInputStream(inputBytes, 0, buffer.position());
+        }
+    }
+
     /**
      * Waits for the AFL proxy to send a ready signal.
      *
@@ -218,7 +273,12 @@ public class AFLGuidance implements Guidance {
                 }
 
                 // Reset trace-bits
-                Arrays.fill(traceBits, (byte) 0);
+                if (mappedTraceBits != null) {
+                    ((Buffer) mappedTraceBits).rewind();
+                    mappedTraceBits.put(traceBits);
+                } else {
+                    Arrays.fill(traceBits, (byte) 0);
+                }
 
             } catch (IOException e) {
                 everything_ok = false;
@@ -248,7 +308,9 @@ public class AFLGuidance implements Guidance {
     @Override
     public void handleResult(Result result, Throwable error) {
         // Stop timeout handling
-        this.runStart = null;
+        if (timeoutWatchdog != null) {
+            timeoutWatchdog.disarm();
+        }
 
         // Change result if timeout has occurred
         if (timeoutHasOccurred) {
@@ -269,7 +331,13 @@ public class AFLGuidance implements Guidance {
 
         // Set at least one tracebit so that AFL doesn't complain about
         // no instrumentation
-        traceBits[0] = traceBits[0] == 0 ? 1 : traceBits[0];
+        if (mappedTraceBits != null) {
+            if (mappedTraceBits.get(0) == 0) {
+                mappedTraceBits.put(0, (byte) 1);
+            }
+        } else {
+            traceBits[0] = traceBits[0] == 0 ? 1 : traceBits[0];
+        }
 
 
         // Check result and set status value
@@ -319,9 +387,9 @@ public class AFLGuidance implements Guidance {
         // Send the status value to AFL
         feedback.putInt(status);
 
-        // Send trace-bits to AFL as a contiguous array
-        for (int i = 0; i < COVERAGE_MAP_SIZE; i++) {
-            feedback.put(traceBits[i]);
+        // Send trace-bits to AFL as a contiguous array, unless already shared
+        if (mappedTraceBits == null) {
+            feedback.put(traceBits);
         }
 
 
@@ -388,7 +456,11 @@ public class AFLGuidance implements Guidance {
      * @param index the key in the trace bits map
      */
     protected void incrementTraceBits(int index) {
-        traceBits[index]++;
+        if (mappedTraceBits != null) {
+            mappedTraceBits.put(index, (byte) (mappedTraceBits.get(index) + 1));
+        } else {
+            traceBits[index]++;
+        }
     }
 
 
@@ -403,13 +475,9 @@ public class AFLGuidance implements Guidance {
     }
 
     protected void checkForTimeouts() throws TimeoutException {
-        if (this.singleRunTimeoutMillis > 0 &&
-                this.runStart != null && (++this.branchCount) % 10_000 == 0) {
-            long elapsed = new Date().getTime() - runStart.getTime();
-            if (elapsed > this.singleRunTimeoutMillis) {
-                timeoutHasOccurred = true;
-                throw new TimeoutException(elapsed, this.singleRunTimeoutMillis);
-            }
+        if (timeoutWatchdog != null && timeoutWatchdog.hasExpired()) {
+            timeoutHasOccurred = true;
+            timeoutWatchdog.checkTimeout();
         }
     }
 
@@ -0,0 +1,199 @@
+/*
+ * Copyright (c) 2026 Vladimir Sitnikov and JQF Contributors
+ *
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are
+ * met:
+ *
+ * 1. Redistributions of source code must retain the above copyright
+ * notice, this list of conditions and the following disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright
+ * notice, this list of conditions and the following disclaimer in the
+ * documentation and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+ * HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT
+ * LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ * THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package edu.berkeley.cs.jqf.fuzz.ei;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import edu.berkeley.cs.jqf.fuzz.ei.ZestGuidance.Input;
+import edu.berkeley.cs.jqf.fuzz.util.WeightedSampler;
+import org.eclipse.collections.api.iterator.IntIterator;
+import org.eclipse.collections.api.list.primitive.IntList;
+import org.eclipse.collections.impl.map.mutable.primitive.IntIntHashMap;
+
+/**
+ * A parent schedule that samples parents in proportion to an energy score,
+ * in the style of AFLFast and Entropic.
+ *
+ * <p>The weight of a saved input is the product of three factors:</p>
+ * <ul>
+ *     <li>Rarity: the sum, over the coverage keys it hits, of one over the
+ *     number of saved inputs that hit the same key. Inputs that are the only
+ *     way to reach some code score highest.</li>
+ *     <li>Yield: one plus a moving average of how many children were saved
+ *     per selection of the input. Fresh inputs start with an average of one,
+ *     and stale parents decay back to a factor of one.</li>
+ *     <li>Speed: the average execution time of all runs divided by that of
+ *     the input's children, clamped to [{@value #MIN_SPEED}, {@value #MAX_SPEED}].</li>
+ * </ul>
+ *
+ * <p>Weights live in a {@link WeightedSampler}, so a selection costs
+ * O(log n) rather than a walk over the queue. Rarity depends on the whole
+ * queue, so it is recomputed for the parent when its children are done, and
+ * for every input once per cycle (as many selections as there are inputs).</p>
+ *
+ * <p>Enable with <code>-Djqf.ei.SCHEDULE=energy</code>.</p>
+ */
+public class EnergySchedule implements ParentSchedule {
+
+    /** Bounds on the speed factor. */
+    protected static final double MIN_SPEED = 0.1, MAX_SPEED = 10;
+
+    /** The yield average of a freshly saved input. */
+    protected static final double INITIAL_YIELD = 1.0;
+
+    /** The smoothing factor of the execution-time averages. */
+    protected static final double TIME_SMOOTHING = 0.1;
+
+    /** Per-input statistics, indexed like the queue. */
+    protected static class Stats {
+        IntList covered;
+        double avgNanos;
+        double yield = INITIAL_YIELD;
+        int children;
+        int saved;
+    }
+
+    /** The number of children generated per selection. */
+    protected final int childrenPerSelection;
+
+    protected final List<Stats> stats = new ArrayList<>();
+    protected final WeightedSampler sampler = new WeightedSampler();
+
+    /** The number of saved inputs that hit each coverage key. */
+    protected final IntIntHashMap keyHits = new IntIntHashMap();
+
+    /** Average execution time of all runs, or 0 before the first run. */
+    protected double avgNanos = 0;
+
+    /** The parent whose children are running, or -1 before the first child. */
+    protected int current = -1;
+
+    /** Selections since all weights were last recomputed. */
+    protected int selectionsSinceRefresh = 0;
+
+    /**
+     * @param childrenPerSelection the number of children to generate
+     *                             from a parent each time it is selected
+     */
+    public EnergySchedule(int childrenPerSelection) {
+        if (childrenPerSelection <= 0) {
+            throw new IllegalArgumentException("Children per selection must be positive");
+        }
+        this.childrenPerSelection = childrenPerSelection;
+    }
+
+    @Override
+    public void inputSaved(int idx, Input<?> input, long nanos) {
+        Stats s = new Stats();
+        s.covered = input.coverage.getCovered();
+        s.avgNanos = nanos;
+        if (idx < stats.size()) {
+            // The input replaces another one
+            updateKeyHits(stats.get(idx).covered, -1);
+            stats.set(idx, s);
+        } else if (idx == stats.size()) {
+            stats.add(s);
+            sampler.add(0);
+        } else {
+            throw new IllegalArgumentException("Input saved out of order: " + idx);
+        }
+        updateKeyHits(s.covered, +1);
+        updateAverage(nanos);
+        sampler.set(idx, weight(s));
+    }
+
+    @Override
+    public int selectParent(Random random) {
+        if (current >= 0) {
+            // Fold the parent's children into its yield and refresh its weight
+            Stats s = stats.get(current);
+            if (s.children > 0) {
+                s.yield = (s.yield + s.saved) / 2;
+                s.children = 0;
+                s.saved = 0;
+            }
+            sampler.set(current, weight(s));
+        }
+        if (++selectionsSinceRefresh >= stats.size()) {
+            for (int i = 0; i < stats.size(); i++) {
+                sampler.set(i, weight(stats.get(i)));
+            }
+            selectionsSinceRefresh = 0;
+        }
+        current = sampler.sample(random);
+        return current;
+    }
+
+    @Override
+    public int getEnergy(int idx) {
+        return childrenPerSelection;
+    }
+
+    @Override
+    public void childExecuted(int idx, long nanos, boolean saved) {
+        current = idx; // Zest fuzzes its first parent without selecting it
+        Stats s = stats.get(idx);
+        s.children++;
+        if (saved) {
+            s.saved++;
+        }
+        s.avgNanos = s.avgNanos > 0 ? s.avgNanos + TIME_SMOOTHING * (nanos - s.avgNanos) : nanos;
+        updateAverage(nanos);
+    }
+
+    /** Computes the current sampling weight of an input. */
+    protected double weight(Stats s) {
+        double rarity = 0;
+        IntIterator iter = s.covered.intIterator();
+        while (iter.hasNext()) {
+            rarity += 1.0 / keyHits.get(iter.next());
+        }
+        double speed = 1;
+        if (avgNanos > 0 && s.avgNanos > 0) {
+            speed = Math.max(MIN_SPEED, Math.min(MAX_SPEED, avgNanos / s.avgNanos));
+        }
+        return rarity * speed * (1 + s.yield);
+    }
+
+    private void updateKeyHits(IntList covered, int delta) {
+        IntIterator iter = covered.intIterator();
+        while (iter.hasNext()) {
+            int key = iter.next();
+            if (keyHits.addToValue(key, delta) <= 0) {
+                keyHits.remove(key);
+            }
+        }
+    }
+
+    private void updateAverage(long nanos) {
+        avgNanos = avgNanos > 0 ? avgNanos + TIME_SMOOTHING * (nanos - avgNanos) : nanos;
+    }
+}
@@ -52,6 +52,7 @@ import edu.berkeley.cs.jqf.fuzz.ei.state.JanalaExecutionIndexingState;
 import edu.berkeley.cs.jqf.fuzz.guidance.GuidanceException;
 import edu.berkeley.cs.jqf.fuzz.guidance.Result;
 import edu.berkeley.cs.jqf.fuzz.util.CoverageFactory;
+import edu.berkeley.cs.jqf.fuzz.util.CoverageSnapshot;
 import edu.berkeley.cs.jqf.fuzz.util.IOUtils;
 import edu.berkeley.cs.jqf.fuzz.util.ProducerHashMap;
 import edu.berkeley.cs.jqf.instrument.tracing.FastCoverageSnoop;
@@ -225,6 +226,10 @@ public class ExecutionIndexingGuidance extends ZestGuidance {
         // First, reset execution indexing state
         eiState = CoverageFactory.newEIState();
         if (eiState instanceof FastExecutionIndexingState) {
+            if (FastCoverageSnoop.isInlineCountersEnabled()) {
+                // Inline counters do not report method entries and exits
+                throw new GuidanceException("Execution indexing does not support janala.inlineCounters");
+            }
             FastCoverageSnoop.setFastCoverageListener((FastCoverageListener) eiState);
         }
 
@@ -292,15 +297,22 @@ public class ExecutionIndexingGuidance extends ZestGuidance {
                             responsibleInputs.put(b, currentInput);
                         }
                         currentInput.responsibilities = otherInput.responsibilities;
+                        if (otherInput.isFavored()) {
+                            // The replacement is not favored, so the queue has one favored input less
+                            numFavored--;
+                        }
 
 
                         // Third, store basic book-keeping data
                         currentInput.id = otherIdx;
                         currentInput.saveFile = otherInput.saveFile;
-                        currentInput.coverage = runCoverage.copy();
+                        currentInput.coverage = new CoverageSnapshot(runCoverage);
                         currentInput.nonZeroCoverage = runCoverage.getNonZeroCount();
                         currentInput.offspring = 0;
                         savedInputs.get(currentParentInputIdx).offspring += 1;
+                        if (schedule != null) {
+                            schedule.inputSaved(otherIdx, currentInput, lastRunNanos);
+                        }
 
                         // Finally, overwrite the saved input file on disc
                         try {
@@ -0,0 +1,288 @@
+/*
+ * Copyright (c) 2026 Vladimir Sitnikov and JQF Contributors
+ *
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are
+ * met:
+ *
+ * 1. Redistributions of source code must retain the above copyright
+ * notice, this list of conditions and the following disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright
+ * notice, this list of conditions and the following disclaimer in the
+ * documentation and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+ * HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT
+ * LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ * THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package edu.berkeley.cs.jqf.fuzz.ei;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.Duration;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+
+import edu.berkeley.cs.jqf.fuzz.guidance.Guidance;
+import edu.berkeley.cs.jqf.fuzz.guidance.GuidanceException;
+import edu.berkeley.cs.jqf.fuzz.guidance.ParallelGuidance;
+import edu.berkeley.cs.jqf.fuzz.guidance.Result;
+import edu.berkeley.cs.jqf.fuzz.guidance.TimeoutWatchdog;
+import edu.berkeley.cs.jqf.fuzz.guidance.WorkerRoutingListener;
+import edu.berkeley.cs.jqf.fuzz.util.Coverage;
+import edu.berkeley.cs.jqf.fuzz.util.CoverageFactory;
+import edu.berkeley.cs.jqf.fuzz.util.ICoverage;
+import edu.berkeley.cs.jqf.instrument.tracing.FastCoverageSnoop;
+import edu.berkeley.cs.jqf.instrument.tracing.events.TraceEvent;
+import janala.instrument.FastCoverageListener;
+
+/**
+ * A Zest guidance that runs trials on several worker threads at once.
+ *
+ * <p>All workers share a single corpus: the saved inputs, the cumulative
+ * total and valid coverage, the responsibility map and the set of unique
+ * failures are those of the underlying {@link ZestGuidance}, and the
+ * results directory has the same layout. Selecting and mutating a parent,
+ * and merging a finished trial into the corpus, happen while holding the
+ * monitor of this guidance. The trials themselves (input generation and
+ * test execution) run concurrently, with each worker recording coverage
+ * into its own run coverage map, so no lock is taken on the per-branch
+ * path.
+ *
+ * <p>Workers are created via {@link #newWorker(int)}, usually by
+ * {@link edu.berkeley.cs.jqf.fuzz.FuzzRunner#runParallel}. Trace events
+ * from threads that do not belong to a worker (for example, threads
+ * spawned by the test itself) are ignored.
+ */
+public class ParallelZestGuidance extends ZestGuidance implements ParallelGuidance {
+
+    /** The workers of this guidance, indexed by the thread that runs them. */
+    protected final Map<Thread, Worker> workers = new ConcurrentHashMap<>();
+
+    /** The worker owned by the current thread, if any. */
+    private final ThreadLocal<Worker> currentWorker = new ThreadLocal<>();
+
+    /**
+     * Creates a new parallel Zest guidance instance with optional duration,
+     * optional trial limit, and possibly deterministic PRNG.
+     *
+     * @param testName the name of test to display on the status screen
+     * @param duration the amount of time to run fuzzing for, where
+     *                 {@code null} indicates unlimited time.
+     * @param trials   the number of trials for which to run fuzzing across
+     *                 all workers, where {@code null} indicates unlimited trials.
+     * @param outputDirectory the directory where fuzzing results will be written
+     * @param seedInputFiles one or more input files to be used as initial inputs
+     * @param sourceOfRandomness a pseudo-random number generator, which also
+     *                           seeds the generator of each worker
+     * @throws IOException if the output directory could not be prepared
+     */
+    public ParallelZestGuidance(String testName, Duration duration, Long trials, File outputDirectory,
+                                File[] seedInputFiles, Random sourceOfRandomness) throws IOException {
+        super(testName, duration, trials, outputDirectory, seedInputFiles, sourceOfRandomness);
+        if (FastCoverageSnoop.isInlineCountersEnabled()) {
+            // Inline counters are shared by all threads, so they cannot be attributed to a worker
+            throw new UnsupportedOperationException("Parallel fuzzing does not support janala.inlineCounters");
+        }
+        if (this.runCoverage instanceof FastCoverageListener) {
+            FastCoverageSnoop.setFastCoverageListener(new WorkerRoutingListener(() -> {
+                Worker worker = currentWorker.get();
+                return worker != null ? worker.fastCoverageListener : null;
+            }));
+        }
+        // Trials run concurrently, so each worker times its own
+        stopTimeoutWatchdog();
+        this.timeoutWatchdog = null;
+    }
+
+    @Override
+    public synchronized Guidance newWorker(int workerId) {
+        Worker worker = new Worker(workerId, new Random(random.nextLong()));
+        workers.put(Thread.currentThread(), worker);
+        currentWorker.set(worker);
+        return worker;
+    }
+
+    @Override
+    public Consumer<TraceEvent> generateCallBack(Thread thread) {
+        Worker worker = workers.get(thread);
+        if (worker == null) {
+            // Coverage of threads that are not workers cannot be attributed to a trial
+            return (e) -> {};
+        }
+        return worker::handleEvent;
+    }
+
+    /**
+     * Returns an InputStream that delivers parameters to the generators.
+     *
+     * <p>Unlike the sequential guidance, the stream is bound to the input
+     * that is current at the time of this call, and draws fresh bytes from
+     * the generator of the calling worker, since the field
+     * {@link #currentInput} is reassigned by other workers while this one
+     * is running its trial.
+     *
+     * @return an InputStream that delivers parameters to the generators
+     */
+    @Override
+    protected InputStream createParameterStream() {
+        assert currentInput instanceof LinearInput : "ZestGuidance should only mutate LinearInput(s)";
+        LinearInput linearInput = (LinearInput) currentInput;
+        Worker worker = currentWorker.get();
+        Random random = worker != null ? worker.random : this.random;
+        return new InputStream() {
+            int bytesRead = 0;
+
+            @Override
+            public int read() throws IOException {
+                return linearInput.getOrGenerateFresh(bytesRead++, random);
+            }
+        };
+    }
+
+    private synchronized InputStream getInput(Worker worker) {
+        // The superclass clears and selects inputs via the shared fields
+        this.runCoverage = worker.runCoverage;
+        InputStream in = super.getInput();
+        worker.input = currentInput;
+        worker.parentInputIdx = runningParentInputIdx;
+        return in;
+    }
+
+    @Override
+    public synchronized boolean hasInput() {
+        return super.hasInput();
+    }
+
+    private synchronized void handleResult(Worker worker, Result result, Throwable error) {
+        // Merge the worker's trial into the shared corpus
+        this.currentInput = worker.input;
+        this.runningParentInputIdx = worker.parentInputIdx;
+        this.runCoverage = worker.runCoverage;
+        super.handleResult(result, error);
+    }
+
+    /**
+     * Returns how long the trial of the calling worker ran.
+     *
+     * <p>Trials of different workers overlap, so each worker times its
+     * own, without the time spent waiting for the monitor.</p>
+     *
+     * @return the duration of the trial, in nanoseconds
+     */
+    @Override
+    protected long elapsedRunNanos() {
+        Worker worker = currentWorker.get();
+        return worker != null ? worker.runNanos : super.elapsedRunNanos();
+    }
+
+    /**
+     * The view of the shared guidance that is used by one worker thread.
+     */
+    protected class Worker implements Guidance {
+
+        /** The index of this worker. */
+        protected final int id;
+
+        /** A pseudo-random number generator used only by this worker. */
+        protected final Random random;
+
+        /** Coverage statistics for the current trial of this worker. */
+        protected final ICoverage runCoverage = CoverageFactory.newInstance();
+
+        /** The input of the current trial of this worker. */
+        protected Input<?> input;
+
+        /** The index of the parent of {@link #input} in the saved inputs, or -1 if it has none. */
+        protected int parentInputIdx = -1;
+
+        /** Value of System.nanoTime() when the current trial of this worker was started. */
+        protected long runStartNanos;
+
+        /** Duration of the last completed trial of this worker, in nanoseconds. */
+        protected long runNanos;
+
+        /** Flags trials of this worker that exceed the timeout, or {@code null} if there is no timeout. */
+        protected final TimeoutWatchdog timeoutWatchdog;
+
+        /** Receives the fast-coverage events of this worker's trials. */
+        protected final FastCoverageListener fastCoverageListener;
+
+        protected Worker(int id, Random random) {
+            this.id = id;
+            this.random = random;
+            this.timeoutWatchdog = singleRunTimeoutMillis > 0 ? new TimeoutWatchdog(singleRunTimeoutMillis) : null;
+            if (runCoverage instanceof FastCoverageListener) {
+                FastCoverageListener listener = (FastCoverageListener) runCoverage;
+                this.fastCoverageListener = timeoutWatchdog != null ? timeoutWatchdog.check(listener) : listener;
+            } else {
+                this.fastCoverageListener = null;
+            }
+        }
+
+        @Override
+        public InputStream getInput() throws GuidanceException {
+            InputStream in = ParallelZestGuidance.this.getInput(this);
+            if (timeoutWatchdog != null) {
+                timeoutWatchdog.arm();
+            }
+            runStartNanos = System.nanoTime();
+            return in;
+        }
+
+        @Override
+        public boolean hasInput() {
+            boolean hasInput = ParallelZestGuidance.this.hasInput();
+            if (!hasInput && timeoutWatchdog != null) {
+                timeoutWatchdog.close();
+            }
+            return hasInput;
+        }
+
+        @Override
+        public void handleResult(Result result, Throwable error) throws GuidanceException {
+            runNanos = System.nanoTime() - runStartNanos;
+            if (timeoutWatchdog != null) {
+                timeoutWatchdog.disarm();
+            }
+            ParallelZestGuidance.this.handleResult(this, result, error);
+        }
+
+        @Override
+        public String observeGuidance() {
+            return ParallelZestGuidance.this.observeGuidance();
+        }
+
+        @Override
+        public Consumer<TraceEvent> generateCallBack(Thread thread) {
+            return ParallelZestGuidance.this.generateCallBack(thread);
+        }
+
+        /**
+         * Handles a trace event generated by this worker's thread.
+         *
+         * @param e the trace event to be handled
+         */
+        protected void handleEvent(TraceEvent e) {
+            ((Coverage) runCoverage).handleEvent(e);
+            // Check for a timeout flagged by the watchdog
+            if (timeoutWatchdog != null) {
+                timeoutWatchdog.checkTimeout();
+            }
+        }
+    }
+}
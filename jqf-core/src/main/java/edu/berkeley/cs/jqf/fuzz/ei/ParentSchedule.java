@@ -0,0 +1,80 @@
+/*
+ * Copyright (c) 2026 Vladimir Sitnikov and JQF Contributors
+ *
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are
+ * met:
+ *
+ * 1. Redistributions of source code must retain the above copyright
+ * notice, this list of conditions and the following disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright
+ * notice, this list of conditions and the following disclaimer in the
+ * documentation and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+ * HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT
+ * LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ * THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package edu.berkeley.cs.jqf.fuzz.ei;
+
+import java.util.Random;
+
+import edu.berkeley.cs.jqf.fuzz.ei.ZestGuidance.Input;
+
+/**
+ * Decides which saved input {@link ZestGuidance} mutates next, and how many
+ * children it generates from it before choosing again.
+ *
+ * <p>Inputs are identified by their index in the guidance's queue of saved
+ * inputs. The queue only grows, but an index may be re-registered with a
+ * different input when an input replaces another one.</p>
+ *
+ * <p>Without a schedule, Zest cycles through the queue in order.</p>
+ */
+public interface ParentSchedule {
+
+    /**
+     * Registers the input saved at the given queue index.
+     *
+     * @param idx   the index of the input in the queue
+     * @param input the saved input, whose coverage is set
+     * @param nanos how long the run that produced the input took
+     */
+    void inputSaved(int idx, Input<?> input, long nanos);
+
+    /**
+     * Chooses the next parent. Only called when at least one input is saved.
+     *
+     * @param random the source of randomness
+     * @return the queue index of the next parent
+     */
+    int selectParent(Random random);
+
+    /**
+     * Returns how many children to generate from a parent once it is selected.
+     *
+     * @param idx the queue index of the parent
+     * @return the number of children to generate
+     */
+    int getEnergy(int idx);
+
+    /**
+     * Records the execution of a child of a parent.
+     *
+     * @param idx   the queue index of the parent
+     * @param nanos how long the child's run took
+     * @param saved whether the child was saved to the queue
+     */
+    void childExecuted(int idx, long nanos, boolean saved);
+}
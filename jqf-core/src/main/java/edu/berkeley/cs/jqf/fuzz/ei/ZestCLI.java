@@ -32,16 +32,25 @@ package edu.berkeley.cs.jqf.fuzz.ei;
 
 import edu.berkeley.cs.jqf.fuzz.FuzzResult;
 import edu.berkeley.cs.jqf.fuzz.FuzzRunner;
+import edu.berkeley.cs.jqf.fuzz.repro.CorpusMinimizer;
+import edu.berkeley.cs.jqf.fuzz.util.CoverageFactory;
+import edu.berkeley.cs.jqf.fuzz.util.FastNonCollidingCoverage;
+import edu.berkeley.cs.jqf.fuzz.util.IOUtils;
 import edu.berkeley.cs.jqf.instrument.InstrumentingClassLoader;
+import edu.berkeley.cs.jqf.instrument.tracing.FastCoverageSnoop;
+import janala.instrument.GlobalStateForInstrumentation;
 import picocli.CommandLine;
 import picocli.CommandLine.Option;
 import picocli.CommandLine.Parameters;
 
 import java.io.File;
+import java.net.MalformedURLException;
 import java.time.Duration;
 import java.time.format.DateTimeParseException;
 import java.util.ArrayList;
+import java.util.List;
 import java.util.Random;
+import java.util.function.Supplier;
 
 /**
  * CLI for Zest based guidance.
@@ -92,6 +101,14 @@ public class ZestCLI implements Runnable{
             description = "Blind fuzzing: do not use coverage feedback (default: false)")
     private boolean blindFuzzing;
 
+    @Option(names = { "-w", "--workers" },
+            description = "Number of worker threads that fuzz in parallel with a shared corpus; with fast coverage, requires -Djanala.probeIdMap (default: 1)")
+    private int workers = 1;
+
+    @Option(names = { "--cmin" },
+            description = "Instead of fuzzing, copy a minimal subset of the input directory with the same coverage to the output directory; inputs that fail or exceed -Djqf.ei.TIMEOUT are left out (default: false)")
+    private boolean cmin = false;
+
     @Parameters(index = "0", paramLabel = "PACKAGE", description = "package containing the fuzz target and all dependencies")
     private String testPackageName;
 
@@ -142,20 +159,43 @@ public class ZestCLI implements Runnable{
 
 
         try {
-            ClassLoader loader = new InstrumentingClassLoader(
-                    this.testPackageName.split(File.pathSeparator),
-                    ZestCLI.class.getClassLoader());
+            String[] paths = this.testPackageName.split(File.pathSeparator);
+
+            if (cmin) {
+                minimizeCorpus(paths);
+                return;
+            }
 
             // Load the guidance
             String title = this.testClassName+"#"+this.testMethodName;
             Random rnd = det ? new Random(0) : new Random(); // TODO: Make seed configurable
-            ZestGuidance guidance =
-                seedFiles.length > 0 ?
-                new ZestGuidance(title, duration, trials, this.outputDirectory, seedFiles, rnd) :
-                new ZestGuidance(title, duration, trials, this.outputDirectory, inputDirectory, rnd);
-            guidance.setBlind(blindFuzzing);
-            // Run the fuzzing campaign
-            FuzzResult res = FuzzRunner.run(testClassName, testMethodName, loader, guidance);
+            ZestGuidance guidance;
+            FuzzResult res;
+            if (workers > 1) {
+                // Each worker gets its own copy of the target's static state. Janala IDs are stable
+                // per class, but fast coverage numbers probes in class-load order, so the workers'
+                // loaders only agree on probe IDs through a shared probe ID map.
+                if (CoverageFactory.newInstance() instanceof FastNonCollidingCoverage
+                        && GlobalStateForInstrumentation.getProbeIdMap() == null) {
+                    throw new IllegalArgumentException("Parallel fuzzing with fast coverage requires -Djanala.probeIdMap=<file>");
+                }
+                File[] seeds = seedFiles.length > 0 ? seedFiles : IOUtils.resolveInputFileOrDirectory(inputDirectory);
+                ParallelZestGuidance parallelGuidance =
+                        new ParallelZestGuidance(title, duration, trials, this.outputDirectory, seeds, rnd);
+                parallelGuidance.setBlind(blindFuzzing);
+                guidance = parallelGuidance;
+                // Run the fuzzing campaign
+                res = FuzzRunner.runParallel(testClassName, testMethodName, () -> newInstrumentingClassLoader(paths),
+                        parallelGuidance, workers);
+            } else {
+                guidance = seedFiles.length > 0 ?
+                    new ZestGuidance(title, duration, trials, this.outputDirectory, seedFiles, rnd) :
+                    new ZestGuidance(title, duration, trials, this.outputDirectory, inputDirectory, rnd);
+                guidance.setBlind(blindFuzzing);
+                // Run the fuzzing campaign
+                ClassLoader loader = new InstrumentingClassLoader(paths, ZestCLI.class.getClassLoader());
+                res = FuzzRunner.run(testClassName, testMethodName, loader, guidance);
+            }
             if (Boolean.getBoolean("jqf.logCoverage")) {
                 System.out.println(String.format("Covered %d edges.",
                         guidance.getTotalCoverage().getNonZeroCount()));
@@ -170,6 +210,33 @@ public class ZestCLI implements Runnable{
         }
 
     }
+    private void minimizeCorpus(String[] paths) throws Exception {
+        if (inputDirectory == null) {
+            throw new IllegalArgumentException("Corpus minimization needs an input directory (-i)");
+        }
+        // As when fuzzing, jqf.ei.TIMEOUT limits each run, so that inputs that hang are left out
+        CorpusMinimizer minimizer = new CorpusMinimizer(inputDirectory, Long.getLong("jqf.ei.TIMEOUT", 0));
+        // As when fuzzing, fast coverage needs one shared loader; inline counters cannot be split by thread
+        boolean fast = CoverageFactory.newInstance() instanceof FastNonCollidingCoverage;
+        int numWorkers = FastCoverageSnoop.isInlineCountersEnabled() ? 1 : workers;
+        ClassLoader sharedLoader = fast ? newInstrumentingClassLoader(paths) : null;
+        Supplier<ClassLoader> loaders = fast ? () -> sharedLoader : () -> newInstrumentingClassLoader(paths);
+        FuzzRunner.runParallel(testClassName, testMethodName, loaders, minimizer, numWorkers);
+
+        List<File> kept = minimizer.minimize();
+        CorpusMinimizer.writeCorpus(kept, outputDirectory);
+        System.out.println(String.format("Kept %d inputs covering %d edges in %s; left out %d failing inputs.",
+                kept.size(), minimizer.getNumEdges(), outputDirectory, minimizer.getNumFailed()));
+    }
+
+    private static ClassLoader newInstrumentingClassLoader(String[] paths) {
+        try {
+            return new InstrumentingClassLoader(paths, ZestCLI.class.getClassLoader());
+        } catch (MalformedURLException e) {
+            throw new IllegalArgumentException(e);
+        }
+    }
+
     public static void main(String[] args) {
         int exitCode = new CommandLine(new ZestCLI())
                 .registerConverter(Duration.class, v -> {
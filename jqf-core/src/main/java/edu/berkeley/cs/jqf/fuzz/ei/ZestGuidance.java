@@ -39,6 +39,7 @@ import java.io.FileOutputStream;
 import java.io.FileWriter;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.OutputStream;
 import java.io.PrintWriter;
 import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
@@ -48,11 +49,10 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Date;
 import java.util.Deque;
-import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
-import java.util.Map;
+import java.util.NoSuchElementException;
 import java.util.Random;
 import java.util.Set;
 import java.util.concurrent.TimeUnit;
@@ -61,9 +61,10 @@ import java.util.function.Consumer;
 import edu.berkeley.cs.jqf.fuzz.guidance.Guidance;
 import edu.berkeley.cs.jqf.fuzz.guidance.GuidanceException;
 import edu.berkeley.cs.jqf.fuzz.guidance.Result;
-import edu.berkeley.cs.jqf.fuzz.guidance.TimeoutException;
+import edu.berkeley.cs.jqf.fuzz.guidance.TimeoutWatchdog;
 import edu.berkeley.cs.jqf.fuzz.util.Coverage;
 import edu.berkeley.cs.jqf.fuzz.util.CoverageFactory;
+import edu.berkeley.cs.jqf.fuzz.util.CoverageSnapshot;
 import edu.berkeley.cs.jqf.fuzz.util.FastNonCollidingCoverage;
 import edu.berkeley.cs.jqf.fuzz.util.ICoverage;
 import edu.berkeley.cs.jqf.fuzz.util.IOUtils;
@@ -72,6 +73,8 @@ import edu.berkeley.cs.jqf.instrument.tracing.events.TraceEvent;
 import janala.instrument.FastCoverageListener;
 import org.eclipse.collections.api.iterator.IntIterator;
 import org.eclipse.collections.api.list.primitive.IntList;
+import org.eclipse.collections.impl.map.mutable.primitive.IntObjectHashMap;
+import org.eclipse.collections.impl.map.mutable.primitive.ObjectIntHashMap;
 import org.eclipse.collections.impl.set.mutable.primitive.IntHashSet;
 
 import static java.lang.Math.ceil;
@@ -167,7 +170,10 @@ public class ZestGuidance implements Guidance {
     protected int maxCoverage = 0;
 
     /** A mapping of coverage keys to inputs that are responsible for them. */
-    protected Map<Object, Input> responsibleInputs = new HashMap<>(totalCoverage.size());
+    protected IntObjectHashMap<Input> responsibleInputs = new IntObjectHashMap<>();
+
+    /** The number of saved inputs that are favored. */
+    protected int numFavored = 0;
 
     /** The set of unique failures found so far. */
     protected Set<String> uniqueFailures = new HashSet<>();
@@ -224,11 +230,8 @@ public class ZestGuidance implements Guidance {
     /** Timeout for an individual run. */
     protected long singleRunTimeoutMillis;
 
-    /** Date when last run was started. */
-    protected Date runStart;
-
-    /** Number of conditional jumps since last run was started. */
-    protected long branchCount;
+    /** Flags runs that exceed the timeout, or {@code null} if there is no timeout. */
+    protected TimeoutWatchdog timeoutWatchdog;
 
     /** Whether to stop/exit once a crash is found. **/
     protected final boolean EXIT_ON_CRASH = Boolean.getBoolean("jqf.ei.EXIT_ON_CRASH");
@@ -258,6 +261,21 @@ public class ZestGuidance implements Guidance {
     /** Multiplication factor for number of children to produce for favored inputs. */
     protected final int NUM_CHILDREN_MULTIPLIER_FAVORED = 20;
 
+    /** Chooses parents from the queue, or {@code null} to cycle through the queue in order. */
+    protected ParentSchedule schedule;
+
+    /** Number of parents chosen by the schedule in the current cycle. */
+    protected int numParentsSelectedThisCycle = 0;
+
+    /** Index of the parent of currentInput in savedInputs, or -1 if currentInput is a seed or fresh input. */
+    protected int runningParentInputIdx = -1;
+
+    /** Value of System.nanoTime() when the last run was started. */
+    protected long runStartNanos;
+
+    /** Duration of the last completed run, in nanoseconds. */
+    protected long lastRunNanos;
+
     /** Mean number of mutations to perform in each round. */
     protected final double MEAN_MUTATION_COUNT = 8.0;
 
@@ -293,10 +311,6 @@ public class ZestGuidance implements Guidance {
         this.validityFuzzing = !Boolean.getBoolean("jqf.ei.DISABLE_VALIDITY_FUZZING");
         prepareOutputDirectory();
 
-        if(this.runCoverage instanceof FastCoverageListener){
-            FastCoverageSnoop.setFastCoverageListener((FastCoverageListener) this.runCoverage);
-        }
-
         // Try to parse the single-run timeout
         String timeout = System.getProperty("jqf.ei.TIMEOUT");
         if (timeout != null && !timeout.isEmpty()) {
@@ -307,6 +321,25 @@ public class ZestGuidance implements Guidance {
                 throw new IllegalArgumentException("Invalid timeout duration: " + timeout);
             }
         }
+        if (this.singleRunTimeoutMillis > 0) {
+            this.timeoutWatchdog = new TimeoutWatchdog(this.singleRunTimeoutMillis);
+        }
+
+        if(this.runCoverage instanceof FastCoverageListener){
+            listenForFastCoverage(this.runCoverage);
+        }
+
+        // Choose a parent schedule
+        String scheduleName = System.getProperty("jqf.ei.SCHEDULE", "cycle");
+        switch (scheduleName) {
+            case "cycle":
+                break;
+            case "energy":
+                this.schedule = new EnergySchedule(NUM_CHILDREN_BASELINE);
+                break;
+            default:
+                throw new IllegalArgumentException("Invalid schedule: " + scheduleName);
+        }
     }
 
     /**
@@ -508,7 +541,7 @@ public class ZestGuidance implements Guidance {
             currentParentInputDesc = currentParentInputIdx + " ";
             currentParentInputDesc += currentParentInput.isFavored() ? "(favored)" : "(not favored)";
             currentParentInputDesc += " {" + numChildrenGeneratedForCurrentParentInput +
-                    "/" + getTargetChildrenForParent(currentParentInput) + " mutations}";
+                    "/" + getTargetChildrenForCurrentParent() + " mutations}";
         }
 
         int nonZeroCount = totalCoverage.getNonZeroCount();
@@ -582,6 +615,17 @@ public class ZestGuidance implements Guidance {
         this.blind = blind;
     }
 
+    /**
+     * Sets the schedule that chooses parents from the queue.
+     *
+     * <p>Must be called before fuzzing starts.</p>
+     *
+     * @param schedule the schedule, or {@code null} to cycle through the queue in order
+     */
+    public void setSchedule(ParentSchedule schedule) {
+        this.schedule = schedule;
+    }
+
     protected int getTargetChildrenForParent(Input parentInput) {
         // Baseline is a constant
         int target = NUM_CHILDREN_BASELINE;
@@ -599,27 +643,55 @@ public class ZestGuidance implements Guidance {
         return target;
     }
 
+    /** Returns the number of children to produce from the parent at currentParentInputIdx. */
+    protected int getTargetChildrenForCurrentParent() {
+        if (schedule != null) {
+            return schedule.getEnergy(currentParentInputIdx);
+        }
+        return getTargetChildrenForParent(savedInputs.get(currentParentInputIdx));
+    }
+
+    /** Advances currentParentInputIdx to the next parent to fuzz. */
+    protected void selectNextParent() {
+        if (schedule != null) {
+            currentParentInputIdx = schedule.selectParent(random);
+
+            // A cycle is as many selections as there are inputs in the queue
+            if (++numParentsSelectedThisCycle >= savedInputs.size()) {
+                numParentsSelectedThisCycle = 0;
+                completeCycle();
+            }
+        } else {
+            currentParentInputIdx = (currentParentInputIdx + 1) % savedInputs.size();
+
+            // Count cycles
+            if (currentParentInputIdx == 0) {
+                completeCycle();
+            }
+        }
+    }
+
     /** Handles the end of fuzzing cycle (i.e., having gone through the entire queue) */
     protected void completeCycle() {
         // Increment cycle count
         cyclesCompleted++;
         infoLog("\n# Cycle " + cyclesCompleted + " completed.");
 
-        // Go over all inputs and do a sanity check (plus log)
-        infoLog("Here is a list of favored inputs:");
-        int sumResponsibilities = 0;
-        numFavoredLastCycle = 0;
-        for (Input input : savedInputs) {
-            if (input.isFavored()) {
-                int responsibleFor = input.responsibilities.size();
-                infoLog("Input %d is responsible for %d branches", input.id, responsibleFor);
-                sumResponsibilities += responsibleFor;
-                numFavoredLastCycle++;
+        // Log favored inputs; walking the queue is only worth it if there is a log
+        if (verbose) {
+            infoLog("Here is a list of favored inputs:");
+            for (Input input : savedInputs) {
+                if (input.isFavored()) {
+                    infoLog("Input %d is responsible for %d branches", input.id, input.responsibilities.size());
+                }
             }
         }
+        numFavoredLastCycle = numFavored;
+
+        // Sanity check: every covered key has exactly one responsible input
         int totalCoverageCount = totalCoverage.getNonZeroCount();
         infoLog("Total %d branches covered", totalCoverageCount);
-        if (sumResponsibilities != totalCoverageCount) {
+        if (responsibleInputs.size() != totalCoverageCount) {
             if (multiThreaded) {
                 infoLog("Warning: other threads are adding coverage between test executions");
             } else {
@@ -672,6 +744,7 @@ public class ZestGuidance implements Guidance {
         conditionallySynchronize(multiThreaded, () -> {
             // Clear coverage stats for this run
             runCoverage.clear();
+            runningParentInputIdx = -1;
 
             // Choose an input to execute based on state of queues
             if (!seedInputs.isEmpty()) {
@@ -692,21 +765,15 @@ public class ZestGuidance implements Guidance {
                 currentInput = createFreshInput();
             } else {
                 // The number of children to produce is determined by how much of the coverage
-                // pool this parent input hits
-                Input currentParentInput = savedInputs.get(currentParentInputIdx);
-                int targetNumChildren = getTargetChildrenForParent(currentParentInput);
+                // pool this parent input hits, or by the schedule
+                int targetNumChildren = getTargetChildrenForCurrentParent();
                 if (numChildrenGeneratedForCurrentParentInput >= targetNumChildren) {
                     // Select the next saved input to fuzz
-                    currentParentInputIdx = (currentParentInputIdx + 1) % savedInputs.size();
-
-                    // Count cycles
-                    if (currentParentInputIdx == 0) {
-                        completeCycle();
-                    }
-
+                    selectNextParent();
                     numChildrenGeneratedForCurrentParentInput = 0;
                 }
                 Input parent = savedInputs.get(currentParentInputIdx);
+                runningParentInputIdx = currentParentInputIdx;
 
                 // Fuzz it to get a new input
                 // infoLog("Mutating input: %s", parent.desc);
@@ -722,11 +789,13 @@ public class ZestGuidance implements Guidance {
                 }
 
                 // Start time-counting for timeout handling
-                this.runStart = new Date();
-                this.branchCount = 0;
+                if (timeoutWatchdog != null) {
+                    timeoutWatchdog.arm();
+                }
             }
         });
 
+        runStartNanos = System.nanoTime();
         return createParameterStream();
     }
 
@@ -736,6 +805,7 @@ public class ZestGuidance implements Guidance {
         long elapsedMilliseconds = now.getTime() - startTime.getTime();
         if (EXIT_ON_CRASH && uniqueFailures.size() >= 1) {
             // exit
+            stopTimeoutWatchdog();
             return false;
         }
         if(elapsedMilliseconds < maxDurationMillis
@@ -743,15 +813,53 @@ public class ZestGuidance implements Guidance {
             return true;
         } else {
             displayStats(true);
+            stopTimeoutWatchdog();
             return false;
         }
     }
 
+    /**
+     * Routes the probes of fast-coverage instrumentation, including the
+     * inline counters, to the given run coverage.
+     *
+     * @param coverage a run coverage that is also a {@link FastCoverageListener}
+     */
+    protected void listenForFastCoverage(ICoverage coverage) {
+        FastCoverageListener listener = (FastCoverageListener) coverage;
+        if (timeoutWatchdog != null) {
+            // Fast coverage events do not go through handleEvent(), so poll for timeouts here
+            listener = timeoutWatchdog.check(listener);
+        }
+        FastCoverageSnoop.setFastCoverageListener(listener);
+        // The listener may be a wrapper, so name the owner of the inline counters explicitly
+        FastCoverageSnoop.setInlineCounterOwner(coverage);
+    }
+
+    /**
+     * Returns how long the trial whose result is being handled ran.
+     *
+     * @return the duration of the trial, in nanoseconds
+     */
+    protected long elapsedRunNanos() {
+        return System.nanoTime() - runStartNanos;
+    }
+
+    /** Stops the timeout watchdog thread once fuzzing is over. */
+    protected void stopTimeoutWatchdog() {
+        if (timeoutWatchdog != null) {
+            timeoutWatchdog.close();
+        }
+    }
+
     @Override
     public void handleResult(Result result, Throwable error) throws GuidanceException {
         conditionallySynchronize(multiThreaded, () -> {
             // Stop timeout handling
-            this.runStart = null;
+            if (timeoutWatchdog != null) {
+                timeoutWatchdog.disarm();
+            }
+            lastRunNanos = elapsedRunNanos();
+            int numSavedBefore = savedInputs.size();
 
             // Increment run count
             this.numTrials++;
@@ -845,6 +953,11 @@ public class ZestGuidance implements Guidance {
                 }
             }
 
+            // Let the schedule know how the parent's child did
+            if (schedule != null && runningParentInputIdx >= 0) {
+                schedule.childExecuted(runningParentInputIdx, lastRunNanos, savedInputs.size() > numSavedBefore);
+            }
+
             // displaying stats on every interval is only enabled for AFL-like stats screen
             if (!LIBFUZZER_COMPAT_OUTPUT) {
                 displayStats(false);
@@ -923,17 +1036,24 @@ public class ZestGuidance implements Guidance {
         if (STEAL_RESPONSIBILITY) {
             int currentNonZeroCoverage = runCoverage.getNonZeroCount();
             int currentInputSize = currentInput.size();
-            IntHashSet covered = new IntHashSet();
-            covered.addAll(runCoverage.getCovered());
 
-            // Search for a candidate to steal responsibility from
-            candidate_search:
-            for (Input candidate : savedInputs) {
-                IntHashSet responsibilities = candidate.responsibilities;
+            // Only inputs responsible for something this run covers are candidates,
+            // so look them up by key and count how many of their responsibilities
+            // this run covers (inputs are compared by identity)
+            ObjectIntHashMap<Input> coveredResponsibilities = new ObjectIntHashMap<>();
+            IntIterator coveredIter = runCoverage.getCovered().intIterator();
+            while (coveredIter.hasNext()) {
+                Input candidate = responsibleInputs.get(coveredIter.next());
+                if (candidate != null) {
+                    coveredResponsibilities.addToValue(candidate, 1);
+                }
+            }
 
-                // Candidates with no responsibility are not interesting
-                if (responsibilities.isEmpty()) {
-                    continue candidate_search;
+            coveredResponsibilities.forEachKeyValue((candidate, count) -> {
+                // Cannot steal if this input does not cover something
+                // that the candidate is responsible for
+                if (count < candidate.responsibilities.size()) {
+                    return;
                 }
 
                 // To avoid thrashing, only consider candidates with either
@@ -942,29 +1062,23 @@ public class ZestGuidance implements Guidance {
                 if (candidate.nonZeroCoverage < currentNonZeroCoverage ||
                         (candidate.nonZeroCoverage == currentNonZeroCoverage &&
                                 currentInputSize < candidate.size())) {
-
-                    // Check if we can steal all responsibilities from candidate
-                    IntIterator iter = responsibilities.intIterator();
-                    while(iter.hasNext()){
-                        int b = iter.next();
-                        if (covered.contains(b) == false) {
-                            // Cannot steal if this input does not cover something
-                            // that the candidate is responsible for
-                            continue candidate_search;
-                        }
-                    }
                     // If all of candidate's responsibilities are covered by the
                     // current input, then it can completely subsume the candidate
-                    result.addAll(responsibilities);
+                    result.addAll(candidate.responsibilities);
                 }
-
-            }
+            });
         }
 
         return result;
     }
 
     protected void writeCurrentInputToFile(File saveFile) throws IOException {
+        if (currentInput instanceof LinearInput) {
+            try (OutputStream out = new FileOutputStream(saveFile)) {
+                ((LinearInput) currentInput).writeTo(out);
+            }
+            return;
+        }
         try (BufferedOutputStream out = new BufferedOutputStream(new FileOutputStream(saveFile))) {
             for (Integer b : currentInput) {
                 assert (b >= 0 && b < 256);
@@ -996,15 +1110,19 @@ public class ZestGuidance implements Guidance {
         // Third, store basic book-keeping data
         currentInput.id = newInputIdx;
         currentInput.saveFile = saveFile;
-        currentInput.coverage = runCoverage.copy();
+        currentInput.coverage = new CoverageSnapshot(runCoverage);
         currentInput.nonZeroCoverage = runCoverage.getNonZeroCount();
         currentInput.offspring = 0;
         savedInputs.get(currentParentInputIdx).offspring += 1;
+        if (schedule != null) {
+            schedule.inputSaved(savedInputs.size() - 1, currentInput, lastRunNanos);
+        }
 
         // Fourth, assume responsibility for branches
         currentInput.responsibilities = responsibilities;
         if (responsibilities.size() > 0) {
           currentInput.setFavored();
+          numFavored++;
         }
         IntIterator iter = responsibilities.intIterator();
         while(iter.hasNext()){
@@ -1046,13 +1164,9 @@ public class ZestGuidance implements Guidance {
         conditionallySynchronize(multiThreaded, () -> {
             // Collect totalCoverage
             ((Coverage) runCoverage).handleEvent(e);
-            // Check for possible timeouts every so often
-            if (this.singleRunTimeoutMillis > 0 &&
-                    this.runStart != null && (++this.branchCount) % 10_000 == 0) {
-                long elapsed = new Date().getTime() - runStart.getTime();
-                if (elapsed > this.singleRunTimeoutMillis) {
-                    throw new TimeoutException(elapsed, this.singleRunTimeoutMillis);
-                }
+            // Check for a timeout flagged by the watchdog
+            if (timeoutWatchdog != null) {
+                timeoutWatchdog.checkTimeout();
             }
         });
     }
@@ -1080,15 +1194,19 @@ public class ZestGuidance implements Guidance {
         }
     }
 
-    private static MessageDigest sha1;
-
-    private static String failureDigest(StackTraceElement[] stackTrace) {
-        if (sha1 == null) {
-            try {
-                sha1 = MessageDigest.getInstance("SHA-1");
-            } catch (NoSuchAlgorithmException e) {
-                throw new GuidanceException(e);
-            }
+    /**
+     * Identifies a failure by a stack trace, usually that of its root cause.
+     * Failures with the same digest are considered duplicates.
+     *
+     * @param stackTrace the stack trace
+     * @return a hex digest of the stack trace
+     */
+    public static String failureDigest(StackTraceElement[] stackTrace) {
+        MessageDigest sha1;
+        try {
+            sha1 = MessageDigest.getInstance("SHA-1");
+        } catch (NoSuchAlgorithmException e) {
+            throw new GuidanceException(e);
         }
         byte[] bytes = sha1.digest(Arrays.deepToString(stackTrace).getBytes());
         StringBuilder sb = new StringBuilder();
@@ -1134,6 +1252,9 @@ public class ZestGuidance implements Guidance {
         /**
          * The run coverage for this input, if the input is saved.
          *
+         * <p>This is a compact {@link CoverageSnapshot} rather than a
+         * full copy of the run coverage map.</p>
+         *
          * <p>This field is null for inputs that are not saved.</p>
          */
         ICoverage coverage = null;
@@ -1229,20 +1350,42 @@ public class ZestGuidance implements Guidance {
 
     public class LinearInput extends Input<Integer> {
 
-        /** A list of byte values (0-255) ordered by their index. */
-        protected ArrayList<Integer> values;
+        /** Byte values ordered by their index; only the first {@code length} are used. */
+        protected byte[] values;
+
+        /** The number of bytes in this input. */
+        protected int length;
 
         /** The number of bytes requested so far */
         protected int requested = 0;
 
         public LinearInput() {
             super();
-            this.values = new ArrayList<>();
+            this.values = new byte[16];
         }
 
         public LinearInput(LinearInput other) {
             super(other);
-            this.values = new ArrayList<>(other.values);
+            this.values = Arrays.copyOf(other.values, other.length);
+            this.length = other.length;
+        }
+
+        /** Appends a byte value (0-255) to the end of this input. */
+        protected void append(int value) {
+            if (length == values.length) {
+                values = Arrays.copyOf(values, Math.max(16, length * 2));
+            }
+            values[length++] = (byte) value;
+        }
+
+        /**
+         * Writes the bytes of this input to a stream in one go.
+         *
+         * @param out the stream to write to
+         * @throws IOException if the stream cannot be written to
+         */
+        public void writeTo(OutputStream out) throws IOException {
+            out.write(values, 0, length);
         }
 
 
@@ -1252,7 +1395,7 @@ public class ZestGuidance implements Guidance {
             // assert (key == values.size());
             if (key != requested) {
                 throw new IllegalStateException(String.format("Bytes from linear input out of order. " +
-                        "Size = %d, Key = %d", values.size(), key));
+                        "Size = %d, Key = %d", length, key));
             }
 
             // Don't generate over the limit
@@ -1261,10 +1404,10 @@ public class ZestGuidance implements Guidance {
             }
 
             // If it exists in the list, return it
-            if (key < values.size()) {
+            if (key < length) {
                 requested++;
                 // infoLog("Returning old byte at key=%d, total requested=%d", key, requested);
-                return values.get(key);
+                return values[key] & 0xFF;
             }
 
             // Handle end of stream
@@ -1273,7 +1416,7 @@ public class ZestGuidance implements Guidance {
             } else {
                 // Just generate a random input
                 int val = random.nextInt(256);
-                values.add(val);
+                append(val);
                 requested++;
                 // infoLog("Generating fresh byte at key=%d, total requested=%d", key, requested);
                 return val;
@@ -1282,7 +1425,7 @@ public class ZestGuidance implements Guidance {
 
         @Override
         public int size() {
-            return values.size();
+            return length;
         }
 
         /**
@@ -1295,11 +1438,11 @@ public class ZestGuidance implements Guidance {
         @Override
         public void gc() {
             // Remove elements beyond "requested"
-            values = new ArrayList<>(values.subList(0, requested));
-            values.trimToSize();
+            values = Arrays.copyOf(values, requested);
+            length = requested;
 
             // Inputs should not be empty, otherwise mutations don't work
-            if (values.isEmpty()) {
+            if (length == 0) {
                 throw new IllegalArgumentException("Input is either empty or nothing was requested from the input generator.");
             }
         }
@@ -1318,7 +1461,7 @@ public class ZestGuidance implements Guidance {
             for (int mutation = 1; mutation <= numMutations; mutation++) {
 
                 // Select a random offset and size
-                int offset = random.nextInt(newInput.values.size());
+                int offset = random.nextInt(newInput.length);
                 int mutationSize = sampleGeometric(random, MEAN_MUTATION_SIZE);
 
                 // desc += String.format(":%d@%d", mutationSize, idx);
@@ -1326,13 +1469,13 @@ public class ZestGuidance implements Guidance {
                 // Mutate a contiguous set of bytes from offset
                 for (int i = offset; i < offset + mutationSize; i++) {
                     // Don't go past end of list
-                    if (i >= newInput.values.size()) {
+                    if (i >= newInput.length) {
                         break;
                     }
 
                     // Otherwise, apply a random mutation
                     int mutatedValue = setToZero ? 0 : random.nextInt(256);
-                    newInput.values.set(i, mutatedValue);
+                    newInput.values[i] = (byte) mutatedValue;
                 }
             }
 
@@ -1341,7 +1484,22 @@ public class ZestGuidance implements Guidance {
 
         @Override
         public Iterator<Integer> iterator() {
-            return values.iterator();
+            return new Iterator<Integer>() {
+                int index = 0;
+
+                @Override
+                public boolean hasNext() {
+                    return index < length;
+                }
+
+                @Override
+                public Integer next() {
+                    if (index >= length) {
+                        throw new NoSuchElementException();
+                    }
+                    return values[index++] & 0xFF;
+                }
+            };
         }
     }
 
@@ -1367,14 +1525,14 @@ public class ZestGuidance implements Guidance {
             }
 
             // assert (key == values.size())
-            if (key != values.size() && value != -1) {
+            if (key != length && value != -1) {
                 throw new IllegalStateException(String.format("Bytes from seed out of order. " +
-                        "Size = %d, Key = %d", values.size(), key));
+                        "Size = %d, Key = %d", length, key));
             }
 
             if (value >= 0) {
                 requested++;
-                values.add(value);
+                append(value);
             }
 
             // If value is -1, then it is returned (as EOF) but not added to the list
@@ -0,0 +1,71 @@
+/*
+ * Copyright (c) 2026 Vladimir Sitnikov and JQF Contributors
+ *
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are
+ * met:
+ *
+ * 1. Redistributions of source code must retain the above copyright
+ * notice, this list of conditions and the following disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright
+ * notice, this list of conditions and the following disclaimer in the
+ * documentation and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+ * HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT
+ * LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ * THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package edu.berkeley.cs.jqf.fuzz.guidance;
+
+import java.util.function.Consumer;
+
+import edu.berkeley.cs.jqf.instrument.tracing.events.TraceEvent;
+
+/**
+ * A guidance whose campaign is driven by several worker threads at once.
+ *
+ * <p>Each worker thread runs its own fuzzing loop against a {@link Guidance}
+ * returned by {@link #newWorker(int)}. The workers share whatever state the
+ * implementation chooses to share (for example a corpus of saved inputs and
+ * the cumulative coverage), while per-trial state such as the current input
+ * and its run coverage stays confined to the worker.
+ *
+ * <p>Instrumentation callbacks are registered once per JVM, so trace events
+ * from every worker thread arrive through {@link #generateCallBack(Thread)},
+ * which must route them to the worker that owns the thread.
+ *
+ * @see edu.berkeley.cs.jqf.fuzz.FuzzRunner#runParallel
+ */
+public interface ParallelGuidance {
+
+    /**
+     * Creates the guidance view used by one worker thread.
+     *
+     * <p>This method is called on the worker thread itself, before the
+     * test class is loaded. The returned guidance is used by that thread
+     * only, and it receives the trace events of that thread.
+     *
+     * @param workerId the index of the worker, from zero
+     * @return a guidance for the worker's fuzzing loop
+     */
+    Guidance newWorker(int workerId);
+
+    /**
+     * Returns a callback for trace events generated by a thread.
+     *
+     * @param thread the thread that generated the events
+     * @return a callback that handles trace events of {@code thread}
+     */
+    Consumer<TraceEvent> generateCallBack(Thread thread);
+}
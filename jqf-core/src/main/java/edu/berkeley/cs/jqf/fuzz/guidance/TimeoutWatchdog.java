@@ -0,0 +1,192 @@
+/*
+ * Copyright (c) 2026 Vladimir Sitnikov and JQF Contributors
+ *
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are
+ * met:
+ *
+ * 1. Redistributions of source code must retain the above copyright
+ * notice, this list of conditions and the following disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright
+ * notice, this list of conditions and the following disclaimer in the
+ * documentation and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+ * HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT
+ * LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ * THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package edu.berkeley.cs.jqf.fuzz.guidance;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+import janala.instrument.FastCoverageListener;
+
+/**
+ * Flags fuzzing trials that run longer than a time limit.
+ *
+ * <p>A daemon thread watches the deadline of the current trial, so the
+ * trial itself never reads the clock. Code running on behalf of the trial
+ * polls {@link #checkTimeout()}, which costs two volatile reads, and it throws
+ * a {@link TimeoutException} once the deadline has passed.</p>
+ *
+ * <p>Guidances call {@link #check(FastCoverageListener)} to poll on every
+ * fast-coverage event. Code instrumented with inline counters makes no calls
+ * at all, so it can only be polled from trace events or from the test
+ * itself.</p>
+ */
+public class TimeoutWatchdog {
+
+    /** A single armed trial; it is replaced rather than reset, so a late flag cannot leak. */
+    private static final class Trial {
+        final long startNanos;
+        final long deadlineNanos;
+        volatile boolean expired;
+
+        Trial(long startNanos, long deadlineNanos) {
+            this.startNanos = startNanos;
+            this.deadlineNanos = deadlineNanos;
+        }
+    }
+
+    private final long timeoutMillis;
+    final Thread thread;
+    private volatile Trial current;
+    private volatile boolean idle;
+    private volatile boolean closed;
+
+    /**
+     * Starts a watchdog thread.
+     *
+     * @param timeoutMillis the time limit of each trial, in milliseconds
+     */
+    public TimeoutWatchdog(long timeoutMillis) {
+        if (timeoutMillis <= 0) {
+            throw new IllegalArgumentException("Timeout must be positive: " + timeoutMillis);
+        }
+        this.timeoutMillis = timeoutMillis;
+        this.thread = new Thread(this::watch, "jqf-timeout-watchdog");
+        this.thread.setDaemon(true);
+        this.thread.start();
+    }
+
+    /** Starts timing a new trial. */
+    public void arm() {
+        long now = System.nanoTime();
+        current = new Trial(now, now + TimeUnit.MILLISECONDS.toNanos(timeoutMillis));
+        if (idle) {
+            LockSupport.unpark(thread);
+        }
+    }
+
+    /** Stops timing the current trial. */
+    public void disarm() {
+        current = null;
+    }
+
+    /** Returns whether the current trial has run past its deadline. */
+    public boolean hasExpired() {
+        Trial trial = current;
+        return trial != null && trial.expired;
+    }
+
+    /**
+     * Throws if the current trial has run past its deadline.
+     *
+     * @throws TimeoutException if the trial has timed out
+     */
+    public void checkTimeout() throws TimeoutException {
+        Trial trial = current;
+        if (trial != null && trial.expired) {
+            long elapsed = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - trial.startNanos);
+            throw new TimeoutException(elapsed, timeoutMillis);
+        }
+    }
+
+    /**
+     * Wraps a fast-coverage listener so that every event it receives polls
+     * this watchdog.
+     *
+     * @param listener the listener to wrap
+     * @return a listener that forwards events to {@code listener}
+     */
+    public FastCoverageListener check(FastCoverageListener listener) {
+        return new FastCoverageListener() {
+            @Override
+            public void logMethodBegin(int iid) {
+                listener.logMethodBegin(iid);
+                checkTimeout();
+            }
+
+            @Override
+            public void logMethodEnd(int iid) {
+                listener.logMethodEnd(iid);
+            }
+
+            @Override
+            public void logJump(int iid, int branch) {
+                listener.logJump(iid, branch);
+                checkTimeout();
+            }
+
+            @Override
+            public void logLookUpSwitch(int value, int iid, int dflt, int[] cases) {
+                listener.logLookUpSwitch(value, iid, dflt, cases);
+                checkTimeout();
+            }
+
+            @Override
+            public void logTableSwitch(int value, int iid, int min, int max, int dflt) {
+                listener.logTableSwitch(value, iid, min, max, dflt);
+                checkTimeout();
+            }
+        };
+    }
+
+    /** Stops the watchdog thread. */
+    public void close() {
+        closed = true;
+        current = null;
+        LockSupport.unpark(thread);
+    }
+
+    private void watch() {
+        while (!closed) {
+            Trial trial = current;
+            if (trial == null) {
+                // Wait for arm(), which only unparks us if we are idle
+                idle = true;
+                if (current == null && !closed) {
+                    LockSupport.park(this);
+                }
+                idle = false;
+                continue;
+            }
+            long remaining = trial.deadlineNanos - System.nanoTime();
+            if (remaining > 0) {
+                LockSupport.parkNanos(this, remaining);
+            } else {
+                trial.expired = true;
+                // Nothing to do until the next trial is armed
+                while (current == trial && !closed) {
+                    idle = true;
+                    if (current == trial && !closed) {
+                        LockSupport.park(this);
+                    }
+                    idle = false;
+                }
+            }
+        }
+    }
+}
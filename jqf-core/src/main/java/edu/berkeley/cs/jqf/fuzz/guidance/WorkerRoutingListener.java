@@ -0,0 +1,98 @@
+/*
+ * Copyright (c) 2026 Vladimir Sitnikov and JQF Contributors
+ *
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are
+ * met:
+ *
+ * 1. Redistributions of source code must retain the above copyright
+ * notice, this list of conditions and the following disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright
+ * notice, this list of conditions and the following disclaimer in the
+ * documentation and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+ * HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT
+ * LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ * THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package edu.berkeley.cs.jqf.fuzz.guidance;
+
+import java.util.function.Supplier;
+
+import janala.instrument.FastCoverageListener;
+
+/**
+ * Forwards fast-coverage probes to the listener of the worker that owns
+ * the current thread.
+ *
+ * <p>{@link edu.berkeley.cs.jqf.instrument.tracing.FastCoverageSnoop} has
+ * a single listener for all threads, so a {@link ParallelGuidance} whose
+ * workers run concurrently installs one of these, and keeps the listener
+ * of each worker (usually its run coverage, possibly wrapped by a
+ * {@link TimeoutWatchdog}) in a thread-local. Probes hit by threads that
+ * are not workers are dropped, since they cannot be attributed to a
+ * trial.</p>
+ */
+public class WorkerRoutingListener implements FastCoverageListener {
+
+    private final Supplier<FastCoverageListener> currentListener;
+
+    /**
+     * @param currentListener returns the listener of the worker that owns
+     *                        the current thread, or null if there is none
+     */
+    public WorkerRoutingListener(Supplier<FastCoverageListener> currentListener) {
+        this.currentListener = currentListener;
+    }
+
+    @Override
+    public void logMethodBegin(int iid) {
+        FastCoverageListener listener = currentListener.get();
+        if (listener != null) {
+            listener.logMethodBegin(iid);
+        }
+    }
+
+    @Override
+    public void logMethodEnd(int iid) {
+        FastCoverageListener listener = currentListener.get();
+        if (listener != null) {
+            listener.logMethodEnd(iid);
+        }
+    }
+
+    @Override
+    public void logJump(int iid, int branch) {
+        FastCoverageListener listener = currentListener.get();
+        if (listener != null) {
+            listener.logJump(iid, branch);
+        }
+    }
+
+    @Override
+    public void logLookUpSwitch(int value, int iid, int dflt, int[] cases) {
+        FastCoverageListener listener = currentListener.get();
+        if (listener != null) {
+            listener.logLookUpSwitch(value, iid, dflt, cases);
+        }
+    }
+
+    @Override
+    public void logTableSwitch(int value, int iid, int min, int max, int dflt) {
+        FastCoverageListener listener = currentListener.get();
+        if (listener != null) {
+            listener.logTableSwitch(value, iid, min, max, dflt);
+        }
+    }
+}
@@ -0,0 +1,343 @@
+/*
+ * Copyright (c) 2026 Vladimir Sitnikov and JQF Contributors
+ *
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are
+ * met:
+ *
+ * 1. Redistributions of source code must retain the above copyright
+ * notice, this list of conditions and the following disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright
+ * notice, this list of conditions and the following disclaimer in the
+ * documentation and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+ * HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT
+ * LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ * THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package edu.berkeley.cs.jqf.fuzz.repro;
+
+import java.io.BufferedInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.function.LongSupplier;
+
+import edu.berkeley.cs.jqf.fuzz.guidance.Guidance;
+import edu.berkeley.cs.jqf.fuzz.guidance.GuidanceException;
+import edu.berkeley.cs.jqf.fuzz.guidance.ParallelGuidance;
+import edu.berkeley.cs.jqf.fuzz.guidance.Result;
+import edu.berkeley.cs.jqf.fuzz.guidance.TimeoutWatchdog;
+import edu.berkeley.cs.jqf.fuzz.guidance.WorkerRoutingListener;
+import edu.berkeley.cs.jqf.fuzz.util.Coverage;
+import edu.berkeley.cs.jqf.fuzz.util.Counter;
+import edu.berkeley.cs.jqf.fuzz.util.CoverageFactory;
+import edu.berkeley.cs.jqf.fuzz.util.ICoverage;
+import edu.berkeley.cs.jqf.fuzz.util.IOUtils;
+import edu.berkeley.cs.jqf.instrument.tracing.FastCoverageSnoop;
+import edu.berkeley.cs.jqf.instrument.tracing.events.TraceEvent;
+import janala.instrument.FastCoverageListener;
+import org.eclipse.collections.api.list.primitive.IntList;
+import org.eclipse.collections.impl.map.mutable.primitive.LongObjectHashMap;
+import org.eclipse.collections.impl.set.mutable.primitive.IntHashSet;
+import org.eclipse.collections.impl.set.mutable.primitive.LongHashSet;
+
+/**
+ * Distills a corpus to a subset of inputs with the same coverage.
+ *
+ * <p>The corpus is replayed, possibly by several workers at once (see
+ * {@link edu.berkeley.cs.jqf.fuzz.FuzzRunner#runParallel}), and the edges
+ * covered by each input are recorded along with their hit counts. Inputs
+ * that fail, or that run longer than the optional time limit, are left out.
+ * {@link #minimize()} then picks inputs greedily, in the style of
+ * <code>afl-cmin</code>: an edge hit a number of times within a power of
+ * two, as bucketed by the fuzzer's coverage, forms a tuple, and every tuple
+ * has a champion, the smallest input that covers it (the fastest one among
+ * equally small inputs). The champions of the rarest tuples are kept until
+ * every tuple is covered.</p>
+ *
+ * <p>Edges are collected with fast non-colliding coverage when
+ * <code>useFastNonCollidingCoverageInstrumentation</code> is set, and from
+ * trace events otherwise.</p>
+ */
+public class CorpusMinimizer implements ParallelGuidance {
+
+    private final File[] inputFiles;
+    private final AtomicInteger nextFileIdx = new AtomicInteger();
+
+    /** The tuples covered by each input (see {@link #tuple}), or null if it was not replayed or failed. */
+    private final long[][] covered;
+
+    /** How long each input took to run. */
+    private final long[] nanos;
+
+    private final AtomicInteger numFailed = new AtomicInteger();
+
+    private final long timeoutMillis;
+
+    /** Measures run times, in nanoseconds. */
+    private final LongSupplier clock;
+
+    private final Map<Thread, Worker> workers = new ConcurrentHashMap<>();
+    private final ThreadLocal<Worker> currentWorker = new ThreadLocal<>();
+
+    /**
+     * @param inputFiles    the corpus to minimize
+     * @param timeoutMillis the time limit of each run in milliseconds, or 0
+     *                      for none; inputs that exceed it are left out
+     */
+    public CorpusMinimizer(File[] inputFiles, long timeoutMillis) {
+        this(inputFiles, timeoutMillis, System::nanoTime);
+    }
+
+    CorpusMinimizer(File[] inputFiles, long timeoutMillis, LongSupplier clock) {
+        this.inputFiles = inputFiles;
+        this.covered = new long[inputFiles.length][];
+        this.nanos = new long[inputFiles.length];
+        this.timeoutMillis = timeoutMillis;
+        this.clock = clock;
+    }
+
+    /**
+     * @param inputDirectory a directory of inputs, or a single input file
+     * @param timeoutMillis  the time limit of each run in milliseconds, or 0 for none
+     * @throws IOException if the inputs cannot be listed
+     */
+    public CorpusMinimizer(File inputDirectory, long timeoutMillis) throws IOException {
+        this(IOUtils.resolveInputFileOrDirectory(inputDirectory), timeoutMillis);
+    }
+
+    @Override
+    public synchronized Guidance newWorker(int workerId) {
+        Worker worker = new Worker();
+        if (FastCoverageSnoop.isInlineCountersEnabled()) {
+            // Inline counters are shared by all threads, so they cannot be attributed to a worker
+            if (!workers.isEmpty()) {
+                throw new UnsupportedOperationException("Parallel corpus minimization does not support janala.inlineCounters");
+            }
+            FastCoverageSnoop.setFastCoverageListener(worker.fastCoverageListener);
+            FastCoverageSnoop.setInlineCounterOwner(worker.runCoverage);
+        } else if (worker.fastCoverageListener != null) {
+            FastCoverageSnoop.setFastCoverageListener(new WorkerRoutingListener(() -> {
+                Worker current = currentWorker.get();
+                return current != null ? current.fastCoverageListener : null;
+            }));
+        }
+        workers.put(Thread.currentThread(), worker);
+        currentWorker.set(worker);
+        return worker;
+    }
+
+    @Override
+    public Consumer<TraceEvent> generateCallBack(Thread thread) {
+        Worker worker = workers.get(thread);
+        if (worker == null || !(worker.runCoverage instanceof Coverage)) {
+            // Either not a worker, or coverage is collected by fast instrumentation
+            return (e) -> {};
+        }
+        return worker::handleEvent;
+    }
+
+    /** Returns how many inputs failed or timed out, and were left out. */
+    public int getNumFailed() {
+        return numFailed.get();
+    }
+
+    /** Combines an edge with the highest one bit of its hit count, i.e. its bucket. */
+    private static long tuple(int edge, int count) {
+        return ((long) edge << 5) | (31 - Integer.numberOfLeadingZeros(count));
+    }
+
+    private static int edge(long tuple) {
+        return (int) (tuple >> 5);
+    }
+
+    /**
+     * Picks a subset of the replayed inputs that covers every edge covered
+     * by the whole corpus, with every hit count bucket that it is covered with.
+     *
+     * @return the picked inputs, in corpus order
+     */
+    public List<File> minimize() {
+        // Prefer small inputs, then fast ones
+        Comparator<Integer> preferred = Comparator.<Integer>comparingLong(i -> inputFiles[i].length())
+                .thenComparingLong(i -> nanos[i])
+                .thenComparingInt(i -> i);
+
+        // Find the champion of every tuple, and how many inputs cover it
+        LongObjectHashMap<Integer> champions = new LongObjectHashMap<>();
+        LongObjectHashMap<int[]> hits = new LongObjectHashMap<>();
+        for (int i = 0; i < covered.length; i++) {
+            if (covered[i] == null) {
+                continue;
+            }
+            for (long tuple : covered[i]) {
+                Integer champion = champions.get(tuple);
+                if (champion == null || preferred.compare(i, champion) < 0) {
+                    champions.put(tuple, i);
+                }
+                hits.getIfAbsentPut(tuple, () -> new int[1])[0]++;
+            }
+        }
+
+        // Visit the rarest tuples first, keeping the champion of each tuple not yet covered
+        long[] tuples = champions.keySet().toArray();
+        Arrays.sort(tuples);
+        Long[] order = new Long[tuples.length];
+        for (int i = 0; i < tuples.length; i++) {
+            order[i] = tuples[i];
+        }
+        Arrays.sort(order, Comparator.comparingInt(tuple -> hits.get(tuple)[0]));
+        LongHashSet coveredSoFar = new LongHashSet();
+        boolean[] kept = new boolean[inputFiles.length];
+        for (long tuple : order) {
+            if (coveredSoFar.contains(tuple)) {
+                continue;
+            }
+            int champion = champions.get(tuple);
+            kept[champion] = true;
+            coveredSoFar.addAll(covered[champion]);
+        }
+
+        List<File> result = new ArrayList<>();
+        for (int i = 0; i < kept.length; i++) {
+            if (kept[i]) {
+                result.add(inputFiles[i]);
+            }
+        }
+        return result;
+    }
+
+    /** Returns the number of distinct edges covered by the replayed inputs. */
+    public int getNumEdges() {
+        IntHashSet edges = new IntHashSet();
+        for (long[] c : covered) {
+            if (c != null) {
+                for (long tuple : c) {
+                    edges.add(edge(tuple));
+                }
+            }
+        }
+        return edges.size();
+    }
+
+    /**
+     * Copies inputs into a directory, keeping their file names.
+     *
+     * @param inputs          the inputs to copy
+     * @param outputDirectory the directory, which is created if needed
+     * @throws IOException if an input cannot be copied
+     */
+    public static void writeCorpus(List<File> inputs, File outputDirectory) throws IOException {
+        IOUtils.createDirectory(outputDirectory);
+        for (File input : inputs) {
+            Files.copy(input.toPath(), new File(outputDirectory, input.getName()).toPath(),
+                    StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    /** The view of the minimizer used by one worker thread. */
+    private class Worker implements Guidance {
+        private final ICoverage runCoverage = CoverageFactory.newInstance();
+        private final TimeoutWatchdog timeoutWatchdog = timeoutMillis > 0 ? new TimeoutWatchdog(timeoutMillis) : null;
+        private final FastCoverageListener fastCoverageListener;
+        private int fileIdx = -1;
+        private InputStream inputStream;
+        private long runStart;
+
+        Worker() {
+            if (runCoverage instanceof FastCoverageListener) {
+                FastCoverageListener listener = (FastCoverageListener) runCoverage;
+                this.fastCoverageListener = timeoutWatchdog != null ? timeoutWatchdog.check(listener) : listener;
+            } else {
+                this.fastCoverageListener = null;
+            }
+        }
+
+        @Override
+        public boolean hasInput() {
+            // Claim the next input here, since getInput() is not called for every claim
+            fileIdx = nextFileIdx.getAndIncrement();
+            if (fileIdx >= inputFiles.length) {
+                if (timeoutWatchdog != null) {
+                    timeoutWatchdog.close();
+                }
+                return false;
+            }
+            return true;
+        }
+
+        @Override
+        public InputStream getInput() throws GuidanceException {
+            try {
+                runCoverage.clear();
+                inputStream = new BufferedInputStream(new FileInputStream(inputFiles[fileIdx]));
+                runStart = clock.getAsLong();
+                if (timeoutWatchdog != null) {
+                    timeoutWatchdog.arm();
+                }
+                return inputStream;
+            } catch (IOException e) {
+                throw new GuidanceException(e);
+            }
+        }
+
+        @Override
+        public void handleResult(Result result, Throwable error) throws GuidanceException {
+            if (timeoutWatchdog != null) {
+                timeoutWatchdog.disarm();
+            }
+            nanos[fileIdx] = clock.getAsLong() - runStart;
+            GuidanceException.wrap(() -> inputStream.close());
+            if (result == Result.FAILURE || result == Result.TIMEOUT) {
+                numFailed.incrementAndGet();
+            } else {
+                covered[fileIdx] = tuples(runCoverage.getCounter());
+            }
+        }
+
+        private long[] tuples(Counter counter) {
+            IntList edges = counter.getNonZeroIndices();
+            IntList counts = counter.getNonZeroValues();
+            long[] tuples = new long[edges.size()];
+            for (int i = 0; i < tuples.length; i++) {
+                tuples[i] = tuple(edges.get(i), counts.get(i));
+            }
+            return tuples;
+        }
+
+        @Override
+        public Consumer<TraceEvent> generateCallBack(Thread thread) {
+            return CorpusMinimizer.this.generateCallBack(thread);
+        }
+
+        void handleEvent(TraceEvent e) {
+            ((Coverage) runCoverage).handleEvent(e);
+            if (timeoutWatchdog != null) {
+                timeoutWatchdog.checkTimeout();
+            }
+        }
+    }
+}
@@ -0,0 +1,317 @@
+/*
+ * Copyright (c) 2026 Vladimir Sitnikov and JQF Contributors
+ *
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are
+ * met:
+ *
+ * 1. Redistributions of source code must retain the above copyright
+ * notice, this list of conditions and the following disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright
+ * notice, this list of conditions and the following disclaimer in the
+ * documentation and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+ * HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT
+ * LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ * THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package edu.berkeley.cs.jqf.fuzz.repro;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+
+import edu.berkeley.cs.jqf.fuzz.ei.ZestGuidance;
+import edu.berkeley.cs.jqf.fuzz.guidance.Guidance;
+import edu.berkeley.cs.jqf.fuzz.guidance.GuidanceException;
+import edu.berkeley.cs.jqf.fuzz.guidance.ParallelGuidance;
+import edu.berkeley.cs.jqf.fuzz.guidance.Result;
+import edu.berkeley.cs.jqf.fuzz.guidance.TimeoutWatchdog;
+import edu.berkeley.cs.jqf.fuzz.guidance.WorkerRoutingListener;
+import edu.berkeley.cs.jqf.instrument.tracing.FastCoverageSnoop;
+import edu.berkeley.cs.jqf.instrument.tracing.events.TraceEvent;
+import janala.instrument.FastCoverageListener;
+
+/**
+ * Shrinks a failing input while it still fails the same way.
+ *
+ * <p>Saved inputs are the byte streams that the generators read, so the
+ * minimizer works on bytes with delta debugging (ddmin): it tries every
+ * chunk of the input on its own and every complement of a chunk, keeps the
+ * first candidate that still fails, and halves the chunk size when none
+ * does. A candidate fails the same way if its root cause has the same
+ * {@link ZestGuidance#failureDigest(StackTraceElement[]) digest} as that
+ * of the original input, or if both time out. Whenever a candidate fails,
+ * the bytes after the last one the generators read are dropped as well.</p>
+ *
+ * <p>The candidates of a round are replayed by all workers at once (see
+ * {@link edu.berkeley.cs.jqf.fuzz.FuzzRunner#runParallel}). Once one of
+ * them fails, the rest of the round is skipped.</p>
+ */
+public class CrashMinimizer implements ParallelGuidance {
+
+    private final long timeoutMillis;
+
+    /** The smallest input found so far that fails the same way. */
+    private byte[] current;
+
+    /** The failure to reproduce, or null until the original input has run. */
+    private String signature;
+
+    /** The number of chunks the current input is split into. */
+    private int granularity = 2;
+
+    /** The candidates of the current round; the first {@link #numSubsets} keep a single chunk. */
+    private List<byte[]> round = new ArrayList<>();
+    private int numSubsets;
+    private int nextCandidate = 0;
+    private int numPending = 0;
+
+    /** The first candidate of the current round found to fail, trimmed to the bytes read. */
+    private int bestCandidate = -1;
+    private byte[] bestInput;
+
+    private boolean done = false;
+    private int numRuns = 0;
+
+    private final Map<Thread, Worker> workers = new ConcurrentHashMap<>();
+    private final ThreadLocal<Worker> currentWorker = new ThreadLocal<>();
+
+    /**
+     * @param input         the failing input
+     * @param timeoutMillis the time limit of each run in milliseconds, or 0
+     *                      for none; a run over the limit counts as a timeout
+     */
+    public CrashMinimizer(byte[] input, long timeoutMillis) {
+        this.timeoutMillis = timeoutMillis;
+        this.round.add(input);
+    }
+
+    /**
+     * @param inputFile     the failing input
+     * @param timeoutMillis the time limit of each run in milliseconds, or 0 for none
+     * @throws IOException if the input cannot be read
+     */
+    public CrashMinimizer(File inputFile, long timeoutMillis) throws IOException {
+        this(Files.readAllBytes(inputFile.toPath()), timeoutMillis);
+    }
+
+    @Override
+    public Guidance newWorker(int workerId) {
+        Worker worker = new Worker();
+        workers.put(Thread.currentThread(), worker);
+        currentWorker.set(worker);
+        if (worker.timeoutWatchdog != null) {
+            FastCoverageSnoop.setFastCoverageListener(new WorkerRoutingListener(() -> {
+                Worker current = currentWorker.get();
+                return current != null ? current.fastCoverageListener : null;
+            }));
+        }
+        return worker;
+    }
+
+    @Override
+    public Consumer<TraceEvent> generateCallBack(Thread thread) {
+        Worker worker = workers.get(thread);
+        if (worker == null || worker.timeoutWatchdog == null) {
+            return (e) -> {};
+        }
+        // Trace events are only needed to poll for timeouts
+        return (e) -> worker.timeoutWatchdog.checkTimeout();
+    }
+
+    /**
+     * Returns the smallest input found that fails the same way as the
+     * original one.
+     *
+     * @return the minimized input
+     * @throws IllegalStateException if the original input does not fail
+     */
+    public synchronized byte[] getMinimized() {
+        if (signature == null) {
+            throw new IllegalStateException("The input to minimize does not fail");
+        }
+        return current;
+    }
+
+    /** Returns the number of runs so far. */
+    public synchronized int getNumRuns() {
+        return numRuns;
+    }
+
+    /** Claims the next candidate for a worker; blocks until one is available. */
+    private synchronized int claim() {
+        while (!done && nextCandidate >= round.size()) {
+            try {
+                wait();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new GuidanceException(e);
+            }
+        }
+        if (done) {
+            return -1;
+        }
+        numPending++;
+        return nextCandidate++;
+    }
+
+    /** Records the outcome of a claimed candidate. */
+    private synchronized void complete(int candidate, String failure, int bytesRead) {
+        numRuns++;
+        numPending--;
+        boolean reproduced = failure != null && (signature == null || signature.equals(failure));
+        if (reproduced) {
+            if (signature == null) {
+                signature = failure;
+            }
+            if (bestCandidate < 0 || candidate < bestCandidate) {
+                byte[] input = round.get(candidate);
+                bestCandidate = candidate;
+                bestInput = bytesRead < input.length ? Arrays.copyOf(input, bytesRead) : input;
+            }
+            // Skip the rest of the round
+            nextCandidate = round.size();
+        }
+        if (numPending == 0 && nextCandidate >= round.size()) {
+            nextRound();
+            notifyAll();
+        }
+    }
+
+    private void nextRound() {
+        if (current == null) {
+            // The original input has run
+            if (bestInput == null) {
+                done = true;
+                return;
+            }
+            current = bestInput;
+        } else if (bestInput != null) {
+            granularity = bestCandidate < numSubsets ? 2 : Math.max(granularity - 1, 2);
+            current = bestInput;
+        } else if (granularity < current.length) {
+            granularity = Math.min(granularity * 2, current.length);
+        } else {
+            done = true;
+            return;
+        }
+        if (current.length < 2) {
+            done = true;
+            return;
+        }
+        granularity = Math.min(granularity, current.length);
+
+        // Chunks on their own, then complements of chunks; with two chunks, these are the same
+        List<byte[]> subsets = new ArrayList<>();
+        List<byte[]> complements = new ArrayList<>();
+        for (int i = 0; i < granularity; i++) {
+            int start = (int) ((long) current.length * i / granularity);
+            int end = (int) ((long) current.length * (i + 1) / granularity);
+            if (granularity > 2) {
+                subsets.add(Arrays.copyOfRange(current, start, end));
+            }
+            byte[] complement = new byte[current.length - (end - start)];
+            System.arraycopy(current, 0, complement, 0, start);
+            System.arraycopy(current, end, complement, start, current.length - end);
+            complements.add(complement);
+        }
+        round = new ArrayList<>(subsets);
+        round.addAll(complements);
+        numSubsets = subsets.size();
+        nextCandidate = 0;
+        bestCandidate = -1;
+        bestInput = null;
+    }
+
+    /** The view of the minimizer used by one worker thread. */
+    private class Worker implements Guidance {
+        final TimeoutWatchdog timeoutWatchdog = timeoutMillis > 0 ? new TimeoutWatchdog(timeoutMillis) : null;
+        // Fast-coverage probes are only needed to poll for timeouts
+        final FastCoverageListener fastCoverageListener = timeoutWatchdog != null
+                ? timeoutWatchdog.check(new FastCoverageListener.Default()) : null;
+        private int candidate = -1;
+        private CountingInputStream inputStream;
+
+        @Override
+        public boolean hasInput() {
+            if (candidate >= 0) {
+                // The last candidate was skipped, e.g. because it ran out of bytes
+                complete(candidate, null, 0);
+            }
+            candidate = claim();
+            if (candidate < 0 && timeoutWatchdog != null) {
+                timeoutWatchdog.close();
+            }
+            return candidate >= 0;
+        }
+
+        @Override
+        public InputStream getInput() throws GuidanceException {
+            byte[] bytes;
+            synchronized (CrashMinimizer.this) {
+                bytes = round.get(candidate);
+            }
+            inputStream = new CountingInputStream(bytes);
+            if (timeoutWatchdog != null) {
+                timeoutWatchdog.arm();
+            }
+            return inputStream;
+        }
+
+        @Override
+        public void handleResult(Result result, Throwable error) throws GuidanceException {
+            if (timeoutWatchdog != null) {
+                timeoutWatchdog.disarm();
+            }
+            String failure = null;
+            if (result == Result.TIMEOUT) {
+                failure = "timeout";
+            } else if (result == Result.FAILURE) {
+                Throwable rootCause = error;
+                while (rootCause.getCause() != null) {
+                    rootCause = rootCause.getCause();
+                }
+                failure = ZestGuidance.failureDigest(rootCause.getStackTrace());
+            }
+            int claimed = candidate;
+            candidate = -1;
+            complete(claimed, failure, inputStream.bytesRead());
+        }
+
+        @Override
+        public Consumer<TraceEvent> generateCallBack(Thread thread) {
+            return CrashMinimizer.this.generateCallBack(thread);
+        }
+    }
+
+    /** An input stream that knows how far it has been read. */
+    private static class CountingInputStream extends ByteArrayInputStream {
+        CountingInputStream(byte[] bytes) {
+            super(bytes);
+        }
+
+        int bytesRead() {
+            return pos;
+        }
+    }
+}
@@ -51,6 +51,12 @@ public class Coverage implements TraceEventVisitor, ICoverage<Counter> {
     /** The size of the coverage map. */
     private final int COVERAGE_MAP_SIZE = (1 << 16) - 1; // Minus one to reduce collisions
 
+    /**
+     * Runs hitting more than this fraction (as 1/n) of the map are
+     * merged by scanning the whole map rather than the non-zero list.
+     */
+    private static final int DENSE_RUN_FRACTION = 8;
+
     /** The coverage counts for each edge. */
     private final Counter counter = new NonZeroCachingCounter(COVERAGE_MAP_SIZE);
 
@@ -133,11 +139,12 @@ public class Coverage implements TraceEventVisitor, ICoverage<Counter> {
     public IntList computeNewCoverage(ICoverage baseline) {
         IntArrayList newCoverage = new IntArrayList();
 
+        Counter baselineCounter = baseline.getCounter();
         IntList baseNonZero = this.counter.getNonZeroIndices();
         IntIterator iter = baseNonZero.intIterator();
         while (iter.hasNext()) {
             int idx = iter.next();
-            if (baseline.getCounter().getAtIndex(idx) == 0) {
+            if (baselineCounter.getAtIndex(idx) == 0) {
                 newCoverage.add(idx);
             }
         }
@@ -195,11 +202,32 @@ public class Coverage implements TraceEventVisitor, ICoverage<Counter> {
      */
     @Override
     public boolean updateBits(ICoverage that) {
+        Counter thatCounter = that.getCounter();
+        int thatNonZero = thatCounter.getNonZeroSize();
+        if (thatNonZero == 0) {
+            return false;
+        }
         boolean changed = false;
-        if (that.getCounter().hasNonZeros()) {
+        if (thatNonZero > COVERAGE_MAP_SIZE / DENSE_RUN_FRACTION
+                && thatCounter.counts.length == COVERAGE_MAP_SIZE) {
+            // Dense run: a straight pass over both arrays beats chasing the index list
+            int[] thisCounts = this.counter.counts;
+            int[] thatCounts = thatCounter.counts;
             for (int idx = 0; idx < COVERAGE_MAP_SIZE; idx++) {
+                int before = thisCounts[idx];
+                int after = before | hob(thatCounts[idx]);
+                if (after != before) {
+                    this.counter.setAtIndex(idx, after);
+                    changed = true;
+                }
+            }
+        } else {
+            // Sparse run: only visit the edges that were hit
+            IntList thatIndices = thatCounter.getNonZeroIndices();
+            for (int i = 0; i < thatIndices.size(); i++) {
+                int idx = thatIndices.get(i);
                 int before = this.counter.getAtIndex(idx);
-                int after = before | hob(that.getCounter().getAtIndex(idx));
+                int after = before | hob(thatCounter.getAtIndex(idx));
                 if (after != before) {
                     this.counter.setAtIndex(idx, after);
                     changed = true;
@@ -0,0 +1,286 @@
+/*
+ * Copyright (c) 2026 Vladimir Sitnikov and JQF Contributors
+ *
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are
+ * met:
+ *
+ * 1. Redistributions of source code must retain the above copyright
+ * notice, this list of conditions and the following disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright
+ * notice, this list of conditions and the following disclaimer in the
+ * documentation and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+ * HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT
+ * LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ * THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package edu.berkeley.cs.jqf.fuzz.util;
+
+import java.util.Arrays;
+
+import org.eclipse.collections.api.list.primitive.IntList;
+import org.eclipse.collections.impl.list.mutable.primitive.IntArrayList;
+
+/**
+ * A compact, read-mostly copy of another coverage map.
+ *
+ * <p>Saved inputs keep the coverage of the run that produced them.
+ * Copying a full {@link Coverage} map costs a 64K-entry array per saved
+ * input even though a run typically hits a few hundred edges, so a
+ * snapshot instead stores a sorted array of the covered keys and a
+ * parallel array of their hit counts, bucketed to the highest order bit
+ * in the same way as {@link ICoverage#updateBits(ICoverage)}. Lookups
+ * are binary searches.</p>
+ *
+ * <p>A snapshot can be used anywhere a run coverage is expected as an
+ * argument, e.g. to {@link ICoverage#updateBits(ICoverage)} or
+ * {@link ICoverage#computeNewCoverage(ICoverage)}. It cannot be
+ * incremented, but it can be merged into with {@link #updateBits(ICoverage)}.</p>
+ */
+public class CoverageSnapshot implements ICoverage<Counter> {
+
+    private static final int[] EMPTY = new int[0];
+
+    /** The size of the coverage map this snapshot was taken from. */
+    private final int size;
+
+    /** Covered keys, in ascending order. */
+    private int[] keys;
+
+    /** Bucketed hit counts of the keys at the same position. */
+    private int[] values;
+
+    private final Counter counter = new SnapshotCounter();
+
+    /**
+     * Takes a snapshot of a coverage map.
+     *
+     * @param coverage the coverage to copy
+     */
+    public CoverageSnapshot(ICoverage coverage) {
+        this.size = coverage.size();
+        long[] entries = sortedEntries(coverage.getCounter());
+        this.keys = new int[entries.length];
+        this.values = new int[entries.length];
+        for (int i = 0; i < entries.length; i++) {
+            keys[i] = (int) (entries[i] >>> 32);
+            values[i] = Integer.highestOneBit((int) entries[i]);
+        }
+    }
+
+    private CoverageSnapshot(int size, int[] keys, int[] values) {
+        this.size = size;
+        this.keys = keys;
+        this.values = values;
+    }
+
+    /**
+     * Returns the non-zero entries of a counter as (key, count) pairs
+     * packed into longs and sorted by key.
+     */
+    private static long[] sortedEntries(Counter counter) {
+        IntList indices = counter.getNonZeroIndices();
+        IntList counts = counter.getNonZeroValues();
+        long[] entries = new long[indices.size()];
+        for (int i = 0; i < entries.length; i++) {
+            entries[i] = ((long) indices.get(i) << 32) | (counts.get(i) & 0xFFFFFFFFL);
+        }
+        Arrays.sort(entries);
+        return entries;
+    }
+
+    @Override
+    public CoverageSnapshot copy() {
+        return new CoverageSnapshot(size, keys.clone(), values.clone());
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public int getNonZeroCount() {
+        return keys.length;
+    }
+
+    @Override
+    public IntList getCovered() {
+        return IntArrayList.newListWith(keys).asUnmodifiable();
+    }
+
+    @Override
+    public IntList computeNewCoverage(ICoverage baseline) {
+        IntArrayList newCoverage = new IntArrayList();
+        Counter baselineCounter = baseline.getCounter();
+        // Fast coverage is keyed by probe ID; other counters are hashed, so look up by index
+        boolean keyed = baselineCounter instanceof FastNonCollidingCounter;
+        for (int key : keys) {
+            int count = keyed ? baselineCounter.get(key) : baselineCounter.getAtIndex(key);
+            if (count == 0) {
+                newCoverage.add(key);
+            }
+        }
+        return newCoverage;
+    }
+
+    @Override
+    public void clear() {
+        this.keys = EMPTY;
+        this.values = EMPTY;
+    }
+
+    @Override
+    public boolean updateBits(ICoverage that) {
+        long[] entries = sortedEntries(that.getCounter());
+        int[] newKeys = new int[keys.length + entries.length];
+        int[] newValues = new int[newKeys.length];
+        boolean changed = false;
+        int i = 0, j = 0, n = 0;
+        while (i < keys.length || j < entries.length) {
+            int thatKey = j < entries.length ? (int) (entries[j] >>> 32) : Integer.MAX_VALUE;
+            if (i < keys.length && keys[i] < thatKey) {
+                newKeys[n] = keys[i];
+                newValues[n++] = values[i++];
+            } else if (i < keys.length && keys[i] == thatKey) {
+                int before = values[i++];
+                int after = before | Integer.highestOneBit((int) entries[j++]);
+                changed |= after != before;
+                newKeys[n] = thatKey;
+                newValues[n++] = after;
+            } else {
+                newKeys[n] = thatKey;
+                newValues[n++] = Integer.highestOneBit((int) entries[j++]);
+                changed = true;
+            }
+        }
+        if (changed) {
+            this.keys = Arrays.copyOf(newKeys, n);
+            this.values = Arrays.copyOf(newValues, n);
+        }
+        return changed;
+    }
+
+    /** Returns the position of a key, or a negative number if it is not covered. */
+    private int find(int key) {
+        return Arrays.binarySearch(keys, key);
+    }
+
+    /** Returns a hash code of the edge counts in the coverage map. */
+    @Override
+    public int hashCode() {
+        return 31 * Arrays.hashCode(keys) + Arrays.hashCode(values);
+    }
+
+    @Override
+    public int nonZeroHashCode() {
+        return getCovered().hashCode();
+    }
+
+    @Override
+    public Counter getCounter() {
+        return counter;
+    }
+
+    /**
+     * @return a string representing the counter
+     */
+    @Override
+    public String toString() {
+        StringBuffer sb = new StringBuffer();
+        sb.append("Coverage counts: \n");
+        for (int i = 0; i < keys.length; i++) {
+            sb.append(keys[i]);
+            sb.append("->");
+            sb.append(values[i]);
+            sb.append('\n');
+        }
+        return sb.toString();
+    }
+
+    /**
+     * A read-only view of the snapshot as a {@link Counter}.
+     *
+     * <p>Keys and indices are the same thing here: the snapshot stores
+     * whatever the source coverage used as its covered entries.</p>
+     */
+    private class SnapshotCounter extends Counter {
+
+        SnapshotCounter() {
+            super(1);
+        }
+
+        @Override
+        public int size() {
+            return size;
+        }
+
+        @Override
+        public void clear() {
+            CoverageSnapshot.this.clear();
+        }
+
+        @Override
+        protected int incrementAtIndex(int index, int delta) {
+            throw new UnsupportedOperationException("Coverage snapshots cannot be incremented");
+        }
+
+        @Override
+        public int increment(int key) {
+            throw new UnsupportedOperationException("Coverage snapshots cannot be incremented");
+        }
+
+        @Override
+        public int increment(int key, int delta) {
+            throw new UnsupportedOperationException("Coverage snapshots cannot be incremented");
+        }
+
+        @Override
+        public void setAtIndex(int idx, int value) {
+            throw new UnsupportedOperationException("Coverage snapshots cannot be modified");
+        }
+
+        @Override
+        public int getNonZeroSize() {
+            return keys.length;
+        }
+
+        @Override
+        public boolean hasNonZeros() {
+            return keys.length > 0;
+        }
+
+        @Override
+        public IntList getNonZeroIndices() {
+            return getCovered();
+        }
+
+        @Override
+        public IntList getNonZeroValues() {
+            return IntArrayList.newListWith(values).asUnmodifiable();
+        }
+
+        @Override
+        public int get(int key) {
+            return getAtIndex(key);
+        }
+
+        @Override
+        public int getAtIndex(int idx) {
+            int pos = find(idx);
+            return pos >= 0 ? values[pos] : 0;
+        }
+    }
+}
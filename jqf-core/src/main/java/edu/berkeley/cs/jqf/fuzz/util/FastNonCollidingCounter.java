@@ -1,36 +1,41 @@
 package edu.berkeley.cs.jqf.fuzz.util;
 
-import org.eclipse.collections.api.iterator.IntIterator;
+import java.util.Arrays;
+
 import org.eclipse.collections.api.list.primitive.IntList;
 import org.eclipse.collections.impl.list.mutable.primitive.IntArrayList;
-import org.eclipse.collections.impl.map.mutable.primitive.IntIntHashMap;
 
 /**
- * An implementation of  {@link Counter} that uses an IntIntHashMap to store values
+ * An implementation of {@link Counter} that is keyed directly by probe ID.
+ *
+ * <p>Probe IDs handed out by the fast coverage instrumentation are small,
+ * dense and sequential, so counts are stored in a plain {@code int[]}
+ * indexed by key, which grows on demand when a higher ID is seen. A list
+ * of the keys with non-zero counts is maintained alongside, so that
+ * clearing and iterating are proportional to the number of probes hit
+ * rather than the number of probes instrumented.</p>
  *
- * "Fast" in that it is faster than using something that involves other HashMaps,
- * and boxing to-and-from primitive values. There is surely a way to make it *faster*
- * than this too, without avoiding the collisions, but given the performance improvement
- * compared to the original (and collision-prone) coverage, I made the opinionated decision
- * to implement it this way to avoid other concerns from high collisions rates on some particular
- * target applications. Further experimentation with fast (non-colliding) coverage implementations
- * might help to determine which approach is preferable.
+ * <p>This class is not thread-safe; callers that may observe
+ * probes from several threads must confine each instance to a single
+ * thread (see {@link FastNonCollidingCoverage}).</p>
  *
  * @author Jonathan Bell
  */
 public class FastNonCollidingCounter extends Counter {
-    /** The counter map as a map of integers. */
-    IntIntHashMap counts;
+    /** The counts, indexed directly by key. */
+    int[] counts;
 
     /* List of indices in the map that are non-zero */
     protected IntArrayList nonZeroKeys;
 
     /**
      * Creates a new counter
+     *
+     * @param size the initial capacity, in number of keys
      */
     public FastNonCollidingCounter(int size) {
         super(1);
-        this.counts = new IntIntHashMap(size);
+        this.counts = new int[size];
         this.nonZeroKeys = new IntArrayList(size / 2);
     }
 
@@ -38,17 +43,20 @@ public class FastNonCollidingCounter extends Counter {
     /**
      * Returns the size of this counter.
      *
-     * @return the size of this counter
+     * @return the number of keys with non-zero counts
      */
-    public synchronized int size() {
-        return this.counts.size();
+    public int size() {
+        return this.nonZeroKeys.size();
     }
 
     /**
      * Clears the counter by setting all values to zero.
      */
-    public synchronized void clear() {
-        this.counts.clear();
+    public void clear() {
+        int[] counts = this.counts;
+        for (int i = 0; i < nonZeroKeys.size(); i++) {
+            counts[nonZeroKeys.get(i)] = 0;
+        }
         this.nonZeroKeys.clear();
     }
 
@@ -59,8 +67,12 @@ public class FastNonCollidingCounter extends Counter {
      * @param key the key whose count to increment
      * @return the new value after incrementing the count
      */
-    public synchronized int increment(int key) {
-        int newVal = this.counts.addToValue(key, 1);
+    public int increment(int key) {
+        int[] counts = this.counts;
+        if (key >= counts.length) {
+            counts = grow(key);
+        }
+        int newVal = ++counts[key];
         if (newVal == 1) {
             this.nonZeroKeys.add(key);
         }
@@ -75,14 +87,43 @@ public class FastNonCollidingCounter extends Counter {
      * @param delta the amount to increment by
      * @return the new value after incrementing the count
      */
-    public synchronized int increment(int key, int delta) {
-        int newVal = this.counts.addToValue(key, delta);
-        if (newVal == delta) {
+    public int increment(int key, int delta) {
+        int[] counts = this.counts;
+        if (key >= counts.length) {
+            counts = grow(key);
+        }
+        int newVal = counts[key] += delta;
+        if (newVal == delta && delta != 0) {
             nonZeroKeys.add(key);
         }
         return newVal;
     }
 
+    /**
+     * Sets the count at the given key, tracking it as non-zero if it
+     * was previously zero.
+     *
+     * @param key the key whose count to set
+     * @param value the new (non-zero) count
+     */
+    void set(int key, int value) {
+        int[] counts = this.counts;
+        if (key >= counts.length) {
+            counts = grow(key);
+        }
+        if (counts[key] == 0) {
+            nonZeroKeys.add(key);
+        }
+        counts[key] = value;
+    }
+
+    /** Grows the backing array so that it can hold the given key. */
+    private int[] grow(int key) {
+        int newLength = Math.max(counts.length * 2, Integer.highestOneBit(key) << 1);
+        counts = Arrays.copyOf(counts, newLength);
+        return counts;
+    }
+
     @Override
     protected int incrementAtIndex(int index, int delta) {
         throw new UnsupportedOperationException("This coverage is already non-colliding, please just use get");
@@ -103,7 +144,7 @@ public class FastNonCollidingCounter extends Counter {
      *
      * @return the number of indices with non-zero counts
      */
-    public synchronized int getNonZeroSize() {
+    public int getNonZeroSize() {
         return nonZeroKeys.size();
     }
 
@@ -113,7 +154,7 @@ public class FastNonCollidingCounter extends Counter {
      *
      * @return a set of keys at which the count is non-zero
      */
-    public synchronized IntList getNonZeroKeys() {
+    public IntList getNonZeroKeys() {
         return this.nonZeroKeys;
     }
 
@@ -126,14 +167,10 @@ public class FastNonCollidingCounter extends Counter {
      *
      * @return a set of non-zero count values in this counter.
      */
-    public synchronized IntList getNonZeroValues() {
-        IntArrayList values = new IntArrayList(this.counts.size() / 2);
-        IntIterator iter = this.counts.values().intIterator();
-        while (iter.hasNext()) {
-            int val = iter.next();
-            if (val != 0) {
-                values.add(val);
-            }
+    public IntList getNonZeroValues() {
+        IntArrayList values = new IntArrayList(nonZeroKeys.size());
+        for (int i = 0; i < nonZeroKeys.size(); i++) {
+            values.add(counts[nonZeroKeys.get(i)]);
         }
         return values;
     }
@@ -141,18 +178,16 @@ public class FastNonCollidingCounter extends Counter {
     /**
      * Retreives a value for a given key.
      *
-     * <p>The key is first hashed to retreive a value from
-     * the counter, and hence the result is modulo collisions.</p>
-     *
      * @param key the key to query
-     * @return the count for the index corresponding to this key
+     * @return the count for this key
      */
-    public synchronized  int get(int key) {
-        return this.counts.get(key);
+    public int get(int key) {
+        int[] counts = this.counts;
+        return key < counts.length ? counts[key] : 0;
     }
 
-    public synchronized void copyFrom(FastNonCollidingCounter counter) {
-        this.counts = new IntIntHashMap(counter.counts);
+    public void copyFrom(FastNonCollidingCounter counter) {
+        this.counts = counter.counts.clone();
         this.nonZeroKeys = new IntArrayList(counter.nonZeroKeys.size());
         this.nonZeroKeys.addAll(counter.nonZeroKeys);
     }
@@ -28,23 +28,29 @@
  */
 package edu.berkeley.cs.jqf.fuzz.util;
 
+import edu.berkeley.cs.jqf.instrument.tracing.FastCoverageSnoop;
 import edu.berkeley.cs.jqf.instrument.tracing.events.BranchEvent;
 import edu.berkeley.cs.jqf.instrument.tracing.events.CallEvent;
 import edu.berkeley.cs.jqf.instrument.tracing.events.TraceEvent;
 import janala.instrument.FastCoverageListener;
 import org.eclipse.collections.api.iterator.IntIterator;
 import org.eclipse.collections.api.list.primitive.IntList;
-import org.eclipse.collections.api.tuple.primitive.IntIntPair;
 import org.eclipse.collections.impl.list.mutable.primitive.IntArrayList;
 
-import java.util.ArrayList;
 import java.util.Arrays;
-import java.util.Collection;
-import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * Utility class to collect branch and function coverage
  *
+ * <p>Probes are counted without any locking on the thread that created
+ * this coverage map (the fuzzing thread). Probes hit by other threads,
+ * e.g. threads spawned by the test itself, are counted in per-thread
+ * counters that are merged into the main counter the next time the
+ * coverage is queried, which happens when the guidance handles the
+ * result of the run.</p>
+ *
  * @author Jonathan Bell
  */
 public class FastNonCollidingCoverage extends FastCoverageListener.Default implements ICoverage<FastNonCollidingCounter> {
@@ -54,6 +60,18 @@ public class FastNonCollidingCoverage extends FastCoverageListener.Default imple
 
     private final FastNonCollidingCounter counter = new FastNonCollidingCounter(COVERAGE_MAP_SIZE);
 
+    /** The thread that increments {@link #counter} directly. */
+    private final Thread owner = Thread.currentThread();
+
+    /** Counters for probes hit by threads other than the owner. */
+    private final Map<Thread, FastNonCollidingCounter> threadCounters = new ConcurrentHashMap<>();
+
+    /** How many of the counter's non-zero keys have had their pruned probes filled in. */
+    private int derivedUpTo = 0;
+
+    /** Whether the inline counters have been drained since the last {@link #clear()}. */
+    private boolean inlineCountersDrained = false;
+
     /** Creates a new coverage map. */
     public FastNonCollidingCoverage() {
 
@@ -65,7 +83,8 @@ public class FastNonCollidingCoverage extends FastCoverageListener.Default imple
      */
     public FastNonCollidingCoverage copy() {
         FastNonCollidingCoverage ret = new FastNonCollidingCoverage();
-        ret.counter.copyFrom(this.counter);
+        ret.counter.copyFrom(merged());
+        ret.derivedUpTo = ret.counter.nonZeroKeys.size(); // Already filled in
         return ret;
     }
 
@@ -84,7 +103,7 @@ public class FastNonCollidingCoverage extends FastCoverageListener.Default imple
      * @return the number of edges with non-zero counts
      */
     public int getNonZeroCount() {
-        return counter.getNonZeroSize();
+        return merged().getNonZeroSize();
     }
 
     /**
@@ -93,7 +112,7 @@ public class FastNonCollidingCoverage extends FastCoverageListener.Default imple
      * @return a collection of keys that are covered
      */
     public IntList getCovered() {
-        return counter.getNonZeroIndices();
+        return merged().getNonZeroIndices();
     }
 
     /**
@@ -105,7 +124,7 @@ public class FastNonCollidingCoverage extends FastCoverageListener.Default imple
     public IntList computeNewCoverage(ICoverage baseline) {
         IntArrayList newCoverage = new IntArrayList();
 
-        IntList baseNonZero = this.counter.getNonZeroKeys();
+        IntList baseNonZero = merged().getNonZeroKeys();
         IntIterator iter = baseNonZero.intIterator();
         while (iter.hasNext()) {
             int idx = iter.next();
@@ -121,6 +140,12 @@ public class FastNonCollidingCoverage extends FastCoverageListener.Default imple
      */
     public void clear() {
         this.counter.clear();
+        this.threadCounters.clear();
+        this.derivedUpTo = 0;
+        this.inlineCountersDrained = false;
+        if (ownsInlineCounters()) {
+            Arrays.fill(FastCoverageSnoop.INLINE_COUNTERS, 0, FastCoverageSnoop.getInlineCountersInUse(), 0);
+        }
     }
 
     private static int[] HOB_CACHE = new int[1024];
@@ -166,32 +191,37 @@ public class FastNonCollidingCoverage extends FastCoverageListener.Default imple
      */
     public boolean updateBits(ICoverage that) {
         boolean changed = false;
-        synchronized (this.counter){
-            synchronized (that.getCounter()){
-                FastNonCollidingCounter thatCounter = (FastNonCollidingCounter) that.getCounter();
-                Iterator<IntIntPair> thatIter = thatCounter.counts.keyValuesView().iterator();
-
-                while(thatIter.hasNext()){
-                    IntIntPair coverageEntry = thatIter.next();
-                    int before = this.counter.counts.get(coverageEntry.getOne());
-                    int after = before | hob(coverageEntry.getTwo());
-                    if(after != before){
-                        this.counter.counts.put(coverageEntry.getOne(), after);
-                        changed = true;
-                    }
-                    if(before == 0){
-                        this.counter.nonZeroKeys.add(coverageEntry.getOne());
-                    }
-                }
+        FastNonCollidingCounter thisCounter = merged();
+        Counter thatCounter = that.getCounter();
+        IntList thatKeys = thatCounter.getNonZeroIndices();
+        // Avoid materializing the values of a run coverage, which can be looked up directly
+        int[] thatCounts = thatCounter instanceof FastNonCollidingCounter ?
+                ((FastNonCollidingCounter) thatCounter).counts : null;
+        IntList thatValues = thatCounts == null ? thatCounter.getNonZeroValues() : null;
+        for (int i = 0; i < thatKeys.size(); i++) {
+            int key = thatKeys.get(i);
+            int before = thisCounter.get(key);
+            int after = before | hob(thatCounts != null ? thatCounts[key] : thatValues.get(i));
+            if (after != before) {
+                thisCounter.set(key, after);
+                changed = true;
             }
         }
+        // The pruned probes of the other map have already been filled in
+        derivedUpTo = thisCounter.nonZeroKeys.size();
         return changed;
     }
 
     /** Returns a hash code of the edge counts in the coverage map. */
     @Override
     public int hashCode() {
-        return counter.counts.hashCode();
+        FastNonCollidingCounter counter = merged();
+        int hash = 0;
+        for (int i = 0; i < counter.nonZeroKeys.size(); i++) {
+            int key = counter.nonZeroKeys.get(i);
+            hash += key ^ counter.counts[key];
+        }
+        return hash;
     }
 
     /**
@@ -200,12 +230,74 @@ public class FastNonCollidingCoverage extends FastCoverageListener.Default imple
      * @return a hash of non-zero entries
      */
     public int nonZeroHashCode() {
-        return counter.getNonZeroIndices().hashCode();
+        return merged().getNonZeroIndices().hashCode();
     }
 
     @Override
     public Counter getCounter() {
-        return this.counter;
+        return merged();
+    }
+
+    /**
+     * Returns whether this map receives the counts that inline-instrumented
+     * code writes to {@link FastCoverageSnoop#INLINE_COUNTERS}, as registered
+     * with {@link FastCoverageSnoop#setInlineCounterOwner(Object)}.
+     */
+    private boolean ownsInlineCounters() {
+        return FastCoverageSnoop.isInlineCountersEnabled() && FastCoverageSnoop.getInlineCounterOwner() == this;
+    }
+
+    /**
+     * Folds counts recorded by threads other than the owner, or written
+     * to the inline counters, into the
+     * main counter, and returns the main counter.
+     *
+     * <p>The inline counters are only scanned by the first call after
+     * {@link #clear()}, i.e. when the guidance first reads the coverage of
+     * a finished run; later calls for the same run would only find zeros.</p>
+     */
+    private FastNonCollidingCounter merged() {
+        if (!inlineCountersDrained && ownsInlineCounters()) {
+            inlineCountersDrained = true;
+            int[] inline = FastCoverageSnoop.INLINE_COUNTERS;
+            int inUse = FastCoverageSnoop.getInlineCountersInUse();
+            for (int key = 0; key < inUse; key++) {
+                if (inline[key] != 0) {
+                    counter.increment(key, inline[key]);
+                    inline[key] = 0;
+                }
+            }
+        }
+        if (!threadCounters.isEmpty()) {
+            for (FastNonCollidingCounter local : threadCounters.values()) {
+                synchronized (local) {
+                    for (int i = 0; i < local.nonZeroKeys.size(); i++) {
+                        int key = local.nonZeroKeys.get(i);
+                        counter.increment(key, local.counts[key]);
+                    }
+                    local.clear();
+                }
+            }
+        }
+        deriveProbes();
+        return counter;
+    }
+
+    /**
+     * Fills in the counts of probes that the instrumentation pruned, which
+     * are the sums of the counts of the probes they were derived from.
+     */
+    private void deriveProbes() {
+        IntArrayList keys = counter.nonZeroKeys;
+        for (; derivedUpTo < keys.size(); derivedUpTo++) {
+            int source = keys.get(derivedUpTo);
+            int[] derived = FastCoverageSnoop.getDerivedProbes(source);
+            if (derived != null) {
+                for (int key : derived) {
+                    counter.increment(key, counter.counts[source]);
+                }
+            }
+        }
     }
 
     /**
@@ -213,15 +305,14 @@ public class FastNonCollidingCoverage extends FastCoverageListener.Default imple
      */
     @Override
     public String toString() {
+        FastNonCollidingCounter counter = merged();
         StringBuffer sb = new StringBuffer();
         sb.append("Coverage counts: \n");
-        for (int i = 0; i < counter.counts.size(); i++) {
-            if (counter.counts.get(i) == 0) {
-                continue;
-            }
-            sb.append(i);
+        for (int i = 0; i < counter.nonZeroKeys.size(); i++) {
+            int key = counter.nonZeroKeys.get(i);
+            sb.append(key);
             sb.append("->");
-            sb.append(counter.counts.get(i));
+            sb.append(counter.counts[key]);
             sb.append('\n');
         }
         return sb.toString();
@@ -263,6 +354,14 @@ public class FastNonCollidingCoverage extends FastCoverageListener.Default imple
     }
 
     private void logCoverage(int iid, int arm) {
-        counter.increment(iid + arm);
+        if (Thread.currentThread() == owner) {
+            counter.increment(iid + arm);
+        } else {
+            FastNonCollidingCounter local = threadCounters.computeIfAbsent(Thread.currentThread(),
+                    t -> new FastNonCollidingCounter(COVERAGE_MAP_SIZE));
+            synchronized (local) {
+                local.increment(iid + arm);
+            }
+        }
     }
 }
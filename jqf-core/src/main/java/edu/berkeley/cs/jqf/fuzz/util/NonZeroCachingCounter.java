@@ -96,7 +96,7 @@ public class NonZeroCachingCounter extends Counter {
 
     @Override
     public IntList getNonZeroValues() {
-        IntArrayList values = new IntArrayList(this.size / 2);
+        IntArrayList values = new IntArrayList(nonZeroCount);
         IntIterator iter = nonZeroIndices.intIterator();
         while(iter.hasNext()){
             int idx = iter.next();
@@ -1,27 +1,79 @@
 package edu.berkeley.cs.jqf.fuzz.util;
 
+import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.node.ObjectNode;
 import edu.berkeley.cs.jqf.fuzz.guidance.Result;
 
-import java.io.FileWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
 
 import static edu.berkeley.cs.jqf.fuzz.guidance.Result.FAILURE;
 import static edu.berkeley.cs.jqf.fuzz.guidance.Result.INVALID;
 
+/**
+ * Records one JSON observation per trial in {@code observations.jsonl}.
+ *
+ * <p>Observations are serialized on the fuzzing thread and handed to a
+ * background writer through a bounded queue. The writer keeps the file open
+ * for the whole campaign and flushes in batches. If the queue is full, the
+ * fuzzing thread waits up to a second for room, so memory stays bounded; an
+ * observation that still does not fit, or that is recorded while the thread
+ * is interrupted, is dropped and counted instead of stopping the campaign.
+ * Call {@link #close()} at the end of a campaign to flush what is left.</p>
+ *
+ * <p>One collector can be shared by several fuzzing threads, e.g. the
+ * workers of a parallel campaign; each thread records its own trial.</p>
+ *
+ * <p>The fraction of trials recorded is set by the
+ * {@code jqfObservability.sampleRate} system property (default 1.0). The
+ * queue size is set by {@code jqfObservability.bufferSize}.</p>
+ */
 public class Observability {
 
+    /** Fraction of trials whose observations are recorded. */
+    private static final double SAMPLE_RATE =
+            Double.parseDouble(System.getProperty("jqfObservability.sampleRate", "1.0"));
+
+    /** Maximum number of serialized observations waiting to be written. */
+    private static final int BUFFER_SIZE = Integer.getInteger("jqfObservability.bufferSize", 4096);
+
+    /** How long the writer waits for more observations before checking for close. */
+    private static final long POLL_MILLIS = 100;
+
+    /** How long a fuzzing thread waits for room in a full queue before dropping an observation. */
+    private static final long OFFER_MILLIS = 1000;
+
     private final ObjectMapper objectMapper = new ObjectMapper();
     private final String testClass;
     private final String testMethod;
     private final Path obsPath;
-    private static ObjectNode testCaseJsonObject;
+    /** The observations of the current trial; each fuzzing thread records its own. */
+    private static final ThreadLocal<ObjectNode> testCaseJsonObject = new ThreadLocal<>();
     private final long startTime;
 
+    /** Serialized observations waiting for the writer; null until the first write. */
+    private BlockingQueue<String> pending;
+    private Thread writerThread;
+    private volatile boolean closed;
+    private volatile IOException writeError;
+    /** Observations dropped because the queue stayed full or the fuzzing thread was interrupted. */
+    private long dropped;
+    private long droppedReported;
+
     public Observability(String testClass, String testMethod, long startTime) {
         this.testClass = testClass;
         this.testMethod = testMethod;
@@ -33,21 +85,37 @@ public class Observability {
         this.initializeTestCase();
     }
 
+    /**
+     * Starts recording the observations of the calling thread afresh.
+     *
+     * <p>Each thread that fuzzes with this collector (e.g. each worker of a
+     * parallel campaign) must call this before its first trial.</p>
+     */
     public void initializeTestCase() {
-        testCaseJsonObject = objectMapper.createObjectNode();
-        testCaseJsonObject.putObject("features");
-        testCaseJsonObject.putObject("timing");
-        testCaseJsonObject.putObject("coverage");
-        testCaseJsonObject.putObject("args");
-        testCaseJsonObject.putObject("metadata");
-        testCaseJsonObject.put("type", "test_case");
-        testCaseJsonObject.put("run_start", startTime);
-        testCaseJsonObject.put("property", testMethod);
+        ObjectNode testCase = objectMapper.createObjectNode();
+        testCase.putObject("features");
+        testCase.putObject("timing");
+        testCase.putObject("coverage");
+        testCase.putObject("args");
+        testCase.putObject("metadata");
+        testCase.put("type", "test_case");
+        testCase.put("run_start", startTime);
+        testCase.put("property", testMethod);
+        testCaseJsonObject.set(testCase);
+    }
+
+    private ObjectNode testCase() {
+        ObjectNode testCase = testCaseJsonObject.get();
+        if (testCase == null) {
+            initializeTestCase();
+            testCase = testCaseJsonObject.get();
+        }
+        return testCase;
     }
 
     public static void event(String value, Object payload) throws RuntimeException {
         // Add the payload to the features object
-        JsonNode jsonFeaturesNode = testCaseJsonObject.get("features");
+        JsonNode jsonFeaturesNode = testCaseJsonObject.get().get("features");
         ObjectNode featuresNode = (ObjectNode) jsonFeaturesNode;
 
         if (payload instanceof Integer) {
@@ -62,6 +130,7 @@ public class Observability {
     }
 
     public void addStatus(Result result) {
+        ObjectNode testCaseJsonObject = testCase();
         if (result == INVALID) {
             testCaseJsonObject.put("status", "gave_up");
             testCaseJsonObject.put("status_reason", "assumption violated");
@@ -76,14 +145,14 @@ public class Observability {
     }
 
     public void addTiming(long startTime, long endGenerationTime, long endExecutionTime) {
-        JsonNode timingNode = testCaseJsonObject.get("timing");
+        JsonNode timingNode = testCase().get("timing");
         ObjectNode timingObject = (ObjectNode) timingNode;
         timingObject.put("generation", endGenerationTime - startTime);
         timingObject.put("execution", endExecutionTime - endGenerationTime);
     }
 
     public void addArgs(Object[] args) {
-        JsonNode argsNode = testCaseJsonObject.get("args");
+        JsonNode argsNode = testCase().get("args");
         ObjectNode argsObject = (ObjectNode) argsNode;
         for (int i = 0; i < args.length; i++) {
             argsObject.put("arg" + i, args[i].toString());
@@ -92,19 +161,125 @@ public class Observability {
     }
 
     public void add(String key, String value) {
-        testCaseJsonObject.put(key, value);
+        testCase().put(key, value);
+    }
+
+    /**
+     * Decides whether the current trial should be recorded, according to
+     * the configured sampling rate.
+     *
+     * @return {@code true} if the trial's observations should be written
+     */
+    public boolean shouldRecord() {
+        return SAMPLE_RATE >= 1.0 || ThreadLocalRandom.current().nextDouble() < SAMPLE_RATE;
     }
 
     public void writeToFile() {
-        // Append the JSON object to a file followed by a newline
+        if (writeError != null) {
+            throw new RuntimeException("Failed to write observations to file", writeError);
+        }
+        String jsonString;
         try {
-            String jsonString = objectMapper.writeValueAsString(testCaseJsonObject);
-            try (FileWriter writer = new FileWriter(obsPath.toFile(), true)) {
-                writer.write(jsonString);
-                writer.write(System.lineSeparator()); // Add a new line after each object
-            }
-        } catch (Exception e) {
+            jsonString = objectMapper.writeValueAsString(testCase());
+        } catch (JsonProcessingException e) {
             throw new RuntimeException("Failed to write observations to file", e);
         }
+        // Threads may share this collector; enqueue under the lock so that close() cannot miss a record
+        synchronized (this) {
+            if (writerThread == null) {
+                startWriter();
+            }
+            if (!enqueue(jsonString)) {
+                dropped++;
+            }
+        }
+    }
+
+    /** Queues an observation for the writer, or returns false if it had to be dropped. */
+    private boolean enqueue(String jsonString) {
+        if (pending.offer(jsonString)) {
+            return true;
+        }
+        try {
+            return pending.offer(jsonString, OFFER_MILLIS, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            // Losing one observation is better than aborting the campaign; leave the interrupt to the caller
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    /** Returns how many observations were dropped instead of being written. */
+    public synchronized long getDroppedCount() {
+        return dropped;
+    }
+
+    /**
+     * Waits for all pending observations to be written and closes the file.
+     *
+     * <p>Recording may resume afterwards; the file is then reopened for appending.</p>
+     */
+    public synchronized void close() {
+        if (writerThread == null) {
+            return;
+        }
+        closed = true;
+        try {
+            writerThread.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        writerThread = null;
+        if (dropped > droppedReported) {
+            System.err.println("[WARNING] Dropped " + (dropped - droppedReported) +
+                    " observations that could not be queued for " + obsPath);
+            droppedReported = dropped;
+        }
+        if (writeError != null) {
+            throw new RuntimeException("Failed to write observations to file", writeError);
+        }
+    }
+
+    private void startWriter() {
+        closed = false;
+        pending = new ArrayBlockingQueue<>(BUFFER_SIZE);
+        writerThread = new Thread(this::drain, "jqf-observability-writer");
+        writerThread.setDaemon(true);
+        writerThread.start();
+    }
+
+    /** Body of the writer thread: appends batches of observations until closed. */
+    private void drain() {
+        List<String> batch = new ArrayList<>();
+        try (Writer writer = Files.newBufferedWriter(obsPath, StandardCharsets.UTF_8,
+                StandardOpenOption.CREATE, StandardOpenOption.APPEND)) {
+            while (!closed || !pending.isEmpty()) {
+                String first = pending.poll(POLL_MILLIS, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                pending.drainTo(batch);
+                for (String jsonString : batch) {
+                    writer.write(jsonString);
+                    writer.write(System.lineSeparator()); // Add a new line after each object
+                }
+                writer.flush();
+                batch.clear();
+            }
+        } catch (IOException e) {
+            writeError = e;
+            // Keep the queue moving so that the fuzzing thread never blocks on it
+            while (!closed) {
+                pending.clear();
+                try {
+                    Thread.sleep(POLL_MILLIS);
+                } catch (InterruptedException ie) {
+                    return;
+                }
+            }
+        } catch (InterruptedException e) {
+            // Stop writing
+        }
     }
 }
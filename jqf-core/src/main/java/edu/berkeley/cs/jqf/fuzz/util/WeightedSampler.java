@@ -0,0 +1,164 @@
+/*
+ * Copyright (c) 2026 Vladimir Sitnikov and JQF Contributors
+ *
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are
+ * met:
+ *
+ * 1. Redistributions of source code must retain the above copyright
+ * notice, this list of conditions and the following disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright
+ * notice, this list of conditions and the following disclaimer in the
+ * documentation and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+ * HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT
+ * LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ * THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package edu.berkeley.cs.jqf.fuzz.util;
+
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * A growable list of non-negative weights from which an index can be drawn
+ * with probability proportional to its weight.
+ *
+ * <p>Weights are kept in a Fenwick (binary indexed) tree, so appending,
+ * updating and sampling all take O(log n) time.</p>
+ */
+public class WeightedSampler {
+
+    /** The weight of each index. */
+    private double[] weights = new double[16];
+
+    /** The Fenwick tree over {@link #weights}, 1-based. */
+    private double[] tree = new double[17];
+
+    /** The number of indices. */
+    private int size = 0;
+
+    /** Updates since the tree was last rebuilt; bounds floating-point drift. */
+    private int updatesSinceRebuild = 0;
+
+    /**
+     * Appends a new index with the given weight.
+     *
+     * @param weight the weight of the new index
+     * @return the new index
+     */
+    public int add(double weight) {
+        if (size == weights.length) {
+            weights = Arrays.copyOf(weights, size * 2);
+            rebuild();
+        }
+        int idx = size++;
+        set(idx, weight);
+        return idx;
+    }
+
+    /**
+     * Sets the weight of an existing index.
+     *
+     * @param idx    the index
+     * @param weight its new weight, which must be non-negative
+     */
+    public void set(int idx, double weight) {
+        if (idx < 0 || idx >= size) {
+            throw new IndexOutOfBoundsException("Index: " + idx + ", size: " + size);
+        }
+        if (!(weight >= 0) || Double.isInfinite(weight)) {
+            throw new IllegalArgumentException("Invalid weight: " + weight);
+        }
+        double delta = weight - weights[idx];
+        weights[idx] = weight;
+        if (++updatesSinceRebuild > weights.length) {
+            rebuild();
+        } else {
+            for (int i = idx + 1; i < tree.length; i += i & -i) {
+                tree[i] += delta;
+            }
+        }
+    }
+
+    /** Returns the weight of an index. */
+    public double get(int idx) {
+        if (idx < 0 || idx >= size) {
+            throw new IndexOutOfBoundsException("Index: " + idx + ", size: " + size);
+        }
+        return weights[idx];
+    }
+
+    /** Returns the number of indices. */
+    public int size() {
+        return size;
+    }
+
+    /** Returns the sum of all weights. */
+    public double total() {
+        double sum = 0;
+        for (int i = size; i > 0; i -= i & -i) {
+            sum += tree[i];
+        }
+        return sum;
+    }
+
+    /**
+     * Draws an index with probability proportional to its weight. If all
+     * weights are zero, every index is equally likely.
+     *
+     * @param random the source of randomness
+     * @return the drawn index
+     */
+    public int sample(Random random) {
+        if (size == 0) {
+            throw new IllegalStateException("Cannot sample from an empty sampler");
+        }
+        double total = total();
+        if (!(total > 0)) {
+            return random.nextInt(size);
+        }
+        double target = random.nextDouble() * total;
+
+        // Descend the tree to the first index whose prefix sum exceeds the target
+        int pos = 0;
+        for (int step = Integer.highestOneBit(size); step > 0; step >>= 1) {
+            int next = pos + step;
+            if (next <= size && tree[next] <= target) {
+                pos = next;
+                target -= tree[next];
+            }
+        }
+
+        // Rounding may land past the end or on an index with zero weight
+        int idx = Math.min(pos, size - 1);
+        while (idx > 0 && weights[idx] == 0) {
+            idx--;
+        }
+        return idx;
+    }
+
+    /** Recomputes the tree from the weights in O(capacity). */
+    private void rebuild() {
+        tree = new double[weights.length + 1];
+        for (int i = 1; i < tree.length; i++) {
+            tree[i] += weights[i - 1];
+            int parent = i + (i & -i);
+            if (parent < tree.length) {
+                tree[parent] += tree[i];
+            }
+        }
+        updatesSinceRebuild = 0;
+    }
+}
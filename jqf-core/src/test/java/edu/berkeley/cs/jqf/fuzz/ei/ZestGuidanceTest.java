@@ -0,0 +1,86 @@
+/*
+ * Copyright (c) 2026 Vladimir Sitnikov and JQF Contributors
+ *
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are
+ * met:
+ *
+ * 1. Redistributions of source code must retain the above copyright
+ * notice, this list of conditions and the following disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright
+ * notice, this list of conditions and the following disclaimer in the
+ * documentation and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+ * HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT
+ * LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ * THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package edu.berkeley.cs.jqf.fuzz.ei;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.Random;
+
+import edu.berkeley.cs.jqf.fuzz.util.FastNonCollidingCoverage;
+import edu.berkeley.cs.jqf.instrument.tracing.FastCoverageSnoop;
+import janala.instrument.FastCoverageListener;
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+@RunWith(JUnit4.class)
+public class ZestGuidanceTest {
+
+    @Test
+    public void inlineCountersAreMergedWithTimeout() throws IOException {
+        System.setProperty("jqf.ei.TIMEOUT", "10000");
+        ZestGuidance guidance;
+        try {
+            guidance = new ZestGuidance("test", null, null, Files.createTempDirectory("fuzz-out").toFile(), new Random(42));
+        } finally {
+            System.clearProperty("jqf.ei.TIMEOUT");
+        }
+        // Restore the global coverage state for the tests that follow
+        boolean inlineCountersEnabled = FastCoverageSnoop.isInlineCountersEnabled();
+        Object inlineCounterOwner = FastCoverageSnoop.getInlineCounterOwner();
+        FastCoverageListener listener = FastCoverageSnoop.getFastCoverageListener();
+        try {
+            FastNonCollidingCoverage coverage = new FastNonCollidingCoverage();
+            guidance.listenForFastCoverage(coverage);
+            // Probes are polled for timeouts, so the listener is not the coverage itself
+            Assert.assertNotSame(coverage, FastCoverageSnoop.getFastCoverageListener());
+
+            FastCoverageSnoop.enableInlineCounters();
+            FastCoverageSnoop.reserveInlineCounters(16);
+            FastCoverageSnoop.INLINE_COUNTERS[3] = 2;
+            FastCoverageSnoop.INLINE_COUNTERS[7] = 1;
+            Assert.assertEquals(2, coverage.getNonZeroCount());
+            Assert.assertEquals(2, coverage.getCounter().get(3));
+            Assert.assertEquals(0, FastCoverageSnoop.INLINE_COUNTERS[3]);
+
+            FastCoverageSnoop.INLINE_COUNTERS[5] = 1;
+            coverage.clear();
+            Assert.assertEquals(0, coverage.getNonZeroCount());
+            Assert.assertEquals(0, FastCoverageSnoop.INLINE_COUNTERS[5]);
+        } finally {
+            if (!inlineCountersEnabled) {
+                FastCoverageSnoop.disableInlineCounters();
+            }
+            FastCoverageSnoop.setInlineCounterOwner(inlineCounterOwner);
+            FastCoverageSnoop.setFastCoverageListener(listener);
+            guidance.stopTimeoutWatchdog();
+        }
+    }
+}
@@ -0,0 +1,133 @@
+/*
+ * Copyright (c) 2026 Vladimir Sitnikov and JQF Contributors
+ *
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are
+ * met:
+ *
+ * 1. Redistributions of source code must retain the above copyright
+ * notice, this list of conditions and the following disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright
+ * notice, this list of conditions and the following disclaimer in the
+ * documentation and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+ * HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT
+ * LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ * THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package edu.berkeley.cs.jqf.fuzz.guidance;
+
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * Tests for {@link TimeoutWatchdog}, whose thread flags the armed trial once
+ * its deadline passes.
+ */
+public class TimeoutWatchdogTest {
+
+    private static final long TIMEOUT_MILLIS = 20;
+
+    /** Waits (for much longer than the timeout) until the current trial is flagged. */
+    private static void awaitExpiry(TimeoutWatchdog watchdog) throws InterruptedException {
+        long giveUp = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (!watchdog.hasExpired()) {
+            if (System.nanoTime() > giveUp) {
+                fail("Trial was never flagged");
+            }
+            Thread.sleep(1);
+        }
+    }
+
+    @Test
+    public void expiredTrialThrowsUntilRearmed() throws InterruptedException {
+        TimeoutWatchdog watchdog = new TimeoutWatchdog(TIMEOUT_MILLIS);
+        try {
+            watchdog.arm();
+            awaitExpiry(watchdog);
+            try {
+                watchdog.checkTimeout();
+                fail("Expected a timeout");
+            } catch (TimeoutException e) {
+                // Expected
+            }
+
+            watchdog.arm();
+            assertFalse(watchdog.hasExpired());
+            watchdog.checkTimeout();
+
+            // The watchdog keeps working after an expiry
+            awaitExpiry(watchdog);
+        } finally {
+            watchdog.close();
+        }
+    }
+
+    @Test
+    public void disarmedTrialIsNeverFlagged() throws InterruptedException {
+        TimeoutWatchdog watchdog = new TimeoutWatchdog(TIMEOUT_MILLIS);
+        try {
+            watchdog.arm();
+            watchdog.disarm();
+            Thread.sleep(5 * TIMEOUT_MILLIS);
+            assertFalse(watchdog.hasExpired());
+            watchdog.checkTimeout();
+        } finally {
+            watchdog.close();
+        }
+    }
+
+    @Test
+    public void lateFlagDoesNotLeakIntoTheNextTrial() throws InterruptedException {
+        TimeoutWatchdog watchdog = new TimeoutWatchdog(TIMEOUT_MILLIS);
+        try {
+            for (int i = 0; i < 50; i++) {
+                // Re-arm right around the previous trial's deadline, racing the watchdog thread
+                watchdog.arm();
+                Thread.sleep(TIMEOUT_MILLIS);
+                long armed = System.nanoTime();
+                watchdog.arm();
+                boolean expired = watchdog.hasExpired();
+                if (System.nanoTime() - armed < TimeUnit.MILLISECONDS.toNanos(TIMEOUT_MILLIS)) {
+                    assertFalse("Trial " + i + " was flagged before its deadline", expired);
+                }
+            }
+        } finally {
+            watchdog.close();
+        }
+    }
+
+    @Test
+    public void closeStopsTheThread() throws InterruptedException {
+        TimeoutWatchdog idle = new TimeoutWatchdog(TIMEOUT_MILLIS);
+        TimeoutWatchdog armed = new TimeoutWatchdog(TimeUnit.HOURS.toMillis(1));
+        TimeoutWatchdog expired = new TimeoutWatchdog(TIMEOUT_MILLIS);
+        armed.arm();
+        expired.arm();
+        awaitExpiry(expired);
+
+        for (TimeoutWatchdog watchdog : new TimeoutWatchdog[] { idle, armed, expired }) {
+            assertTrue(watchdog.thread.isAlive());
+            watchdog.close();
+            watchdog.thread.join(TimeUnit.SECONDS.toMillis(10));
+            assertFalse(watchdog.thread.isAlive());
+            assertFalse(watchdog.hasExpired());
+        }
+    }
+}
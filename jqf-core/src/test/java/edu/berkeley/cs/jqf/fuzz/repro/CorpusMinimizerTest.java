@@ -0,0 +1,180 @@
+/*
+ * Copyright (c) 2026 Vladimir Sitnikov and JQF Contributors
+ *
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are
+ * met:
+ *
+ * 1. Redistributions of source code must retain the above copyright
+ * notice, this list of conditions and the following disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright
+ * notice, this list of conditions and the following disclaimer in the
+ * documentation and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+ * HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT
+ * LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ * THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package edu.berkeley.cs.jqf.fuzz.repro;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Consumer;
+
+import edu.berkeley.cs.jqf.fuzz.guidance.Guidance;
+import edu.berkeley.cs.jqf.fuzz.guidance.Result;
+import edu.berkeley.cs.jqf.fuzz.guidance.TimeoutException;
+import edu.berkeley.cs.jqf.instrument.tracing.events.BranchEvent;
+import edu.berkeley.cs.jqf.instrument.tracing.events.TraceEvent;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+@RunWith(JUnit4.class)
+public class CorpusMinimizerTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private File input(String name, int size) throws IOException {
+        File file = folder.newFile(name);
+        Files.write(file.toPath(), new byte[size]);
+        return file;
+    }
+
+    /** Replays one input on a worker, as if its run covered the given branches. */
+    private static void replay(CorpusMinimizer minimizer, Guidance worker, Result result, int... branches)
+            throws IOException {
+        Assert.assertTrue(worker.hasInput());
+        worker.getInput().close();
+        Consumer<TraceEvent> callback = minimizer.generateCallBack(Thread.currentThread());
+        for (int branch : branches) {
+            callback.accept(new BranchEvent(branch, null, 0, 1));
+        }
+        worker.handleResult(result, result == Result.FAILURE ? new RuntimeException() : null);
+    }
+
+    @Test
+    public void keepsTheSmallestInputOfEachEdge() throws IOException {
+        File large = input("large", 10);
+        File small = input("small", 2);
+        File medium = input("medium", 3);
+        CorpusMinimizer minimizer = new CorpusMinimizer(new File[] { large, small, medium }, 0);
+        Guidance worker = minimizer.newWorker(0);
+        replay(minimizer, worker, Result.SUCCESS, 1, 2, 3);
+        replay(minimizer, worker, Result.SUCCESS, 1);
+        replay(minimizer, worker, Result.SUCCESS, 2, 3);
+        Assert.assertFalse(worker.hasInput());
+
+        // The large input covers everything, but each edge has a smaller champion
+        Assert.assertEquals(Arrays.asList(small, medium), minimizer.minimize());
+        Assert.assertEquals(3, minimizer.getNumEdges());
+    }
+
+    @Test
+    public void visitsTheRarestEdgesFirst() throws IOException {
+        File all = input("all", 10);
+        File first = input("first", 1);
+        File second = input("second", 1);
+        CorpusMinimizer minimizer = new CorpusMinimizer(new File[] { all, first, second }, 0);
+        Guidance worker = minimizer.newWorker(0);
+        replay(minimizer, worker, Result.SUCCESS, 1, 2, 3);
+        replay(minimizer, worker, Result.SUCCESS, 2);
+        replay(minimizer, worker, Result.SUCCESS, 3);
+
+        // Edge 1 is only covered by the large input, which already covers the more common edges
+        Assert.assertEquals(Arrays.asList(all), minimizer.minimize());
+    }
+
+    @Test
+    public void keepsTheChampionOfEachHitCountBucket() throws IOException {
+        File once = input("once", 1);
+        File twice = input("twice", 2);
+        File often = input("often", 5);
+        File oftenLarger = input("oftenLarger", 6);
+        CorpusMinimizer minimizer = new CorpusMinimizer(new File[] { once, twice, often, oftenLarger }, 0);
+        Guidance worker = minimizer.newWorker(0);
+        replay(minimizer, worker, Result.SUCCESS, 1);
+        replay(minimizer, worker, Result.SUCCESS, 1, 1);
+        replay(minimizer, worker, Result.SUCCESS, 1, 1, 1, 1, 1);
+        replay(minimizer, worker, Result.SUCCESS, 1, 1, 1, 1, 1, 1, 1);
+
+        // Hit counts 1, 2 and 4-7 fall into different buckets; 5 and 7 into the same one
+        Assert.assertEquals(Arrays.asList(once, twice, often), minimizer.minimize());
+        Assert.assertEquals(1, minimizer.getNumEdges());
+    }
+
+    @Test
+    public void prefersFasterInputsOfTheSameSize() throws IOException {
+        File slow = input("slow", 4);
+        File fast = input("fast", 4);
+        long[] now = { 0 };
+        CorpusMinimizer minimizer = new CorpusMinimizer(new File[] { slow, fast }, 0, () -> now[0]);
+        Guidance worker = minimizer.newWorker(0);
+        Assert.assertTrue(worker.hasInput());
+        worker.getInput().close();
+        now[0] += 50_000_000;
+        minimizer.generateCallBack(Thread.currentThread()).accept(new BranchEvent(1, null, 0, 1));
+        worker.handleResult(Result.SUCCESS, null);
+        replay(minimizer, worker, Result.SUCCESS, 1);
+
+        Assert.assertEquals(Arrays.asList(fast), minimizer.minimize());
+    }
+
+    @Test
+    public void leavesOutFailingInputs() throws IOException {
+        File failing = input("failing", 1);
+        File passing = input("passing", 5);
+        CorpusMinimizer minimizer = new CorpusMinimizer(new File[] { failing, passing }, 0);
+        Guidance worker = minimizer.newWorker(0);
+        replay(minimizer, worker, Result.FAILURE, 1, 2);
+        replay(minimizer, worker, Result.SUCCESS, 1);
+
+        Assert.assertEquals(Arrays.asList(passing), minimizer.minimize());
+        Assert.assertEquals(1, minimizer.getNumEdges());
+        Assert.assertEquals(1, minimizer.getNumFailed());
+    }
+
+    @Test(timeout = 10_000)
+    public void interruptsInputsThatHang() throws IOException {
+        File hanging = input("hanging", 1);
+        File passing = input("passing", 5);
+        CorpusMinimizer minimizer = new CorpusMinimizer(new File[] { hanging, passing }, 50);
+        Guidance worker = minimizer.newWorker(0);
+        Assert.assertTrue(worker.hasInput());
+        worker.getInput().close();
+        Consumer<TraceEvent> callback = minimizer.generateCallBack(Thread.currentThread());
+        TimeoutException timeout = null;
+        while (timeout == null) {
+            try {
+                callback.accept(new BranchEvent(1, null, 0, 1));
+            } catch (TimeoutException e) {
+                timeout = e;
+            }
+        }
+        worker.handleResult(Result.TIMEOUT, timeout);
+        replay(minimizer, worker, Result.SUCCESS, 1);
+        Assert.assertFalse(worker.hasInput());
+
+        List<File> kept = minimizer.minimize();
+        Assert.assertEquals(Arrays.asList(passing), kept);
+        Assert.assertEquals(1, minimizer.getNumFailed());
+    }
+}
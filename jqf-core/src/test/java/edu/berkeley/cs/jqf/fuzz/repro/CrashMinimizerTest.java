@@ -0,0 +1,220 @@
+/*
+ * Copyright (c) 2026 Vladimir Sitnikov and JQF Contributors
+ *
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are
+ * met:
+ *
+ * 1. Redistributions of source code must retain the above copyright
+ * notice, this list of conditions and the following disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright
+ * notice, this list of conditions and the following disclaimer in the
+ * documentation and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+ * HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT
+ * LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ * THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package edu.berkeley.cs.jqf.fuzz.repro;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+import edu.berkeley.cs.jqf.fuzz.guidance.Guidance;
+import edu.berkeley.cs.jqf.fuzz.guidance.Result;
+import edu.berkeley.cs.jqf.fuzz.guidance.TimeoutException;
+import edu.berkeley.cs.jqf.instrument.tracing.events.TraceEvent;
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+@RunWith(JUnit4.class)
+public class CrashMinimizerTest {
+
+    private static byte[] bytes(String s) {
+        return s.getBytes(StandardCharsets.US_ASCII);
+    }
+
+    private static String string(byte[] bytes) {
+        return new String(bytes, StandardCharsets.US_ASCII);
+    }
+
+    private static boolean contains(byte[] bytes, String s) {
+        return string(bytes).contains(s);
+    }
+
+    private static Throwable failure() {
+        return new IllegalStateException();
+    }
+
+    private static Throwable otherFailure() {
+        return new IllegalArgumentException();
+    }
+
+    /**
+     * Replays candidates on a worker of the current thread until the
+     * minimizer is done, as a test that reads at most {@code readLimit}
+     * bytes and throws whatever {@code outcome} returns for them.
+     *
+     * @return the bytes read by each run
+     */
+    private static List<String> replay(CrashMinimizer minimizer, int readLimit,
+                                       Function<byte[], Throwable> outcome) throws IOException {
+        List<String> runs = new ArrayList<>();
+        Guidance worker = minimizer.newWorker(0);
+        while (worker.hasInput()) {
+            InputStream in = worker.getInput();
+            ByteArrayOutputStream read = new ByteArrayOutputStream();
+            int b;
+            while (read.size() < readLimit && (b = in.read()) >= 0) {
+                read.write(b);
+            }
+            byte[] bytes = read.toByteArray();
+            runs.add(string(bytes));
+            Throwable error = outcome.apply(bytes);
+            Result result = error == null ? Result.SUCCESS
+                    : error instanceof TimeoutException ? Result.TIMEOUT : Result.FAILURE;
+            worker.handleResult(result, error);
+        }
+        return runs;
+    }
+
+    @Test
+    public void followsTheGranularityRules() throws IOException {
+        CrashMinimizer minimizer = new CrashMinimizer(bytes("01AB45"), 0);
+        List<String> runs = replay(minimizer, Integer.MAX_VALUE,
+                (b) -> contains(b, "AB") ? failure() : null);
+
+        Assert.assertEquals(Arrays.asList(
+                "01AB45",
+                // Two chunks: only complements, since they are the chunks too
+                "B45", "01A",
+                // Nothing failed, so four chunks; a complement fails and the rest of the round is skipped
+                "0", "1A", "B", "45", "1AB45",
+                // Three chunks after a complement; a chunk fails and the rest of the round is skipped
+                "1", "AB",
+                // Back to two chunks after a chunk, and there is nothing left to split
+                "B", "A"), runs);
+        Assert.assertEquals("AB", string(minimizer.getMinimized()));
+        Assert.assertEquals(runs.size(), minimizer.getNumRuns());
+    }
+
+    @Test
+    public void keepsOnlyTheSameFailure() throws IOException {
+        CrashMinimizer minimizer = new CrashMinimizer(bytes("x1A2y3B4z"), 0);
+        replay(minimizer, Integer.MAX_VALUE, (b) -> {
+            if (contains(b, "A") && contains(b, "B")) {
+                return failure();
+            } else if (contains(b, "A") || contains(b, "B")) {
+                return otherFailure();
+            } else {
+                return null;
+            }
+        });
+
+        Assert.assertEquals("AB", string(minimizer.getMinimized()));
+    }
+
+    @Test
+    public void trimsTheBytesThatWereNotRead() throws IOException {
+        byte[] input = new byte[1000];
+        input[0] = 'X';
+        CrashMinimizer minimizer = new CrashMinimizer(input, 0);
+        replay(minimizer, 1, (b) -> b.length > 0 && b[0] == 'X' ? failure() : null);
+
+        // A single byte cannot be split any further
+        Assert.assertEquals("X", string(minimizer.getMinimized()));
+        Assert.assertEquals(1, minimizer.getNumRuns());
+    }
+
+    @Test
+    public void reproducesTimeoutsOnlyAsTimeouts() throws IOException {
+        CrashMinimizer minimizer = new CrashMinimizer(bytes("XX12H34XX"), 0);
+        replay(minimizer, Integer.MAX_VALUE, (b) -> {
+            if (contains(b, "H")) {
+                return new TimeoutException();
+            } else if (contains(b, "X")) {
+                return failure();
+            } else {
+                return null;
+            }
+        });
+
+        Assert.assertEquals("H", string(minimizer.getMinimized()));
+    }
+
+    @Test(timeout = 10_000)
+    public void interruptsCandidatesThatHang() throws IOException {
+        CrashMinimizer minimizer = new CrashMinimizer(bytes("12H4"), 50);
+        replay(minimizer, Integer.MAX_VALUE, (b) -> {
+            if (!contains(b, "H")) {
+                return null;
+            }
+            Consumer<TraceEvent> callback = minimizer.generateCallBack(Thread.currentThread());
+            while (true) {
+                try {
+                    callback.accept(null);
+                } catch (TimeoutException e) {
+                    return e;
+                }
+            }
+        });
+
+        Assert.assertEquals("H", string(minimizer.getMinimized()));
+    }
+
+    @Test(timeout = 10_000)
+    public void minimizesWithConcurrentWorkers() throws Exception {
+        CrashMinimizer minimizer = new CrashMinimizer(bytes("1A34567B90"), 0);
+        List<Thread> threads = new ArrayList<>();
+        List<Throwable> errors = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            Thread thread = new Thread(() -> {
+                try {
+                    replay(minimizer, Integer.MAX_VALUE,
+                            (b) -> contains(b, "A") && contains(b, "B") ? failure() : null);
+                } catch (Throwable e) {
+                    synchronized (errors) {
+                        errors.add(e);
+                    }
+                }
+            });
+            threads.add(thread);
+            thread.start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        Assert.assertEquals(Arrays.asList(), errors);
+        Assert.assertEquals("AB", string(minimizer.getMinimized()));
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void rejectsInputsThatDoNotFail() throws IOException {
+        CrashMinimizer minimizer = new CrashMinimizer(bytes("1234"), 0);
+        List<String> runs = replay(minimizer, Integer.MAX_VALUE, (b) -> null);
+
+        Assert.assertEquals(Arrays.asList("1234"), runs);
+        minimizer.getMinimized();
+    }
+}
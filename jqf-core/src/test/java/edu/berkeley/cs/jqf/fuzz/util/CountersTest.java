@@ -221,4 +221,28 @@ public class CountersTest {
         counter.clear();
         assertFalse(counter.hasNonZeros());
     }
+
+    @Property
+    public void fastNonCollidingCounterGrows(int[] keys) {
+        FastNonCollidingCounter counter = new FastNonCollidingCounter(4);
+        for (int key : keys) {
+            key = key & 0xFFFF; // Probe IDs are non-negative
+            int before = counter.get(key);
+            int after = counter.increment(key);
+            assertEquals(before + 1, after);
+        }
+        int sum = 0;
+        IntIterator iter = counter.getNonZeroKeys().intIterator();
+        while (iter.hasNext()) {
+            sum += counter.get(iter.next());
+        }
+        assertEquals(keys.length, sum);
+        assertEquals(counter.getNonZeroKeys().size(), counter.getNonZeroValues().size());
+
+        counter.clear();
+        for (int key : keys) {
+            assertEquals(0, counter.get(key & 0xFFFF));
+        }
+        assertFalse(counter.hasNonZeros());
+    }
 }
@@ -0,0 +1,178 @@
+/*
+ * Copyright (c) 2026 Vladimir Sitnikov and JQF Contributors
+ *
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are
+ * met:
+ *
+ * 1. Redistributions of source code must retain the above copyright
+ * notice, this list of conditions and the following disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright
+ * notice, this list of conditions and the following disclaimer in the
+ * documentation and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+ * HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT
+ * LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ * THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package edu.berkeley.cs.jqf.fuzz.util;
+
+import java.util.Random;
+
+import edu.berkeley.cs.jqf.instrument.tracing.events.BranchEvent;
+import org.eclipse.collections.api.list.primitive.IntList;
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+@RunWith(JUnit4.class)
+public class CoverageSnapshotTest {
+
+    private static final int RUNS = 200;
+
+    /** A run that hits up to 60 of 300 branches, some of them many times. */
+    private static Coverage randomRun(Random random) {
+        Coverage run = new Coverage();
+        int events = random.nextInt(60);
+        for (int i = 0; i < events; i++) {
+            BranchEvent e = new BranchEvent(random.nextInt(300), null, 0, random.nextInt(2));
+            int hits = random.nextBoolean() ? 1 : random.nextInt(40);
+            for (int h = 0; h < hits; h++) {
+                run.handleEvent(e);
+            }
+        }
+        return run;
+    }
+
+    /** Like {@link #randomRun(Random)}, keyed by probe ID. */
+    private static FastNonCollidingCoverage randomFastRun(Random random) {
+        FastNonCollidingCoverage run = new FastNonCollidingCoverage();
+        int events = random.nextInt(60);
+        for (int i = 0; i < events; i++) {
+            int iid = random.nextInt(300);
+            int branch = random.nextInt(2);
+            int hits = random.nextBoolean() ? 1 : random.nextInt(40);
+            for (int h = 0; h < hits; h++) {
+                run.logJump(iid, branch);
+            }
+        }
+        return run;
+    }
+
+    private static int[] sorted(IntList list) {
+        return list.toSortedArray();
+    }
+
+    /** Fast coverage is keyed by probe ID; other counters are hashed, so look up by index. */
+    private static int count(ICoverage coverage, int key) {
+        Counter counter = coverage.getCounter();
+        return counter instanceof FastNonCollidingCounter ? counter.get(key) : counter.getAtIndex(key);
+    }
+
+    /** Asserts that both maps cover the same keys with the same counts. */
+    private static void assertSameCounts(ICoverage expected, CoverageSnapshot actual) {
+        int[] keys = sorted(expected.getCovered());
+        Assert.assertArrayEquals(keys, sorted(actual.getCovered()));
+        Assert.assertEquals(expected.getNonZeroCount(), actual.getNonZeroCount());
+        for (int key : keys) {
+            Assert.assertEquals(count(expected, key), count(actual, key));
+        }
+    }
+
+    @Test
+    public void mergesLikeCoverage() {
+        Random random = new Random(42);
+        Coverage total = new Coverage();
+        CoverageSnapshot snapshot = new CoverageSnapshot(new Coverage());
+        for (int i = 0; i < RUNS; i++) {
+            Coverage run = randomRun(random);
+            Assert.assertEquals(total.updateBits(run), snapshot.updateBits(run));
+            assertSameCounts(total, snapshot);
+        }
+    }
+
+    @Test
+    public void mergesLikeFastNonCollidingCoverage() {
+        Random random = new Random(42);
+        FastNonCollidingCoverage total = new FastNonCollidingCoverage();
+        CoverageSnapshot snapshot = new CoverageSnapshot(new FastNonCollidingCoverage());
+        for (int i = 0; i < RUNS; i++) {
+            FastNonCollidingCoverage run = randomFastRun(random);
+            Assert.assertEquals(total.updateBits(run), snapshot.updateBits(run));
+            assertSameCounts(total, snapshot);
+        }
+    }
+
+    @Test
+    public void mergesSnapshotsLikeCoverage() {
+        Random random = new Random(7);
+        Coverage total = new Coverage();
+        CoverageSnapshot snapshot = new CoverageSnapshot(randomRun(random));
+        total.updateBits(snapshot);
+        assertSameCounts(total, snapshot);
+        for (int i = 0; i < RUNS; i++) {
+            // Saved inputs keep snapshots, which are merged in turn
+            CoverageSnapshot run = new CoverageSnapshot(randomRun(random));
+            Assert.assertEquals(total.updateBits(run), snapshot.updateBits(run));
+            assertSameCounts(total, snapshot);
+        }
+    }
+
+    @Test
+    public void snapshotsBucketCountsLikeUpdateBits() {
+        Random random = new Random(11);
+        for (int i = 0; i < RUNS; i++) {
+            Coverage run = randomRun(random);
+            Coverage total = new Coverage();
+            total.updateBits(run);
+            assertSameCounts(total, new CoverageSnapshot(run));
+
+            FastNonCollidingCoverage fastRun = randomFastRun(random);
+            FastNonCollidingCoverage fastTotal = new FastNonCollidingCoverage();
+            fastTotal.updateBits(fastRun);
+            assertSameCounts(fastTotal, new CoverageSnapshot(fastRun));
+        }
+    }
+
+    @Test
+    public void findsTheSameNewCoverage() {
+        Random random = new Random(13);
+        Coverage baseline = new Coverage();
+        FastNonCollidingCoverage fastBaseline = new FastNonCollidingCoverage();
+        for (int i = 0; i < RUNS; i++) {
+            Coverage run = randomRun(random);
+            Assert.assertArrayEquals(sorted(run.computeNewCoverage(baseline)),
+                    sorted(new CoverageSnapshot(run).computeNewCoverage(baseline)));
+            baseline.updateBits(run);
+
+            FastNonCollidingCoverage fastRun = randomFastRun(random);
+            Assert.assertArrayEquals(sorted(fastRun.computeNewCoverage(fastBaseline)),
+                    sorted(new CoverageSnapshot(fastRun).computeNewCoverage(fastBaseline)));
+            fastBaseline.updateBits(fastRun);
+        }
+    }
+
+    @Test
+    public void leavesUnchangedMapsAlone() {
+        Random random = new Random(17);
+        Coverage run = randomRun(random);
+        CoverageSnapshot snapshot = new CoverageSnapshot(run);
+        CoverageSnapshot copy = snapshot.copy();
+        Assert.assertFalse(snapshot.updateBits(run));
+        Assert.assertFalse(snapshot.updateBits(copy));
+        Assert.assertFalse(snapshot.updateBits(new Coverage()));
+        assertSameCounts(copy, snapshot);
+    }
+}
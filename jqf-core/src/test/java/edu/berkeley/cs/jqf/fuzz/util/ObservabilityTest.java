@@ -0,0 +1,83 @@
+/*
+ * Copyright (c) 2026 Vladimir Sitnikov and JQF Contributors
+ *
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are
+ * met:
+ *
+ * 1. Redistributions of source code must retain the above copyright
+ * notice, this list of conditions and the following disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright
+ * notice, this list of conditions and the following disclaimer in the
+ * documentation and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+ * HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT
+ * LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ * THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package edu.berkeley.cs.jqf.fuzz.util;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
+
+import edu.berkeley.cs.jqf.fuzz.guidance.Result;
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+@RunWith(JUnit4.class)
+public class ObservabilityTest {
+
+    private static Path observations(String testMethod) throws IOException {
+        Path dir = Paths.get("target", "fuzz-results", ObservabilityTest.class.getName(), testMethod);
+        Files.createDirectories(dir);
+        return dir.resolve("observations.jsonl");
+    }
+
+    @Test
+    public void interruptedThreadStillRecordsAndKeepsItsInterrupt() throws IOException {
+        Path file = observations("interrupted");
+        Observability observability = new Observability(ObservabilityTest.class.getName(), "interrupted", 0);
+        observability.addStatus(Result.SUCCESS);
+        try {
+            Thread.currentThread().interrupt();
+            observability.writeToFile();
+            Assert.assertTrue(Thread.interrupted());
+        } finally {
+            Thread.interrupted();
+        }
+        observability.close();
+
+        List<String> lines = Files.readAllLines(file, StandardCharsets.UTF_8);
+        Assert.assertEquals(1, lines.size());
+        Assert.assertTrue(lines.get(0).contains("\"status\":\"passed\""));
+        Assert.assertEquals(0, observability.getDroppedCount());
+    }
+
+    @Test
+    public void recordingResumesAfterClose() throws IOException {
+        Path file = observations("resumed");
+        Observability observability = new Observability(ObservabilityTest.class.getName(), "resumed", 0);
+        observability.writeToFile();
+        observability.close();
+        observability.writeToFile();
+        observability.close();
+        Assert.assertEquals(2, Files.readAllLines(file, StandardCharsets.UTF_8).size());
+    }
+}
@@ -0,0 +1,102 @@
+/*
+ * Copyright (c) 2026 Vladimir Sitnikov and JQF Contributors
+ *
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are
+ * met:
+ *
+ * 1. Redistributions of source code must retain the above copyright
+ * notice, this list of conditions and the following disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright
+ * notice, this list of conditions and the following disclaimer in the
+ * documentation and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+ * HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT
+ * LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ * THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package edu.berkeley.cs.jqf.fuzz.util;
+
+import java.util.Random;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+@RunWith(JUnit4.class)
+public class WeightedSamplerTest {
+
+    @Test
+    public void totalTracksUpdates() {
+        WeightedSampler sampler = new WeightedSampler();
+        for (int i = 0; i < 100; i++) {
+            Assert.assertEquals(i, sampler.add(i));
+        }
+        Assert.assertEquals(4950.0, sampler.total(), 1e-6);
+        sampler.set(99, 0);
+        sampler.set(0, 1);
+        Assert.assertEquals(4852.0, sampler.total(), 1e-6);
+        Assert.assertEquals(1.0, sampler.get(0), 0);
+    }
+
+    @Test
+    public void neverSamplesZeroWeights() {
+        WeightedSampler sampler = new WeightedSampler();
+        for (int i = 0; i < 50; i++) {
+            sampler.add(i % 3 == 0 ? 1 : 0);
+        }
+        Random random = new Random(42);
+        for (int i = 0; i < 10_000; i++) {
+            Assert.assertEquals(0, sampler.sample(random) % 3);
+        }
+    }
+
+    @Test
+    public void samplesProportionallyToWeight() {
+        WeightedSampler sampler = new WeightedSampler();
+        sampler.add(1);
+        sampler.add(3);
+        sampler.add(0);
+        sampler.add(6);
+        int[] hits = new int[4];
+        Random random = new Random(42);
+        int n = 100_000;
+        for (int i = 0; i < n; i++) {
+            hits[sampler.sample(random)]++;
+        }
+        Assert.assertEquals(0.1, hits[0] / (double) n, 0.01);
+        Assert.assertEquals(0.3, hits[1] / (double) n, 0.01);
+        Assert.assertEquals(0, hits[2]);
+        Assert.assertEquals(0.6, hits[3] / (double) n, 0.01);
+    }
+
+    @Test
+    public void allZeroWeightsSampleUniformly() {
+        WeightedSampler sampler = new WeightedSampler();
+        sampler.add(0);
+        sampler.add(0);
+        boolean[] seen = new boolean[2];
+        Random random = new Random(42);
+        for (int i = 0; i < 100; i++) {
+            seen[sampler.sample(random)] = true;
+        }
+        Assert.assertTrue(seen[0] && seen[1]);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsNegativeWeights() {
+        new WeightedSampler().add(-1);
+    }
+}
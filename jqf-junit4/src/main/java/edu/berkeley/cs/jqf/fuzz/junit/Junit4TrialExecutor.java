@@ -28,38 +28,167 @@
  */
 package edu.berkeley.cs.jqf.fuzz.junit;
 
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
 import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.List;
 
 import edu.berkeley.cs.jqf.fuzz.spi.TrialExecutor;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
 import org.junit.runners.model.FrameworkMethod;
+import org.junit.runners.model.InitializationError;
+import org.junit.runners.model.MultipleFailureException;
+import org.junit.runners.model.TestClass;
 
 /**
- * Runs trials through a JUnit 4 {@link TrialRunner}.
+ * Runs trials under the JUnit 4 per-method lifecycle.
  *
- * <p>A fresh {@code TrialRunner} per trial gives each one a new test instance and
- * the standard {@code @Before}/{@code @After} lifecycle. It also captures the test
- * method's return value, which differential fuzzing needs.
+ * <p>Each trial gets a new test instance and the standard {@code @Before}/{@code @After}
+ * lifecycle. The test method's return value is also captured, because differential
+ * fuzzing needs it.
+ *
+ * <p>Building a {@link TrialRunner} scans and validates the test class. For fast
+ * targets that cost dominates a trial. So the class is validated once, and its
+ * {@code @Before}/{@code @After} methods and the test method are resolved to
+ * {@link MethodHandle}s up front. A trial only instantiates the class and invokes
+ * that chain. Ordering and error aggregation match {@code BlockJUnit4ClassRunner}.
+ *
+ * <p>Classes with {@code @Rule}s still get a fresh {@code TrialRunner} per trial,
+ * since rules can wrap the test in arbitrary statements.
  */
 public final class Junit4TrialExecutor implements TrialExecutor {
 
+    private static final MethodType CONSTRUCTOR_TYPE = MethodType.methodType(Object.class);
+    private static final MethodType CALLBACK_TYPE = MethodType.methodType(void.class, Object.class);
+    private static final MethodType INVOKER_TYPE = MethodType.methodType(Object.class, Object.class, Object[].class);
+
     private final Class<?> testClass;
     private final FrameworkMethod method;
+
+    /** Set if the test class failed validation; thrown by every trial. */
+    private final InitializationError initializationError;
+
+    /** The resolved lifecycle, or null if trials go through a {@link TrialRunner}. */
+    private final MethodHandle constructor;
+    private final MethodHandle[] befores;
+    private final MethodHandle[] afters;
+    private final MethodHandle invoker;
+
     private Object lastOutput;
 
     public Junit4TrialExecutor(Class<?> testClass, Method method) {
         this.testClass = testClass;
         this.method = new FrameworkMethod(method);
+
+        TestClass junitClass = null;
+        InitializationError error = null;
+        try {
+            // Validate the class once, just as constructing a runner per trial would
+            junitClass = new TrialRunner(testClass, this.method, null).getTestClass();
+        } catch (InitializationError e) {
+            error = e;
+        }
+        this.initializationError = error;
+
+        MethodHandle constructor = null;
+        MethodHandle[] befores = null;
+        MethodHandle[] afters = null;
+        MethodHandle invoker = null;
+        if (junitClass != null && !hasRules(junitClass)) {
+            try {
+                MethodHandles.Lookup lookup = MethodHandles.lookup();
+                constructor = lookup.unreflectConstructor(junitClass.getOnlyConstructor()).asType(CONSTRUCTOR_TYPE);
+                befores = callbacks(lookup, junitClass.getAnnotatedMethods(Before.class));
+                afters = callbacks(lookup, junitClass.getAnnotatedMethods(After.class));
+                invoker = invoker(lookup, method);
+            } catch (IllegalAccessException e) {
+                // Leave it to the runner, which reports inaccessible members per trial
+                constructor = null;
+            }
+        }
+        this.constructor = constructor;
+        this.befores = befores;
+        this.afters = afters;
+        this.invoker = invoker;
     }
 
     @Override
     public void runTrial(Object[] args) throws Throwable {
-        TrialRunner runner = new TrialRunner(testClass, method, args);
-        runner.run();
-        lastOutput = runner.getOutput();
+        if (initializationError != null) {
+            throw initializationError;
+        }
+        if (constructor == null) {
+            TrialRunner runner = new TrialRunner(testClass, method, args);
+            runner.run();
+            lastOutput = runner.getOutput();
+            return;
+        }
+
+        // Same shape as BlockJUnit4ClassRunner.methodBlock(): the afters run even if
+        // a before or the test fails, all errors are reported together, and the
+        // interrupt flag is cleared afterwards (JUnit 4.13's withInterruptIsolation),
+        // so that a trial that leaves the thread interrupted does not break later ones
+        try {
+            Object instance = (Object) constructor.invokeExact();
+            List<Throwable> errors = null;
+            try {
+                for (MethodHandle before : befores) {
+                    before.invokeExact(instance);
+                }
+                lastOutput = (Object) invoker.invokeExact(instance, args);
+            } catch (Throwable e) {
+                errors = new ArrayList<>();
+                errors.add(e);
+            }
+            for (MethodHandle after : afters) {
+                try {
+                    after.invokeExact(instance);
+                } catch (Throwable e) {
+                    if (errors == null) {
+                        errors = new ArrayList<>();
+                    }
+                    errors.add(e);
+                }
+            }
+            if (errors != null) {
+                MultipleFailureException.assertEmpty(errors);
+            }
+        } finally {
+            Thread.interrupted();
+        }
     }
 
     @Override
     public Object getLastOutput() {
         return lastOutput;
     }
+
+    private static boolean hasRules(TestClass junitClass) {
+        return !junitClass.getAnnotatedFields(Rule.class).isEmpty()
+                || !junitClass.getAnnotatedMethods(Rule.class).isEmpty();
+    }
+
+    private static MethodHandle[] callbacks(MethodHandles.Lookup lookup, List<FrameworkMethod> methods)
+            throws IllegalAccessException {
+        MethodHandle[] handles = new MethodHandle[methods.size()];
+        for (int i = 0; i < handles.length; i++) {
+            handles[i] = lookup.unreflect(methods.get(i).getMethod()).asType(CALLBACK_TYPE);
+        }
+        return handles;
+    }
+
+    /** Adapts the test method to take the test instance and an argument array. */
+    private static MethodHandle invoker(MethodHandles.Lookup lookup, Method method)
+            throws IllegalAccessException {
+        MethodHandle handle = lookup.unreflect(method).asFixedArity();
+        if (Modifier.isStatic(method.getModifiers())) {
+            handle = MethodHandles.dropArguments(handle, 0, Object.class);
+        }
+        return handle.asSpreader(Object[].class, method.getParameterCount()).asType(INVOKER_TYPE);
+    }
 }
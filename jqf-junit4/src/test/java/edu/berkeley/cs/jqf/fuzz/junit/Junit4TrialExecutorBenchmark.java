@@ -0,0 +1,106 @@
+/*
+ * Copyright (c) 2026 Vladimir Sitnikov and JQF Contributors
+ *
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are
+ * met:
+ *
+ * 1. Redistributions of source code must retain the above copyright
+ * notice, this list of conditions and the following disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright
+ * notice, this list of conditions and the following disclaimer in the
+ * documentation and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+ * HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT
+ * LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ * THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package edu.berkeley.cs.jqf.fuzz.junit;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.TimeUnit;
+
+import edu.berkeley.cs.jqf.fuzz.Fuzz;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.runners.model.FrameworkMethod;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures trials per second of a fast test under {@link Junit4TrialExecutor},
+ * against building a {@link TrialRunner} for every trial.
+ *
+ * <p>Run it with, e.g.,
+ * {@code java -cp <test classpath> org.openjdk.jmh.Main Junit4TrialExecutorBenchmark}.</p>
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class Junit4TrialExecutorBenchmark {
+
+    public static class Target {
+        private int state;
+
+        @Before
+        public void before() {
+            state = 1;
+        }
+
+        @After
+        public void after() {
+            state = 0;
+        }
+
+        @Fuzz
+        public int fuzz(int x) {
+            return x + state;
+        }
+    }
+
+    private FrameworkMethod frameworkMethod;
+    private Junit4TrialExecutor executor;
+    private final Object[] args = { 42 };
+
+    @Setup
+    public void setUp() throws NoSuchMethodException {
+        Method method = Target.class.getMethod("fuzz", int.class);
+        frameworkMethod = new FrameworkMethod(method);
+        executor = new Junit4TrialExecutor(Target.class, method);
+    }
+
+    @Benchmark
+    public Object executor() throws Throwable {
+        executor.runTrial(args);
+        return executor.getLastOutput();
+    }
+
+    @Benchmark
+    public Object trialRunnerPerTrial() throws Throwable {
+        TrialRunner runner = new TrialRunner(Target.class, frameworkMethod, args);
+        runner.run();
+        return runner.getOutput();
+    }
+}
@@ -0,0 +1,165 @@
+/*
+ * Copyright (c) 2026 Vladimir Sitnikov and JQF Contributors
+ *
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are
+ * met:
+ *
+ * 1. Redistributions of source code must retain the above copyright
+ * notice, this list of conditions and the following disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright
+ * notice, this list of conditions and the following disclaimer in the
+ * documentation and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+ * HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT
+ * LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ * THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package edu.berkeley.cs.jqf.fuzz.junit;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import edu.berkeley.cs.jqf.fuzz.Fuzz;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TestRule;
+import org.junit.runners.model.MultipleFailureException;
+import org.junit.runners.model.Statement;
+
+public class Junit4TrialExecutorTest {
+
+    private static final List<String> log = new ArrayList<>();
+    private static boolean failAfter;
+
+    public static class Lifecycle {
+        public Lifecycle() {
+            log.add("new");
+        }
+
+        @Before
+        public void before() {
+            log.add("before");
+        }
+
+        @After
+        public void after() {
+            log.add("after");
+            if (failAfter) {
+                throw new IllegalArgumentException("after");
+            }
+        }
+
+        @Fuzz
+        public int twice(int x) {
+            log.add("twice " + x);
+            return 2 * x;
+        }
+
+        @Fuzz
+        public void fail(int x) {
+            log.add("fail " + x);
+            throw new IllegalStateException("fail " + x);
+        }
+    }
+
+    /** Has a rule, so its trials run through a {@link TrialRunner}. */
+    public static class RuleLifecycle extends Lifecycle {
+        @Rule
+        public TestRule rule = (base, description) -> new Statement() {
+            @Override
+            public void evaluate() throws Throwable {
+                log.add("rule");
+                base.evaluate();
+            }
+        };
+    }
+
+    @Before
+    public void clearLog() {
+        log.clear();
+        failAfter = false;
+    }
+
+    private static Junit4TrialExecutor executor(Class<?> testClass, String method) throws NoSuchMethodException {
+        return new Junit4TrialExecutor(testClass, testClass.getMethod(method, int.class));
+    }
+
+    @Test
+    public void eachTrialGetsANewInstanceAndItsOwnBeforesAndAfters() throws Throwable {
+        Junit4TrialExecutor executor = executor(Lifecycle.class, "twice");
+        executor.runTrial(new Object[] { 1 });
+        Assert.assertEquals(2, executor.getLastOutput());
+        executor.runTrial(new Object[] { 2 });
+        Assert.assertEquals(4, executor.getLastOutput());
+        Assert.assertEquals(Arrays.asList(
+                "new", "before", "twice 1", "after",
+                "new", "before", "twice 2", "after"), log);
+    }
+
+    @Test
+    public void rulesWrapTheBeforesAndAftersOfEachTrial() throws Throwable {
+        Junit4TrialExecutor executor = executor(RuleLifecycle.class, "twice");
+        executor.runTrial(new Object[] { 1 });
+        Assert.assertEquals(2, executor.getLastOutput());
+        executor.runTrial(new Object[] { 2 });
+        Assert.assertEquals(4, executor.getLastOutput());
+        Assert.assertEquals(Arrays.asList(
+                "new", "rule", "before", "twice 1", "after",
+                "new", "rule", "before", "twice 2", "after"), log);
+    }
+
+    private static void assertThrowsUnwrapped(Class<?> testClass) throws Throwable {
+        Junit4TrialExecutor executor = executor(testClass, "fail");
+        IllegalStateException e = Assert.assertThrows(IllegalStateException.class,
+                () -> executor.runTrial(new Object[] { 3 }));
+        Assert.assertEquals("fail 3", e.getMessage());
+        Assert.assertEquals("after", log.get(log.size() - 1));
+    }
+
+    @Test
+    public void testFailuresAreThrownUnwrapped() throws Throwable {
+        assertThrowsUnwrapped(Lifecycle.class);
+    }
+
+    @Test
+    public void testFailuresAreThrownUnwrappedWithRules() throws Throwable {
+        assertThrowsUnwrapped(RuleLifecycle.class);
+    }
+
+    private static void assertFailuresReportedTogether(Class<?> testClass) throws Throwable {
+        failAfter = true;
+        Junit4TrialExecutor executor = executor(testClass, "fail");
+        MultipleFailureException e = Assert.assertThrows(MultipleFailureException.class,
+                () -> executor.runTrial(new Object[] { 3 }));
+        List<Throwable> failures = e.getFailures();
+        Assert.assertEquals(2, failures.size());
+        Assert.assertEquals(IllegalStateException.class, failures.get(0).getClass());
+        Assert.assertEquals(IllegalArgumentException.class, failures.get(1).getClass());
+    }
+
+    @Test
+    public void failuresOfTheTestAndItsAftersAreReportedTogether() throws Throwable {
+        assertFailuresReportedTogether(Lifecycle.class);
+    }
+
+    @Test
+    public void failuresOfTheTestAndItsAftersAreReportedTogetherWithRules() throws Throwable {
+        assertFailuresReportedTogether(RuleLifecycle.class);
+    }
+}
@@ -112,4 +112,15 @@ public @interface FuzzTest {
      * @return the generator factory class, or the marker default
      */
     Class<? extends ArgumentsGeneratorFactory> arguments() default ArgumentsGeneratorFactory.class;
+
+    /**
+     * Whether a fuzzing campaign may reuse one test instance for every trial
+     * instead of constructing a new one per trial. {@code @BeforeEach} and
+     * {@code @AfterEach} still run around each trial. Only enable this for test
+     * classes that keep no state between trials. Overridden by the
+     * {@code jqf.fuzz.reuseInstance} system property.
+     *
+     * @return {@code true} to share a single test instance across trials
+     */
+    boolean reuseInstance() default false;
 }
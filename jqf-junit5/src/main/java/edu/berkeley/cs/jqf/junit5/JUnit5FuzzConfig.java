@@ -203,6 +203,19 @@ public final class JUnit5FuzzConfig {
         return trials > 0 ? trials : null;
     }
 
+    /**
+     * Reports whether a fuzzing campaign should reuse one test instance across trials.
+     *
+     * @return {@code true} if the test instance is shared across trials
+     */
+    public boolean reuseInstance() {
+        String sys = System.getProperty("jqf.fuzz.reuseInstance");
+        if (sys != null && !sys.isEmpty()) {
+            return Boolean.parseBoolean(sys);
+        }
+        return annotation != null && annotation.reuseInstance();
+    }
+
     Duration maxDuration() {
         String sys = System.getProperty("jqf.fuzz.duration");
         String spec = (sys != null && !sys.isEmpty())
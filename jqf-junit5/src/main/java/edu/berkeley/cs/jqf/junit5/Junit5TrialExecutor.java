@@ -29,9 +29,13 @@
 package edu.berkeley.cs.jqf.junit5;
 
 import java.lang.annotation.Annotation;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
 import java.lang.reflect.Constructor;
 import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
 import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.Collections;
@@ -45,7 +49,7 @@ import org.junit.jupiter.api.BeforeAll;
 import org.junit.jupiter.api.BeforeEach;
 
 /**
- * Runs trials reflectively under a JUnit 5 (Jupiter) lifecycle.
+ * Runs trials under a JUnit 5 (Jupiter) lifecycle without going through the engine.
  *
  * <p>The fuzzing loop runs millions of trials, so it must not re-enter the
  * Jupiter engine per trial. This executor instead replays the relevant
@@ -54,6 +58,12 @@ import org.junit.jupiter.api.BeforeEach;
  * {@code @BeforeEach}/{@code @AfterEach} callbacks. The test method's return
  * value is captured for differential fuzzing.
  *
+ * <p>The per-trial chain (constructor, {@code @BeforeEach}, test method,
+ * {@code @AfterEach}) is resolved to {@link MethodHandle}s once, in the
+ * constructor. Trials therefore avoid {@link Method#invoke} argument boxing and
+ * exception wrapping, and the JIT can inline the test body into the fuzz loop.
+ * When {@link FuzzTest#reuseInstance()} is set, one instance serves every trial.
+ *
  * <p>This is a pragmatic subset of Jupiter's lifecycle: it honours inheritance
  * (superclass callbacks run first for "before", last for "after") but does not
  * resolve parameters into lifecycle methods, nor support {@code @Nested} classes
@@ -62,32 +72,59 @@ import org.junit.jupiter.api.BeforeEach;
  */
 public final class Junit5TrialExecutor implements TrialExecutor {
 
+    private static final MethodType CONSTRUCTOR_TYPE = MethodType.methodType(Object.class);
+    private static final MethodType CALLBACK_TYPE = MethodType.methodType(void.class, Object.class);
+    private static final MethodType INVOKER_TYPE = MethodType.methodType(Object.class, Object.class, Object[].class);
+
     private final Class<?> testClass;
-    private final Constructor<?> constructor;
-    private final Method testMethod;
+    private final MethodHandle constructor;
+    private final MethodHandle testMethod;
     private final List<Method> beforeAllMethods;
     private final List<Method> afterAllMethods;
-    private final List<Method> beforeEachMethods;
-    private final List<Method> afterEachMethods;
+    private final MethodHandle[] beforeEachMethods;
+    private final MethodHandle[] afterEachMethods;
+    private final boolean reuseInstance;
 
     private boolean beforeAllExecuted = false;
+    private Object sharedInstance;
     private Object lastOutput;
 
     public Junit5TrialExecutor(Class<?> testClass, Method testMethod) {
+        this(testClass, testMethod, JUnit5FuzzConfig.from(testClass, testMethod).reuseInstance());
+    }
+
+    /**
+     * Creates an executor for a test method.
+     *
+     * @param testClass     the class declaring the test method
+     * @param testMethod    the test method to run on each trial
+     * @param reuseInstance whether to share one test instance across all trials
+     */
+    public Junit5TrialExecutor(Class<?> testClass, Method testMethod, boolean reuseInstance) {
         this.testClass = testClass;
-        this.testMethod = testMethod;
-        this.testMethod.setAccessible(true);
+        this.reuseInstance = reuseInstance;
+        Constructor<?> constructor;
         try {
-            this.constructor = testClass.getDeclaredConstructor();
+            constructor = testClass.getDeclaredConstructor();
         } catch (NoSuchMethodException e) {
             throw new IllegalArgumentException("Test class " + testClass.getName()
                     + " must have a no-argument constructor to be fuzzed with @FuzzTest", e);
         }
-        this.constructor.setAccessible(true);
+        constructor.setAccessible(true);
+        testMethod.setAccessible(true);
         this.beforeAllMethods = lifecycleMethods(testClass, BeforeAll.class, true);
         this.afterAllMethods = lifecycleMethods(testClass, AfterAll.class, false);
-        this.beforeEachMethods = lifecycleMethods(testClass, BeforeEach.class, true);
-        this.afterEachMethods = lifecycleMethods(testClass, AfterEach.class, false);
+
+        MethodHandles.Lookup lookup = MethodHandles.lookup();
+        try {
+            this.constructor = lookup.unreflectConstructor(constructor).asType(CONSTRUCTOR_TYPE);
+            this.testMethod = invoker(lookup, testMethod);
+            this.beforeEachMethods = callbacks(lookup, lifecycleMethods(testClass, BeforeEach.class, true));
+            this.afterEachMethods = callbacks(lookup, lifecycleMethods(testClass, AfterEach.class, false));
+        } catch (IllegalAccessException e) {
+            // Cannot happen: every member has been made accessible above
+            throw new IllegalArgumentException("Cannot access members of " + testClass.getName(), e);
+        }
     }
 
     @Override
@@ -99,19 +136,27 @@ public final class Junit5TrialExecutor implements TrialExecutor {
             beforeAllExecuted = true;
         }
 
-        Object instance = constructor.newInstance();
+        Object instance;
+        if (reuseInstance) {
+            if (sharedInstance == null) {
+                sharedInstance = (Object) constructor.invokeExact();
+            }
+            instance = sharedInstance;
+        } else {
+            instance = (Object) constructor.invokeExact();
+        }
         Throwable primary = null;
         try {
-            for (Method m : beforeEachMethods) {
-                invoke(instance, m);
+            for (MethodHandle m : beforeEachMethods) {
+                m.invokeExact(instance);
             }
-            lastOutput = invoke(instance, testMethod, args);
+            lastOutput = (Object) testMethod.invokeExact(instance, args);
         } catch (Throwable t) {
             primary = t;
         } finally {
-            for (Method m : afterEachMethods) {
+            for (MethodHandle m : afterEachMethods) {
                 try {
-                    invoke(instance, m);
+                    m.invokeExact(instance);
                 } catch (Throwable t) {
                     if (primary == null) {
                         primary = t;
@@ -159,6 +204,25 @@ public final class Junit5TrialExecutor implements TrialExecutor {
         }
     }
 
+    private static MethodHandle[] callbacks(MethodHandles.Lookup lookup, List<Method> methods)
+            throws IllegalAccessException {
+        MethodHandle[] handles = new MethodHandle[methods.size()];
+        for (int i = 0; i < handles.length; i++) {
+            handles[i] = lookup.unreflect(methods.get(i)).asType(CALLBACK_TYPE);
+        }
+        return handles;
+    }
+
+    /** Adapts the test method to take the test instance and an argument array. */
+    private static MethodHandle invoker(MethodHandles.Lookup lookup, Method method)
+            throws IllegalAccessException {
+        MethodHandle handle = lookup.unreflect(method).asFixedArity();
+        if (Modifier.isStatic(method.getModifiers())) {
+            handle = MethodHandles.dropArguments(handle, 0, Object.class);
+        }
+        return handle.asSpreader(Object[].class, method.getParameterCount()).asType(INVOKER_TYPE);
+    }
+
     /**
      * Collects the methods annotated with {@code annotation} across the class
      * hierarchy, ordered superclass-first for "before" callbacks and
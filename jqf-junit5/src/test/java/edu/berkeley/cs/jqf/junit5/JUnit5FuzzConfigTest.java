@@ -71,6 +71,10 @@ class JUnit5FuzzConfigTest {
         @FuzzTest(maxDuration = "5m")
         void withDuration(int x) {
         }
+
+        @FuzzTest(reuseInstance = true)
+        void withReuse(int x) {
+        }
     }
 
     private static Method sample(String name) throws NoSuchMethodException {
@@ -89,6 +93,7 @@ class JUnit5FuzzConfigTest {
         System.clearProperty("jqf.repro");
         System.clearProperty("jqf.fuzz.trials");
         System.clearProperty("jqf.fuzz.duration");
+        System.clearProperty("jqf.fuzz.reuseInstance");
     }
 
     @Test
@@ -137,6 +142,23 @@ class JUnit5FuzzConfigTest {
         assertEquals(Duration.ofSeconds(30), configFor("withDuration").maxDuration());
     }
 
+    @Test
+    void instanceIsNotReusedByDefault() throws NoSuchMethodException {
+        assertFalse(configFor("plain").reuseInstance());
+        assertTrue(configFor("withReuse").reuseInstance());
+    }
+
+    @Test
+    void reuseInstanceSystemPropertyOverridesAnnotation() throws NoSuchMethodException {
+        System.setProperty("jqf.fuzz.reuseInstance", "true");
+        assertTrue(configFor("plain").reuseInstance());
+        System.setProperty("jqf.fuzz.reuseInstance", "false");
+        assertFalse(configFor("withReuse").reuseInstance());
+        // An empty value leaves the annotation in charge.
+        System.setProperty("jqf.fuzz.reuseInstance", "");
+        assertTrue(configFor("withReuse").reuseInstance());
+    }
+
     @Test
     void outputDirectoryIsNamedAfterClassAndMethod() throws NoSuchMethodException {
         String path = configFor("plain").outputDirectory().getPath();
@@ -0,0 +1,108 @@
+/*
+ * Copyright (c) 2026 Vladimir Sitnikov and JQF Contributors
+ *
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are
+ * met:
+ *
+ * 1. Redistributions of source code must retain the above copyright
+ * notice, this list of conditions and the following disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright
+ * notice, this list of conditions and the following disclaimer in the
+ * documentation and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+ * HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT
+ * LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ * THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package edu.berkeley.cs.jqf.junit5;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Unit tests for {@link Junit5TrialExecutor}: trials share one test instance only
+ * when {@link FuzzTest#reuseInstance()} is set, and run the {@code @BeforeEach} and
+ * {@code @AfterEach} callbacks either way.
+ */
+class Junit5TrialExecutorTest {
+
+    private static final List<String> log = new ArrayList<>();
+    private static int instances;
+
+    static class Lifecycle {
+        private final int id = ++instances;
+
+        @BeforeEach
+        void setUp() {
+            log.add("before " + id);
+        }
+
+        @AfterEach
+        void tearDown() {
+            log.add("after " + id);
+        }
+
+        int twice(int x) {
+            log.add("twice " + id);
+            return 2 * x;
+        }
+    }
+
+    @BeforeEach
+    void resetState() {
+        log.clear();
+        instances = 0;
+    }
+
+    private static Junit5TrialExecutor executor(boolean reuseInstance) throws NoSuchMethodException {
+        return new Junit5TrialExecutor(Lifecycle.class,
+                Lifecycle.class.getDeclaredMethod("twice", int.class), reuseInstance);
+    }
+
+    @Test
+    void reusedInstanceServesEveryTrial() throws Throwable {
+        Junit5TrialExecutor executor = executor(true);
+        for (int i = 1; i <= 3; i++) {
+            executor.runTrial(new Object[] { i });
+            assertEquals(2 * i, executor.getLastOutput());
+        }
+        assertEquals(1, instances);
+        assertEquals(Arrays.asList(
+                "before 1", "twice 1", "after 1",
+                "before 1", "twice 1", "after 1",
+                "before 1", "twice 1", "after 1"), log);
+    }
+
+    @Test
+    void everyTrialGetsANewInstanceWithoutReuse() throws Throwable {
+        Junit5TrialExecutor executor = executor(false);
+        for (int i = 1; i <= 3; i++) {
+            executor.runTrial(new Object[] { i });
+            assertEquals(2 * i, executor.getLastOutput());
+        }
+        assertEquals(3, instances);
+        assertEquals(Arrays.asList(
+                "before 1", "twice 1", "after 1",
+                "before 2", "twice 2", "after 2",
+                "before 3", "twice 3", "after 3"), log);
+    }
+}
@@ -0,0 +1,209 @@
+/*
+ * Copyright (c) 2026 Vladimir Sitnikov and JQF Contributors
+ *
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are
+ * met:
+ *
+ * 1. Redistributions of source code must retain the above copyright
+ * notice, this list of conditions and the following disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright
+ * notice, this list of conditions and the following disclaimer in the
+ * documentation and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+ * HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT
+ * LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ * THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package edu.berkeley.cs.jqf.plugin;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.MalformedURLException;
+import java.util.List;
+import java.util.function.Supplier;
+
+import edu.berkeley.cs.jqf.fuzz.FuzzRunner;
+import edu.berkeley.cs.jqf.fuzz.repro.CorpusMinimizer;
+import edu.berkeley.cs.jqf.fuzz.util.CoverageFactory;
+import edu.berkeley.cs.jqf.fuzz.util.FastNonCollidingCoverage;
+import edu.berkeley.cs.jqf.instrument.InstrumentingClassLoader;
+import edu.berkeley.cs.jqf.instrument.tracing.FastCoverageSnoop;
+import org.apache.maven.artifact.DependencyResolutionRequiredException;
+import org.apache.maven.plugin.AbstractMojo;
+import org.apache.maven.plugin.MojoExecutionException;
+import org.apache.maven.plugin.MojoFailureException;
+import org.apache.maven.plugins.annotations.Mojo;
+import org.apache.maven.plugins.annotations.Parameter;
+import org.apache.maven.plugins.annotations.ResolutionScope;
+import org.apache.maven.project.MavenProject;
+
+/**
+ * Maven plugin for minimizing a corpus produced by JQF.
+ *
+ * <p>Replays every input of the corpus, and copies a small subset of
+ * inputs that covers the same edges to the output directory. Smaller and
+ * faster inputs are preferred, and inputs that fail or time out are left
+ * out. The result can be used as the seed corpus of a new campaign.</p>
+ */
+@Mojo(name="cmin",
+        requiresDependencyResolution=ResolutionScope.TEST)
+public class CminGoal extends AbstractMojo {
+
+    @Parameter(defaultValue="${project}", required=true, readonly=true)
+    MavenProject project;
+
+    @Parameter(defaultValue="${project.build.directory}", readonly=true)
+    private File target;
+
+    /**
+     * The fully-qualified name of the test class containing methods
+     * to fuzz.
+     *
+     * <p>This class will be loaded using the Maven project's test
+     * classpath.</p>
+     */
+    @Parameter(property="class", required=true)
+    private String testClassName;
+
+    /**
+     * The name of the method whose corpus to minimize.
+     */
+    @Parameter(property="method", required=true)
+    private String testMethod;
+
+    /**
+     * The corpus to minimize.
+     *
+     * <p>If not provided, defaults to the corpus of the last
+     * <code>jqf:fuzz</code> campaign for the same test method, i.e.
+     * <code>${project.build.directory}/fuzz-results/${class}/${method}/corpus</code>.</p>
+     */
+    @Parameter(property="input")
+    private File input;
+
+    /**
+     * The directory to write the minimized corpus to.
+     *
+     * <p>If not provided, defaults to a sibling of the default input,
+     * <code>${project.build.directory}/fuzz-results/${class}/${method}/corpus-min</code>.</p>
+     */
+    @Parameter(property="output")
+    private File output;
+
+    /**
+     * The number of threads that replay the corpus in parallel.
+     *
+     * <p>Only applies to {@code @Fuzz} methods; the corpus is replayed
+     * on a single thread when coverage is collected with
+     * <code>janala.inlineCounters</code>.</p>
+     */
+    @Parameter(property="workers", defaultValue="1")
+    private int workers;
+
+    /**
+     * The timeout for replaying each input, in milliseconds.
+     *
+     * <p>Inputs that exceed it are left out, like inputs that fail. If
+     * not provided, defaults to 0 (unlimited).</p>
+     */
+    @Parameter(property="runTimeout")
+    private int runTimeout;
+
+    /**
+     * Comma-separated list of FQN prefixes to exclude from
+     * coverage instrumentation.
+     *
+     * <p>The semantics are the same as for the similarly named
+     * property in the goal <code>jqf:fuzz</code>.</p>
+     */
+    @Parameter(property="excludes")
+    private String excludes;
+
+    /**
+     * Comma-separated list of FQN prefixes to forcibly include,
+     * even if they match an exclude.
+     *
+     * <p>The semantics are the same as for the similarly named
+     * property in the goal <code>jqf:fuzz</code>.</p>
+     */
+    @Parameter(property="includes")
+    private String includes;
+
+    @Override
+    public void execute() throws MojoExecutionException, MojoFailureException {
+        // Configure classes to instrument
+        if (excludes != null) {
+            System.setProperty("janala.excludes", excludes);
+        }
+        if (includes != null) {
+            System.setProperty("janala.includes", includes);
+        }
+
+        File resultsDir = new File(target, "fuzz-results" + File.separator + testClassName + File.separator + testMethod);
+        File inputDir = input != null ? input : new File(resultsDir, "corpus");
+        File outputDir = output != null ? output : new File(resultsDir, "corpus-min");
+        if (!inputDir.exists() || !inputDir.canRead()) {
+            throw new MojoExecutionException("Cannot find or open corpus " + inputDir);
+        }
+
+        String[] classpath;
+        ClassLoader loader;
+        try {
+            classpath = project.getTestClasspathElements().toArray(new String[0]);
+            loader = new InstrumentingClassLoader(classpath, getClass().getClassLoader());
+        } catch (DependencyResolutionRequiredException|MalformedURLException e) {
+            throw new MojoExecutionException("Could not get project classpath", e);
+        }
+
+        try {
+            CorpusMinimizer minimizer = new CorpusMinimizer(inputDir, runTimeout);
+            Class<?> testClass = loader.loadClass(testClassName);
+            if (FuzzTestDispatcher.detect(testClass, testMethod) == FuzzTestDispatcher.TestFramework.JUNIT5) {
+                // The JUnit 5 path runs on the calling thread
+                FuzzTestDispatcher.run(loader, testClassName, testMethod, minimizer.newWorker(0), null);
+            } else {
+                // Fast coverage numbers probes in class-load order, so workers must share one loader
+                boolean fast = CoverageFactory.newInstance() instanceof FastNonCollidingCoverage;
+                int numWorkers = FastCoverageSnoop.isInlineCountersEnabled() ? 1 : workers;
+                Supplier<ClassLoader> loaders = fast ? () -> loader : () -> newInstrumentingClassLoader(classpath);
+                FuzzRunner.runParallel(testClassName, testMethod, loaders, minimizer, numWorkers);
+            }
+
+            List<File> kept = minimizer.minimize();
+            CorpusMinimizer.writeCorpus(kept, outputDir);
+            getLog().info(String.format("Kept %d inputs covering %d edges in %s; left out %d failing inputs",
+                    kept.size(), minimizer.getNumEdges(), outputDir, minimizer.getNumFailed()));
+        } catch (ClassNotFoundException e) {
+            throw new MojoExecutionException("Could not load test class", e);
+        } catch (IllegalArgumentException e) {
+            throw new MojoExecutionException("Bad request", e);
+        } catch (IOException e) {
+            throw new MojoExecutionException("I/O error", e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new MojoExecutionException("Interrupted", e);
+        } catch (RuntimeException e) {
+            throw new MojoExecutionException("Internal error", e);
+        }
+    }
+
+    private ClassLoader newInstrumentingClassLoader(String[] classpath) {
+        try {
+            return new InstrumentingClassLoader(classpath, getClass().getClassLoader());
+        } catch (MalformedURLException e) {
+            throw new IllegalArgumentException(e);
+        }
+    }
+}
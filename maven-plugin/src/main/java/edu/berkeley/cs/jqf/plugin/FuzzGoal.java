@@ -44,6 +44,7 @@ import edu.berkeley.cs.jqf.fuzz.ei.ZestGuidance;
 import edu.berkeley.cs.jqf.fuzz.guidance.Guidance;
 import edu.berkeley.cs.jqf.fuzz.guidance.GuidanceException;
 import edu.berkeley.cs.jqf.fuzz.junit.GuidedFuzzing;
+import edu.berkeley.cs.jqf.instrument.AheadOfTimeInstrumentation;
 import edu.berkeley.cs.jqf.instrument.InstrumentingClassLoader;
 import org.apache.maven.artifact.DependencyResolutionRequiredException;
 import org.apache.maven.plugin.AbstractMojo;
@@ -202,6 +203,18 @@ public class FuzzGoal extends AbstractMojo {
     @Parameter(property="noCov")
     private boolean disableCoverage;
 
+    /**
+     * The output directory of a previous <code>jqf:instrument</code>.
+     *
+     * <p>If provided, classes are loaded from the classpath instrumented
+     * there, with the instrumentation settings recorded there, instead of
+     * being instrumented as they are loaded. The test classpath is not
+     * consulted, so <code>jqf:instrument</code> must be re-run whenever
+     * it changes.</p>
+     */
+    @Parameter(property="instrumented")
+    private File instrumented;
+
     /**
      * The name of the input directory containing seed files.
      *
@@ -342,6 +355,11 @@ public class FuzzGoal extends AbstractMojo {
                         stringsToUrls(classpathElements.toArray(new String[0])),
                         getClass().getClassLoader());
 
+            } else if (instrumented != null) {
+                // Instrumented ahead of time by jqf:instrument
+                loader = new URLClassLoader(
+                        stringsToUrls(AheadOfTimeInstrumentation.load(instrumented)),
+                        getClass().getClassLoader());
             } else {
                 loader = new InstrumentingClassLoader(
                         classpathElements.toArray(new String[0]),
@@ -349,6 +367,8 @@ public class FuzzGoal extends AbstractMojo {
             }
         } catch (DependencyResolutionRequiredException|MalformedURLException e) {
             throw new MojoExecutionException("Could not get project classpath", e);
+        } catch (IOException e) {
+            throw new MojoExecutionException("Could not load instrumented classpath from " + instrumented, e);
         }
 
         File outputDir = new File(target, "fuzz-results" + File.separator + testClassName);
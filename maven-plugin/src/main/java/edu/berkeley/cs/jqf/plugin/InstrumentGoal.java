@@ -0,0 +1,115 @@
+/*
+ * Copyright (c) 2026 Vladimir Sitnikov and JQF Contributors
+ *
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are
+ * met:
+ *
+ * 1. Redistributions of source code must retain the above copyright
+ * notice, this list of conditions and the following disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright
+ * notice, this list of conditions and the following disclaimer in the
+ * documentation and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+ * HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT
+ * LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ * THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package edu.berkeley.cs.jqf.plugin;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.List;
+
+import edu.berkeley.cs.jqf.instrument.AheadOfTimeInstrumentation;
+import org.apache.maven.artifact.DependencyResolutionRequiredException;
+import org.apache.maven.plugin.AbstractMojo;
+import org.apache.maven.plugin.MojoExecutionException;
+import org.apache.maven.plugins.annotations.LifecyclePhase;
+import org.apache.maven.plugins.annotations.Mojo;
+import org.apache.maven.plugins.annotations.Parameter;
+import org.apache.maven.plugins.annotations.ResolutionScope;
+import org.apache.maven.project.MavenProject;
+
+/**
+ * Maven plugin for instrumenting the test classpath ahead of time.
+ *
+ * <p>Writes an instrumented copy of the project's test classes, classes
+ * and dependency jars, so that <code>jqf:fuzz -Dinstrumented=...</code>
+ * can load them without instrumenting anything at class-load time. The
+ * instrumentation settings (e.g. <code>-DuseFastNonCollidingCoverageInstrumentation</code>
+ * or <code>-Djanala.inlineCounters</code>) are taken from the system
+ * properties of this invocation and recorded with the output.</p>
+ */
+@Mojo(name="instrument",
+        requiresDependencyResolution=ResolutionScope.TEST,
+        defaultPhase=LifecyclePhase.TEST_COMPILE)
+public class InstrumentGoal extends AbstractMojo {
+
+    @Parameter(defaultValue="${project}", required=true, readonly=true)
+    MavenProject project;
+
+    /**
+     * The directory to write the instrumented classpath to.
+     *
+     * <p>Any classpath previously instrumented into this directory is
+     * replaced.</p>
+     */
+    @Parameter(property="instrumented", defaultValue="${project.build.directory}/jqf-instrumented")
+    private File outputDirectory;
+
+    /**
+     * Comma-separated list of FQN prefixes to exclude from
+     * coverage instrumentation.
+     *
+     * <p>The semantics are the same as for the similarly named
+     * property in the goal <code>jqf:fuzz</code>.</p>
+     */
+    @Parameter(property="excludes")
+    private String excludes;
+
+    /**
+     * Comma-separated list of FQN prefixes to forcibly include,
+     * even if they match an exclude.
+     *
+     * <p>The semantics are the same as for the similarly named
+     * property in the goal <code>jqf:fuzz</code>.</p>
+     */
+    @Parameter(property="includes")
+    private String includes;
+
+    @Override
+    public void execute() throws MojoExecutionException {
+        // Configure classes to instrument
+        if (excludes != null) {
+            System.setProperty("janala.excludes", excludes);
+        }
+        if (includes != null) {
+            System.setProperty("janala.includes", includes);
+        }
+
+        try {
+            List<String> classpathElements = project.getTestClasspathElements();
+            long start = System.currentTimeMillis();
+            AheadOfTimeInstrumentation.instrument(classpathElements.toArray(new String[0]),
+                    getClass().getClassLoader(), outputDirectory);
+            getLog().info(String.format("Instrumented %d classpath elements into %s in %d ms",
+                    classpathElements.size(), outputDirectory, System.currentTimeMillis() - start));
+        } catch (DependencyResolutionRequiredException e) {
+            throw new MojoExecutionException("Could not get project classpath", e);
+        } catch (IOException e) {
+            throw new MojoExecutionException("I/O error", e);
+        }
+    }
+}
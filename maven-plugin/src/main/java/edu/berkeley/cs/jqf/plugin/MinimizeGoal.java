@@ -0,0 +1,198 @@
+/*
+ * Copyright (c) 2026 Vladimir Sitnikov and JQF Contributors
+ *
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are
+ * met:
+ *
+ * 1. Redistributions of source code must retain the above copyright
+ * notice, this list of conditions and the following disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright
+ * notice, this list of conditions and the following disclaimer in the
+ * documentation and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+ * HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT
+ * LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ * THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package edu.berkeley.cs.jqf.plugin;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.MalformedURLException;
+import java.nio.file.Files;
+
+import edu.berkeley.cs.jqf.fuzz.FuzzRunner;
+import edu.berkeley.cs.jqf.fuzz.repro.CrashMinimizer;
+import edu.berkeley.cs.jqf.instrument.InstrumentingClassLoader;
+import org.apache.maven.artifact.DependencyResolutionRequiredException;
+import org.apache.maven.plugin.AbstractMojo;
+import org.apache.maven.plugin.MojoExecutionException;
+import org.apache.maven.plugin.MojoFailureException;
+import org.apache.maven.plugins.annotations.Mojo;
+import org.apache.maven.plugins.annotations.Parameter;
+import org.apache.maven.plugins.annotations.ResolutionScope;
+import org.apache.maven.project.MavenProject;
+
+/**
+ * Maven plugin for minimizing an input that makes a test fail.
+ *
+ * <p>Repeatedly removes parts of the input, keeping every reduction that
+ * still fails with the same stack trace (or still times out), and writes
+ * the smallest such input found. The result can be replayed with
+ * <code>jqf:repro</code>.</p>
+ */
+@Mojo(name="minimize",
+        requiresDependencyResolution=ResolutionScope.TEST)
+public class MinimizeGoal extends AbstractMojo {
+
+    @Parameter(defaultValue="${project}", required=true, readonly=true)
+    MavenProject project;
+
+    /**
+     * The fully-qualified name of the test class containing methods
+     * to fuzz.
+     *
+     * <p>This class will be loaded using the Maven project's test
+     * classpath.</p>
+     */
+    @Parameter(property="class", required=true)
+    private String testClassName;
+
+    /**
+     * The name of the method that fails on the input.
+     */
+    @Parameter(property="method", required=true)
+    private String testMethod;
+
+    /**
+     * The failing input to minimize, usually a file in the
+     * <code>failures</code> directory of a <code>jqf:fuzz</code> campaign.
+     */
+    @Parameter(property="input", required=true)
+    private File input;
+
+    /**
+     * The file to write the minimized input to.
+     *
+     * <p>If not provided, defaults to the input file name followed
+     * by <code>.min</code>.</p>
+     */
+    @Parameter(property="output")
+    private File output;
+
+    /**
+     * The number of threads that try reductions in parallel.
+     *
+     * <p>Only applies to {@code @Fuzz} methods.</p>
+     */
+    @Parameter(property="workers", defaultValue="1")
+    private int workers;
+
+    /**
+     * The timeout for each individual trial, in milliseconds.
+     *
+     * <p>Needed to minimize an input that makes the test time out.
+     * If not provided, defaults to 0 (unlimited).</p>
+     */
+    @Parameter(property="runTimeout")
+    private int runTimeout;
+
+    /**
+     * Comma-separated list of FQN prefixes to exclude from
+     * coverage instrumentation.
+     *
+     * <p>The semantics are the same as for the similarly named
+     * property in the goal <code>jqf:fuzz</code>.</p>
+     */
+    @Parameter(property="excludes")
+    private String excludes;
+
+    /**
+     * Comma-separated list of FQN prefixes to forcibly include,
+     * even if they match an exclude.
+     *
+     * <p>The semantics are the same as for the similarly named
+     * property in the goal <code>jqf:fuzz</code>.</p>
+     */
+    @Parameter(property="includes")
+    private String includes;
+
+    @Override
+    public void execute() throws MojoExecutionException, MojoFailureException {
+        // Configure classes to instrument
+        if (excludes != null) {
+            System.setProperty("janala.excludes", excludes);
+        }
+        if (includes != null) {
+            System.setProperty("janala.includes", includes);
+        }
+
+        if (!input.isFile() || !input.canRead()) {
+            throw new MojoExecutionException("Cannot find or open input " + input);
+        }
+        File outputFile = output != null ? output : new File(input.getPath() + ".min");
+
+        String[] classpath;
+        ClassLoader loader;
+        try {
+            classpath = project.getTestClasspathElements().toArray(new String[0]);
+            loader = new InstrumentingClassLoader(classpath, getClass().getClassLoader());
+        } catch (DependencyResolutionRequiredException|MalformedURLException e) {
+            throw new MojoExecutionException("Could not get project classpath", e);
+        }
+
+        try {
+            CrashMinimizer minimizer = new CrashMinimizer(input, runTimeout);
+            Class<?> testClass = loader.loadClass(testClassName);
+            if (FuzzTestDispatcher.detect(testClass, testMethod) == FuzzTestDispatcher.TestFramework.JUNIT5) {
+                // The JUnit 5 path runs on the calling thread
+                FuzzTestDispatcher.run(loader, testClassName, testMethod, minimizer.newWorker(0), null);
+            } else {
+                // No coverage is compared, so each worker gets its own copy of the static state of the test
+                FuzzRunner.runParallel(testClassName, testMethod, () -> newInstrumentingClassLoader(classpath),
+                        minimizer, workers);
+            }
+
+            byte[] minimized;
+            try {
+                minimized = minimizer.getMinimized();
+            } catch (IllegalStateException e) {
+                throw new MojoFailureException("Input " + input + " does not make the test fail", e);
+            }
+            Files.write(outputFile.toPath(), minimized);
+            getLog().info(String.format("Minimized %s from %d to %d bytes in %d runs: %s",
+                    input, input.length(), minimized.length, minimizer.getNumRuns(), outputFile));
+        } catch (ClassNotFoundException e) {
+            throw new MojoExecutionException("Could not load test class", e);
+        } catch (IllegalArgumentException e) {
+            throw new MojoExecutionException("Bad request", e);
+        } catch (IOException e) {
+            throw new MojoExecutionException("I/O error", e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new MojoExecutionException("Interrupted", e);
+        } catch (RuntimeException e) {
+            throw new MojoExecutionException("Internal error", e);
+        }
+    }
+
+    private ClassLoader newInstrumentingClassLoader(String[] classpath) {
+        try {
+            return new InstrumentingClassLoader(classpath, getClass().getClassLoader());
+        } catch (MalformedURLException e) {
+            throw new IllegalArgumentException(e);
+        }
+    }
+}